@@ -0,0 +1,222 @@
+package hello.springdb2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+import hello.springdb2.config.ItemCacheConfig;
+import hello.springdb2.config.JdbcTemplateV1Config;
+import hello.springdb2.config.JdbcTemplateV2Config;
+import hello.springdb2.config.JdbcTemplateV3Config;
+import hello.springdb2.config.JpaConfig;
+import hello.springdb2.config.MemoryConfig;
+import hello.springdb2.config.MyBatisConfig;
+import hello.springdb2.config.QuerydslConfig;
+import hello.springdb2.config.SpringDataJpaConfig;
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.SearchMode;
+import hello.springdb2.repository.memory.MemoryItemRepository;
+
+/**
+ * ItemRepository 구현체 전체 비교 (H2 메모리 DB)
+ *
+ * - impl: 부팅할 설정 (MemoryConfig, JdbcTemplateV1~V3Config, MyBatisConfig, JpaConfig, SpringDataJpaConfig, QuerydslConfig)
+ * - tableSize: 측정 전에 채워 두는 행 수
+ * - 상품명 검색은 포함(findAllByName) / 시작(findAllByNamePrefix) / 일치(findAllByNameExact)를 나눠 측정
+ * - 처리량(Throughput)과 지연 분포(SampleTime: p50, p90, p99 ...)를 함께 측정
+ * - 할당량은 build.gradle의 jmh { profilers = ['gc'] } 로 수집 (gc.alloc.rate.norm = 연산당 할당 바이트)
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=ItemRepositoryBenchmark
+ *
+ * 주의
+ * - 캐시 데코레이터(item.cache.enabled)는 끄고 구현체 자체를 측정한다
+ * - save는 측정 중 계속 행을 추가하므로 반복이 길어질수록 테이블이 커진다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemRepositoryBenchmark {
+
+	@Param({"memory", "jdbcV1", "jdbcV2", "jdbcV3", "mybatis", "jpaV1", "jpaV2", "jpaV3"})
+	String impl;
+
+	@Param({"1000", "100000"})
+	int tableSize;
+
+	private static final ItemSearchCond NO_COND = new ItemSearchCond();
+	private static final ItemSearchCond NAME_COND = new ItemSearchCond("item-42", null);
+	private static final ItemSearchCond PRICE_COND = new ItemSearchCond(null, 1000);
+	private static final ItemSearchCond NAME_AND_PRICE_COND = new ItemSearchCond("item-42", 50000);
+	private static final ItemSearchCond NAME_PREFIX_COND = new ItemSearchCond("item-42", null, SearchMode.PREFIX);
+	private static final ItemSearchCond NAME_EXACT_COND = new ItemSearchCond("item-42", null, SearchMode.EXACT);
+
+	private ConfigurableApplicationContext context;
+	private ItemRepository itemRepository;
+	private long[] ids;
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration
+	@Import(ItemCacheConfig.class)
+	static class BenchmarkApplication {
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(BenchmarkApplication.class, configFor(impl))
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=jdbc:h2:mem:bench-" + impl + ";DB_CLOSE_DELAY=-1",
+						"--spring.profiles.active=bench",
+						"--item.cache.enabled=false",
+						"--spring.jpa.show-sql=false",
+						"--logging.level.root=warn",
+						"--logging.level.org.springframework.jdbc=warn",
+						"--logging.level.org.hibernate.SQL=warn",
+						"--logging.level.org.hibernate.type=warn",
+						"--logging.level.hello.springdb2.repository.mybatis=warn");
+		itemRepository = context.getBean(ItemRepository.class);
+
+		List<Item> items = new ArrayList<>(tableSize);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < tableSize; i++) {
+			items.add(new Item("item-" + i, random.nextInt(1, 100_001), random.nextInt(1, 1000)));
+		}
+		List<Item> saved = itemRepository.saveAll(items);
+		ids = saved.stream().mapToLong(Item::getId).toArray();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (itemRepository instanceof MemoryItemRepository memoryItemRepository) {
+			memoryItemRepository.clearStore();
+		}
+		context.close();
+	}
+
+	private static Class<?> configFor(String impl) {
+		return switch (impl) {
+			case "memory" -> MemoryConfig.class;
+			case "jdbcV1" -> JdbcTemplateV1Config.class;
+			case "jdbcV2" -> JdbcTemplateV2Config.class;
+			case "jdbcV3" -> JdbcTemplateV3Config.class;
+			case "mybatis" -> MyBatisConfig.class;
+			case "jpaV1" -> JpaConfig.class;
+			case "jpaV2" -> SpringDataJpaConfig.class;
+			case "jpaV3" -> QuerydslConfig.class;
+			default -> throw new IllegalArgumentException("알 수 없는 구현체: " + impl);
+		};
+	}
+
+	private long randomId() {
+		return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+	}
+
+	@Benchmark
+	public Item save() {
+		return itemRepository.save(new Item("saved", 10000, 10));
+	}
+
+	@Benchmark
+	public Object findById() {
+		return itemRepository.findById(randomId());
+	}
+
+	@Benchmark
+	public List<Item> findAllNoCond() {
+		return itemRepository.findAll(NO_COND);
+	}
+
+	@Benchmark
+	public List<Item> findAllByName() {
+		return itemRepository.findAll(NAME_COND);
+	}
+
+	@Benchmark
+	public List<Item> findAllByMaxPrice() {
+		return itemRepository.findAll(PRICE_COND);
+	}
+
+	@Benchmark
+	public List<Item> findAllByNameAndMaxPrice() {
+		return itemRepository.findAll(NAME_AND_PRICE_COND);
+	}
+
+	/**
+	 * 자동완성 (item_name 인덱스 범위 스캔) - findAllByName(포함 검색, 전체 스캔)과 비교
+	 */
+	@Benchmark
+	public List<Item> findAllByNamePrefix() {
+		return itemRepository.findAll(NAME_PREFIX_COND);
+	}
+
+	@Benchmark
+	public List<Item> findAllByNameExact() {
+		return itemRepository.findAll(NAME_EXACT_COND);
+	}
+
+	@Benchmark
+	public void update() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		itemRepository.update(randomId(), new ItemUpdateDto("updated", random.nextInt(1, 100_001), 10));
+	}
+
+	/**
+	 * 인기 상품 재고 차감: 8개 스레드가 같은 행(ids[0])에 동시에 몰린다
+	 * - 조건부 UPDATE 한 문장(메모리는 CAS 루프)이라 조회-수정 사이의 경합이 없다
+	 * - 재고가 바닥나면 다시 채워서 측정 내내 차감이 계속되도록 한다
+	 */
+	@Benchmark
+	@Threads(8)
+	public boolean decrementHotItem() {
+		if (itemRepository.decrementQuantity(ids[0], 1)) {
+			return true;
+		}
+		return itemRepository.incrementQuantity(ids[0], 1_000_000);
+	}
+
+	/**
+	 * delete: 매 호출 전에 지울 행을 하나 넣어 둔다 (삽입 시간은 측정에서 제외)
+	 */
+	@State(Scope.Thread)
+	public static class DeleteTarget {
+
+		Long id;
+
+		@Setup(Level.Invocation)
+		public void insert(ItemRepositoryBenchmark benchmark) {
+			id = benchmark.itemRepository.save(new Item("deleted", 10000, 10)).getId();
+		}
+	}
+
+	@Benchmark
+	public void delete(DeleteTarget target) {
+		itemRepository.delete(target.id);
+	}
+}
@@ -0,0 +1,101 @@
+package hello.springdb2.repository.jdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.Driver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemSearchCond;
+
+/**
+ * 대량 조회 시 RowMapper 비용 비교 (H2 메모리 DB)
+ *
+ * - v1LabelMapper: JdbcTemplateItemRepositoryV1 (람다 RowMapper, 컬럼 이름으로 읽기)
+ * - beanPropertyRowMapper: V2/V3의 이전 방식 (조회마다 BeanPropertyRowMapper.newInstance)
+ * - v2IndexMapper / v3IndexMapper: ItemRowMapper.INSTANCE (컬럼 인덱스로 읽기)
+ *
+ * 모두 같은 "select id, item_name, price, quantity, version from item"을 실행하므로
+ * 차이는 행 매핑 비용이다 (rowCount가 클수록 차이가 드러난다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemRowMapperBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	int rowCount;
+
+	private final ItemSearchCond cond = new ItemSearchCond();
+
+	private SimpleDriverDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private JdbcTemplateItemRepositoryV1 repositoryV1;
+	private JdbcTemplateItemRepositoryV2 repositoryV2;
+	private JdbcTemplateItemRepositoryV3 repositoryV3;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		dataSource = new SimpleDriverDataSource(new Driver(), "jdbc:h2:mem:rowmapper;DB_CLOSE_DELAY=-1", "sa", "");
+		new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		repositoryV1 = new JdbcTemplateItemRepositoryV1(dataSource);
+		repositoryV2 = new JdbcTemplateItemRepositoryV2(dataSource);
+		repositoryV3 = new JdbcTemplateItemRepositoryV3(dataSource);
+
+		List<Item> items = new ArrayList<>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			items.add(new Item("item" + i, 1000 + i % 100_000, i % 100));
+		}
+		repositoryV1.saveAll(items);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		jdbcTemplate.execute("drop table if exists item");
+	}
+
+	@Benchmark
+	public List<Item> v1LabelMapper() {
+		return repositoryV1.findAll(cond);
+	}
+
+	@Benchmark
+	public List<Item> beanPropertyRowMapper() {
+		return jdbcTemplate.query("select " + ItemRowMapper.COLUMNS + " from item",
+				BeanPropertyRowMapper.newInstance(Item.class));
+	}
+
+	@Benchmark
+	public List<Item> v2IndexMapper() {
+		return repositoryV2.findAll(cond);
+	}
+
+	@Benchmark
+	public List<Item> v3IndexMapper() {
+		return repositoryV3.findAll(cond);
+	}
+}
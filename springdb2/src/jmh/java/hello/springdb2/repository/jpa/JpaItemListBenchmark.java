@@ -0,0 +1,116 @@
+package hello.springdb2.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hello.springdb2.config.ItemCacheConfig;
+import hello.springdb2.config.QuerydslConfig;
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+
+/**
+ * 상품 목록 조회 방식 비교 (JpaItemRepositoryV3, H2 메모리 DB, 한 번에 rows 건)
+ *
+ * - ENTITY: 쓰기 트랜잭션의 findPage -> 관리되는 엔티티 + 변경 감지 스냅샷, 커밋 시 dirty checking
+ * - ENTITY_READ_ONLY: 읽기 전용 트랜잭션의 findPage -> 엔티티는 만들지만 스냅샷, flush 없음 (ReadOnlyQueries)
+ * - PROJECTION: 읽기 전용 트랜잭션의 findListPage -> ItemListRow만 만든다 (영속성 컨텍스트를 거치지 않음)
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=JpaItemListBenchmark
+ * - 지연: AverageTime / SampleTime(p99 등 백분위)
+ * - 할당량: gc 프로파일러의 gc.alloc.rate.norm (연산당 바이트)
+ *
+ * 주의: 캐시 데코레이터(item.cache.enabled)는 끄고 구현체 자체를 측정한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class JpaItemListBenchmark {
+
+	@Param({"ENTITY", "ENTITY_READ_ONLY", "PROJECTION"})
+	String mode;
+
+	@Param({"100000"})
+	int rows;
+
+	private ConfigurableApplicationContext context;
+	private ItemRepository itemRepository;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+	private final ItemSearchCond cond = new ItemSearchCond();
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration
+	@Import({QuerydslConfig.class, ItemCacheConfig.class})
+	static class BenchmarkApplication {
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(BenchmarkApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=jdbc:h2:mem:bench-jpa-list;DB_CLOSE_DELAY=-1",
+						"--spring.profiles.active=bench",
+						"--item.cache.enabled=false",
+						"--spring.jpa.show-sql=false",
+						"--logging.level.root=warn",
+						"--logging.level.org.hibernate.SQL=warn");
+		itemRepository = context.getBean(ItemRepository.class);
+
+		PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		List<Item> items = new ArrayList<>(rows);
+		for (int i = 0; i < rows; i++) {
+			items.add(new Item("item-" + i, 10000 + i % 1000, 10));
+		}
+		itemRepository.saveAll(items);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public void list(Blackhole blackhole) {
+		switch (mode) {
+			case "ENTITY" -> readWrite.executeWithoutResult(
+					status -> blackhole.consume(itemRepository.findPage(cond, null, rows)));
+			case "ENTITY_READ_ONLY" -> readOnly.executeWithoutResult(
+					status -> blackhole.consume(itemRepository.findPage(cond, null, rows)));
+			case "PROJECTION" -> readOnly.executeWithoutResult(
+					status -> blackhole.consume(itemRepository.findListPage(cond, null, rows)));
+			default -> throw new IllegalArgumentException(mode);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package hello.springdb2.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+import hello.springdb2.config.ItemCacheConfig;
+import hello.springdb2.config.SpringDataJpaConfig;
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemUpdateDto;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * JpaItemRepositoryV2.update() 방식 비교 (H2 메모리 DB)
+ *
+ * - strategy: DIRTY_CHECKING(SELECT + 변경 감지 UPDATE) / BULK(JPQL 벌크 UPDATE 한 문장)
+ * - statements: Hibernate 통계의 prepareStatementCount 증가분 (보조 카운터)
+ *   -> statements 처리량 / 기본 처리량 = 연산당 실행한 SQL 수 (DIRTY_CHECKING 2, BULK 1)
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=JpaItemUpdateBenchmark
+ *
+ * 주의
+ * - 캐시 데코레이터(item.cache.enabled)는 끄고 구현체 자체를 측정한다
+ * - 매번 값을 바꿔 수정한다 (같은 값이면 변경 감지가 UPDATE를 생략해 DIRTY_CHECKING이 유리해진다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JpaItemUpdateBenchmark {
+
+	@Param({"DIRTY_CHECKING", "BULK"})
+	String strategy;
+
+	@Param({"10000"})
+	int tableSize;
+
+	private ConfigurableApplicationContext context;
+	private ItemRepository itemRepository;
+	private Statistics statistics;
+	private long[] ids;
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration
+	@Import({SpringDataJpaConfig.class, ItemCacheConfig.class})
+	static class BenchmarkApplication {
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(BenchmarkApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=jdbc:h2:mem:bench-jpa-update;DB_CLOSE_DELAY=-1",
+						"--spring.profiles.active=bench",
+						"--item.cache.enabled=false",
+						"--item.jpa.update-strategy=" + strategy,
+						"--spring.jpa.show-sql=false",
+						"--spring.jpa.properties.hibernate.generate_statistics=true",
+						"--logging.level.root=warn",
+						"--logging.level.org.hibernate.SQL=warn",
+						"--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn");
+		itemRepository = context.getBean(ItemRepository.class);
+		statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+		List<Item> items = new ArrayList<>(tableSize);
+		for (int i = 0; i < tableSize; i++) {
+			items.add(new Item("item-" + i, 10000, 10));
+		}
+		ids = itemRepository.saveAll(items).stream().mapToLong(Item::getId).toArray();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class StatementCounter {
+
+		public long statements;
+	}
+
+	@Benchmark
+	public void update(StatementCounter counter) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long before = statistics.getPrepareStatementCount();
+		itemRepository.update(ids[random.nextInt(ids.length)],
+				new ItemUpdateDto("updated", random.nextInt(1, 100_001), random.nextInt(1, 1000)));
+		counter.statements += statistics.getPrepareStatementCount() - before;
+	}
+}
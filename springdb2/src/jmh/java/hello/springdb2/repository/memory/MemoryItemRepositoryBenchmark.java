@@ -0,0 +1,105 @@
+package hello.springdb2.repository.memory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ObjectUtils;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemSearchCond;
+
+/**
+ * 상품명 부분 문자열 검색: 3-gram 색인 vs 기존 스트림 필터
+ *
+ * - trigramIndex: MemoryItemRepository.findAll() (posting list 교집합 + contains 검증)
+ * - streamFilter: 색인 도입 전 구현과 같은 방식 (전체 values()를 돌며 contains)
+ * - queryLength: 검색어 길이 (길수록 gram이 많아져 후보가 줄어든다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryItemRepositoryBenchmark {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+	@Param({"10000", "100000", "1000000"})
+	int itemCount;
+
+	@Param({"3", "5"})
+	int queryLength;
+
+	private final MemoryItemRepository repository = new MemoryItemRepository();
+	private final Map<Long, Item> baselineStore = new ConcurrentHashMap<>();
+	private ItemSearchCond cond;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		repository.clearStore();
+		Random random = new Random(42);
+		String sampleName = null;
+		for (int i = 0; i < itemCount; i++) {
+			Item item = repository.save(new Item(randomName(random, 10), random.nextInt(100_000), 10));
+			baselineStore.put(item.getId(), item);
+			if (i == itemCount / 2) {
+				sampleName = item.getItemName();
+			}
+		}
+		cond = new ItemSearchCond(sampleName.substring(2, 2 + queryLength), null);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		repository.clearStore();
+		baselineStore.clear();
+	}
+
+	@Benchmark
+	public List<Item> trigramIndex() {
+		return repository.findAll(cond);
+	}
+
+	@Benchmark
+	public List<Item> streamFilter() {
+		String itemName = cond.getItemName();
+		Integer maxPrice = cond.getMaxPrice();
+		return baselineStore.values().stream().filter(item -> {
+			if (ObjectUtils.isEmpty(itemName)) {
+				return true;
+			}
+			return item.getItemName().contains(itemName);
+		}).filter(item -> {
+			if (maxPrice == null) {
+				return true;
+			}
+			return item.getPrice() <= maxPrice;
+		}).collect(Collectors.toList());
+	}
+
+	private static String randomName(Random random, int length) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,305 @@
+package hello.springdb2.web;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import hello.springdb2.Springdb2Application;
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+
+/**
+ * ItemController 부하 테스트 (플랫폼 스레드 vs 가상 스레드)
+ *
+ * - 같은 애플리케이션을 spring.threads.virtual.enabled=false / true 로 한 번씩 띄워 비교한다
+ * - DB 지연: 모든 SQL 실행 앞에 db-latency 만큼 sleep (커넥션을 잡은 채로 기다림 -> 네트워크/DB 응답 시간 흉내)
+ * - 동시 사용자(concurrency)마다 가상 스레드 하나가 duration 동안 쉬지 않고 요청 (닫힌 부하 모델)
+ *   - GET /items?itemName=item-1 (목록, 키셋 페이징)
+ *   - GET /items/{id} (상세)
+ * - 결과: 처리량(req/s), p50 / p99 / max 지연, 실패 수(2xx 이외 + 예외)
+ *
+ * 실행
+ *  ./gradlew loadTest
+ *  ./gradlew loadTest -PloadTestArgs="concurrency=50,200,1000 db-latency=20ms duration=20s warmup=5s"
+ *
+ * 주의
+ * - 캐시(item.cache / item.query-cache)는 끄고 DB 왕복을 측정한다
+ * - 클라이언트와 서버가 같은 JVM에서 돌기 때문에 절대값보다 두 모드의 상대 비교로 본다
+ */
+public class ItemControllerLoadTest {
+
+	private static final String[] PATHS_TEMPLATE = {"/items?itemName=item-1&size=20", "/items/%d"};
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parseArgs(args);
+		int[] concurrencyLevels = Arrays.stream(options.getOrDefault("concurrency", "50,200,1000").split(","))
+				.mapToInt(level -> Integer.parseInt(level.trim()))
+				.toArray();
+		Duration dbLatency = parseDuration(options.getOrDefault("db-latency", "20ms"));
+		Duration duration = parseDuration(options.getOrDefault("duration", "20s"));
+		Duration warmup = parseDuration(options.getOrDefault("warmup", "5s"));
+		int poolSize = Integer.parseInt(options.getOrDefault("pool-size", "10"));
+		int tableSize = Integer.parseInt(options.getOrDefault("table-size", "10000"));
+
+		System.out.printf("db-latency=%s, duration=%s, warmup=%s, pool-size=%d, table-size=%d%n",
+				dbLatency, duration, warmup, poolSize, tableSize);
+		System.out.printf("%-9s %11s %12s %9s %9s %9s %8s%n",
+				"mode", "concurrency", "req/s", "p50(ms)", "p99(ms)", "max(ms)", "errors");
+
+		for (boolean virtual : new boolean[] {false, true}) {
+			try (ConfigurableApplicationContext context = start(virtual, dbLatency, poolSize)) {
+				long[] ids = seed(context.getBean(ItemRepository.class), tableSize);
+				int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+				for (int concurrency : concurrencyLevels) {
+					run(port, ids, concurrency, warmup);
+					Result result = run(port, ids, concurrency, duration);
+					System.out.printf("%-9s %11d %12.1f %9.2f %9.2f %9.2f %8d%n",
+							virtual ? "virtual" : "platform", concurrency, result.throughput(),
+							result.percentileMillis(0.50), result.percentileMillis(0.99),
+							result.percentileMillis(1.0), result.errors());
+				}
+			}
+		}
+	}
+
+	private static ConfigurableApplicationContext start(boolean virtual, Duration dbLatency, int poolSize) {
+		return new SpringApplicationBuilder(Springdb2Application.class)
+				.initializers(context -> context.getBeanFactory()
+						.addBeanPostProcessor(new LatencyDataSourcePostProcessor(dbLatency)))
+				.run("--server.port=0",
+						"--spring.threads.virtual.enabled=" + virtual,
+						"--spring.datasource.url=jdbc:h2:mem:load-" + virtual + ";DB_CLOSE_DELAY=-1",
+						"--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+						"--spring.profiles.active=loadtest",
+						"--item.cache.enabled=false",
+						"--item.query-cache.max-size=0",
+						"--item.fulltext.enabled=false",
+						"--spring.jpa.show-sql=false",
+						"--logging.level.root=warn",
+						"--logging.level.org.springframework.jdbc=warn",
+						"--logging.level.org.hibernate.SQL=warn",
+						"--logging.level.org.hibernate.type=warn",
+						"--logging.level.hello.springdb2.repository.mybatis=warn");
+	}
+
+	private static long[] seed(ItemRepository itemRepository, int tableSize) {
+		List<Item> items = new ArrayList<>(tableSize);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < tableSize; i++) {
+			items.add(new Item("item-" + i, random.nextInt(1, 100_001), random.nextInt(1, 1000)));
+		}
+		return itemRepository.saveAll(items).stream().mapToLong(Item::getId).toArray();
+	}
+
+	private static Result run(int port, long[] ids, int concurrency, Duration duration) throws Exception {
+		List<Future<Recorder>> futures = new ArrayList<>(concurrency);
+		long started = System.nanoTime();
+		long deadline = started + duration.toNanos();
+		try (HttpClient client = HttpClient.newBuilder()
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+				ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < concurrency; i++) {
+				futures.add(users.submit(() -> user(client, port, ids, deadline)));
+			}
+		}
+		long elapsed = System.nanoTime() - started;
+
+		Recorder total = new Recorder();
+		for (Future<Recorder> future : futures) {
+			total.addAll(future.get());
+		}
+		return total.toResult(elapsed);
+	}
+
+	private static Recorder user(HttpClient client, int port, long[] ids, long deadline) {
+		Recorder recorder = new Recorder();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (System.nanoTime() < deadline) {
+			String path = PATHS_TEMPLATE[random.nextInt(PATHS_TEMPLATE.length)]
+					.formatted(ids[random.nextInt(ids.length)]);
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+					.timeout(Duration.ofSeconds(60))
+					.GET()
+					.build();
+			long start = System.nanoTime();
+			try {
+				HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+				recorder.record(System.nanoTime() - start, response.statusCode() / 100 == 2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (Exception e) {
+				recorder.record(System.nanoTime() - start, false);
+			}
+		}
+		return recorder;
+	}
+
+	/**
+	 * 사용자(스레드)별 지연 기록 -> 측정이 끝난 뒤 합쳐서 정렬
+	 */
+	private static class Recorder {
+
+		private long[] latencies = new long[1024];
+		private int count;
+		private int errors;
+
+		void record(long latencyNanos, boolean success) {
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = latencyNanos;
+			if (!success) {
+				errors++;
+			}
+		}
+
+		void addAll(Recorder other) {
+			for (int i = 0; i < other.count; i++) {
+				record(other.latencies[i], true);
+			}
+			errors += other.errors;
+		}
+
+		Result toResult(long elapsedNanos) {
+			long[] sorted = Arrays.copyOf(latencies, count);
+			Arrays.sort(sorted);
+			return new Result(sorted, errors, elapsedNanos);
+		}
+	}
+
+	private record Result(long[] sortedLatencies, int errors, long elapsedNanos) {
+
+		double throughput() {
+			return sortedLatencies.length / (elapsedNanos / 1_000_000_000.0);
+		}
+
+		double percentileMillis(double percentile) {
+			if (sortedLatencies.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+			return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+		}
+	}
+
+	/**
+	 * DataSource 빈을 SQL 실행마다 지연을 넣는 DataSource로 감싼다
+	 */
+	private static class LatencyDataSourcePostProcessor implements BeanPostProcessor {
+
+		private final Duration latency;
+
+		LatencyDataSourcePostProcessor(Duration latency) {
+			this.latency = latency;
+		}
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			if (bean instanceof DataSource dataSource && !latency.isZero()) {
+				return new LatencyDataSource(dataSource, latency);
+			}
+			return bean;
+		}
+	}
+
+	private static class LatencyDataSource extends DelegatingDataSource {
+
+		private final Duration latency;
+
+		LatencyDataSource(DataSource target, Duration latency) {
+			super(target);
+			this.latency = latency;
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return (Connection) wrap(super.getConnection(), Connection.class);
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return (Connection) wrap(super.getConnection(username, password), Connection.class);
+		}
+
+		/**
+		 * Connection이 만든 Statement도 감싸고, Statement의 execute* 호출 앞에서 sleep
+		 */
+		private Object wrap(Object target, Class<?> type) {
+			InvocationHandler handler = (proxy, method, args) -> {
+				if (target instanceof Statement && method.getName().startsWith("execute")) {
+					sleep();
+				}
+				Object result = invoke(target, method, args);
+				if (result instanceof Statement statement && !(target instanceof Statement)) {
+					return wrap(statement, method.getReturnType());
+				}
+				return result;
+			};
+			return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+		}
+
+		private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+
+		private void sleep() throws InterruptedException {
+			TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+		}
+	}
+
+	private static Map<String, String> parseArgs(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				throw new IllegalArgumentException("key=value 형식이 아닙니다: " + arg);
+			}
+			options.put(arg.substring(0, separator).replaceFirst("^--", ""), arg.substring(separator + 1));
+		}
+		return options;
+	}
+
+	private static Duration parseDuration(String value) {
+		if (value.endsWith("ms")) {
+			return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+		}
+		if (value.endsWith("s")) {
+			return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+		}
+		return Duration.ofMillis(Long.parseLong(value));
+	}
+}
@@ -0,0 +1,61 @@
+package hello.springdb2.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.cache.CachingItemRepository;
+import hello.springdb2.repository.cache.ItemQueryCache;
+
+/**
+ * ItemRepository 캐시 설정
+ * 
+ * 1. ItemQueryCache (검색 결과 캐시)
+ *  - ItemServiceV1 / ItemServiceV2의 findItems, findItemListPage(상품 목록 화면)가 사용한다
+ *  - item.query-cache.max-size=0 이면 사용하지 않는다
+ * 
+ * 2. CachingItemRepository (findById 캐시)
+ *  - item.cache.enabled=true 일 때만 등록된다
+ *  - 어떤 설정(JdbcTemplateV3Config, MyBatisConfig, V2Config ...)을 @Import 하든
+ *    등록된 ItemRepository 빈을 CachingItemRepository로 감싼다
+ *  - ItemRepository를 통한 쓰기는 ItemQueryCache도 함께 무효화한다
+ * 
+ * BeanPostProcessor를 쓰는 이유
+ *  - 각 Config의 itemRepository() 메서드를 고치지 않고 데코레이터를 끼워 넣을 수 있다
+ *  - Ordered를 구현하지 않은 BeanPostProcessor는 트랜잭션 프록시 생성 이후에 실행된다
+ *    -> 트랜잭션 프록시를 감싸므로 delegate 호출은 여전히 트랜잭션 안에서 실행된다
+ *  - static 메서드로 등록해야 설정 클래스보다 먼저 생성된다
+ */
+@Configuration
+public class ItemCacheConfig {
+
+	@Bean
+	ItemQueryCache itemQueryCache(
+			@Value("${item.query-cache.max-size:1000}") int maxSize,
+			@Value("${item.query-cache.ttl:1m}") Duration ttl) {
+		return new ItemQueryCache(maxSize, ttl);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "item.cache.enabled", havingValue = "true")
+	static BeanPostProcessor cachingItemRepositoryPostProcessor(
+			ObjectProvider<ItemQueryCache> itemQueryCache,
+			@Value("${item.cache.max-size:10000}") int maxSize,
+			@Value("${item.cache.ttl:10m}") Duration ttl) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof ItemRepository itemRepository && !(bean instanceof CachingItemRepository)) {
+					return new CachingItemRepository(itemRepository, itemQueryCache.getObject(), maxSize, ttl);
+				}
+				return bean;
+			}
+		};
+	}
+}
@@ -0,0 +1,32 @@
+package hello.springdb2.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.cache.ItemQueryCache;
+import hello.springdb2.service.ItemImportService;
+
+/**
+ * CSV 가져오기 설정
+ * - 어떤 ItemRepository 설정을 @Import 하든 그 빈의 saveAll()로 저장한다
+ * - item.import.chunk-size: 묶음(트랜잭션) 하나의 행 수
+ * - item.import.workers: 파싱/저장 작업 스레드 수
+ * - item.import.max-in-flight-chunks: 동시에 메모리에 올라와 있을 수 있는 묶음 수
+ */
+@Configuration
+public class ItemImportConfig {
+
+	@Bean
+	ItemImportService itemImportService(ItemRepository itemRepository,
+			PlatformTransactionManager transactionManager,
+			ItemQueryCache itemQueryCache,
+			@Value("${item.import.chunk-size:1000}") int chunkSize,
+			@Value("${item.import.workers:4}") int workers,
+			@Value("${item.import.max-in-flight-chunks:8}") int maxInFlightChunks) {
+		return new ItemImportService(itemRepository, transactionManager, itemQueryCache,
+				chunkSize, workers, maxInFlightChunks);
+	}
+}
@@ -0,0 +1,33 @@
+package hello.springdb2.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import hello.springdb2.repository.fulltext.ItemFullTextRepository;
+import hello.springdb2.service.ItemSearchService;
+
+/**
+ * 상품명 전문 검색 설정 (H2 FullTextLucene)
+ * - item.fulltext.enabled=false 이면 등록하지 않는다 (Lucene 라이브러리가 없는 환경)
+ * - @DependsOnDatabaseInitialization: schema.sql이 item 테이블을 다시 만든 뒤에 색인을 맞춘다
+ * - initMethod: 애플리케이션이 요청을 받기 전(TestDataInit 보다 먼저) 색인 동기화
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.fulltext.enabled", havingValue = "true", matchIfMissing = true)
+public class ItemSearchConfig {
+
+	@Bean(initMethod = "initialize")
+	@DependsOnDatabaseInitialization
+	ItemFullTextRepository itemFullTextRepository(DataSource dataSource) {
+		return new ItemFullTextRepository(dataSource);
+	}
+
+	@Bean
+	ItemSearchService itemSearchService(ItemFullTextRepository itemFullTextRepository) {
+		return new ItemSearchService(itemFullTextRepository);
+	}
+}
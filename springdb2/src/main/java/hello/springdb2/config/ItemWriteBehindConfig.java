@@ -0,0 +1,38 @@
+package hello.springdb2.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.service.ItemQuantityWriteBehind;
+
+/**
+ * 인기 상품 재고 지연 쓰기 설정 (item.write-behind.enabled=true 일 때만 등록)
+ * - 어떤 ItemRepository 설정을 @Import 하든 그 빈의 incrementQuantity / decrementQuantity로 반영한다
+ * - item.write-behind.flush-interval: 누적 변화량을 DB에 반영하는 주기 (조회 결과가 늦을 수 있는 최대 시간)
+ * - item.write-behind.detection-window / hot-threshold: 이 시간 동안 이 횟수 이상 호출된 상품이 핫 상품
+ * - item.write-behind.max-hot-items: 동시에 핫 상품으로 둘 최대 개수
+ * - item.write-behind.flush-batch-size: 트랜잭션 하나로 반영할 상품 수
+ * - destroyMethod = "close": 컨텍스트 종료 시(ItemRepository, 트랜잭션 매니저보다 먼저) 남은 변화량을 반영한다
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.write-behind.enabled", havingValue = "true")
+public class ItemWriteBehindConfig {
+
+	@Bean(initMethod = "start", destroyMethod = "close")
+	ItemQuantityWriteBehind itemQuantityWriteBehind(ItemRepository itemRepository,
+			PlatformTransactionManager transactionManager,
+			@Value("${item.write-behind.flush-interval:200ms}") Duration flushInterval,
+			@Value("${item.write-behind.detection-window:1s}") Duration detectionWindow,
+			@Value("${item.write-behind.hot-threshold:50}") int hotThreshold,
+			@Value("${item.write-behind.max-hot-items:100}") int maxHotItems,
+			@Value("${item.write-behind.flush-batch-size:100}") int flushBatchSize) {
+		return new ItemQuantityWriteBehind(itemRepository, transactionManager,
+				flushInterval, detectionWindow, hotThreshold, maxHotItems, flushBatchSize);
+	}
+}
@@ -0,0 +1,96 @@
+package hello.springdb2.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import hello.springdb2.repository.jpa.ItemSecondLevelCache;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate 2차 캐시 설정 (item.jpa.cache.enabled=true 일 때만 등록)
+ *
+ * - 제공자: JCache(javax.cache) + Caffeine (애플리케이션 메모리 안의 로컬 캐시)
+ * - 캐시 매니저는 이 컨텍스트(EntityManagerFactory) 전용으로 만들고 컨텍스트 종료 시 닫는다 (itemSecondLevelCacheManager)
+ * - 영역(region)은 여기서 크기 / 만료 시간을 정해 직접 만든다 (missing_cache_strategy=fail: 빠진 영역이 있으면 시작 실패)
+ *   - item: Item 엔티티 (item.jpa.cache.item.*)
+ *   - item-query: Querydsl 목록 조회 결과 (item.jpa.cache.query.*)
+ *   - default-update-timestamps-region: 테이블별 마지막 수정 시각 (조회 결과가 낡았는지 판단)
+ *     -> 항목이 빠지면 낡은 조회 결과를 쓸 수 있으므로 크기 / 만료 제한을 두지 않는다 (테이블 수만큼만 쌓인다)
+ *   - default-query-results-region: 영역을 지정하지 않은 조회 결과 (지금은 사용하지 않음)
+ * - hibernate.generate_statistics=true: 영역별 통계 (ItemSecondLevelCache.getStats)
+ * - JdbcTemplate / MyBatis로 item 테이블을 직접 수정하면 ItemSecondLevelCache로 영역을 비워야 한다
+ * - JPQL 벌크 UPDATE는 item 영역 전체를 비운다 -> JPA 리포지토리의 재고 차감 / 벌크 수정은 네이티브 SQL로 실행하고
+ *   바꾼 상품 한 건만 비운다 (ItemQuantityUpdates, ItemSecondLevelCache)
+ * - CachingItemRepository(ItemCacheConfig)는 구현 기술과 무관한 ItemRepository 바깥 캐시, 2차 캐시는 JPA 안쪽 캐시
+ *   -> 둘 다 켜면 CachingItemRepository 미적중만 2차 캐시까지 내려오고, ItemQueryRepositoryV2 단건 조회도 2차 캐시를 쓴다
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.jpa.cache.enabled", havingValue = "true")
+public class JpaSecondLevelCacheConfig {
+
+	/**
+	 * 이 컨텍스트 전용 캐시 매니저
+	 * - 기본 캐시 매니저(getCacheManager())는 JVM(클래스 로더)마다 하나라, 테스트처럼 컨텍스트가 여러 개 뜨면 영역을 공유한다
+	 *   -> 다른 DB(H2 URL)를 보는 컨텍스트가 서로의 엔티티를 읽고, 나중 컨텍스트의 max-size / ttl은 무시된다
+	 * - 그래서 컨텍스트마다 고유 URI로 따로 만든다 -> 영역은 항상 새로 만든다
+	 * - destroyMethod = "close": EntityManagerFactory가 먼저 닫힌 뒤 닫힌다 (customizer를 통해 의존)
+	 */
+	@Bean(destroyMethod = "close")
+	CacheManager itemSecondLevelCacheManager(
+			@Value("${item.jpa.cache.item.max-size:10000}") long itemMaxSize,
+			@Value("${item.jpa.cache.item.ttl:10m}") Duration itemTtl,
+			@Value("${item.jpa.cache.query.max-size:1000}") long queryMaxSize,
+			@Value("${item.jpa.cache.query.ttl:1m}") Duration queryTtl) {
+		CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+				.getCacheManager(URI.create("urn:springdb2:item-l2:" + UUID.randomUUID()),
+						JpaSecondLevelCacheConfig.class.getClassLoader());
+		cacheManager.createCache(ItemSecondLevelCache.ITEM_REGION, bounded(itemMaxSize, itemTtl));
+		cacheManager.createCache(ItemSecondLevelCache.QUERY_REGION, bounded(queryMaxSize, queryTtl));
+		cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+				bounded(queryMaxSize, queryTtl));
+		cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+				new CaffeineConfiguration<>());
+		return cacheManager;
+	}
+
+	@Bean
+	HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager itemSecondLevelCacheManager) {
+		return properties -> {
+			properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+			properties.put(ConfigSettings.CACHE_MANAGER, itemSecondLevelCacheManager);
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+			properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+		};
+	}
+
+	@Bean
+	ItemSecondLevelCache itemSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+		return new ItemSecondLevelCache(entityManagerFactory);
+	}
+
+	private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration ttl) {
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setMaximumSize(OptionalLong.of(maxSize));
+		configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+		return configuration;
+	}
+}
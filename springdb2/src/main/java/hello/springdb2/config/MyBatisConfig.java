@@ -1,28 +1,32 @@
-package hello.springdb2.config;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.mybatis.ItemMapper;
-import hello.springdb2.repository.mybatis.MyBatisItemRepository;
-import hello.springdb2.service.ItemService;
-import hello.springdb2.service.ItemServiceV1;
-import lombok.RequiredArgsConstructor;
-
-@Configuration
-@RequiredArgsConstructor
-public class MyBatisConfig {
-
-	private final ItemMapper itemMapper;
-	
-	@Bean
-	ItemService itemService() {
-		return new ItemServiceV1(itemRepository());
-	}
-	
-	@Bean
-	ItemRepository itemRepository() {
-		return new MyBatisItemRepository(itemMapper);
-	}
-}
+package hello.springdb2.config;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.cache.ItemQueryCache;
+import hello.springdb2.repository.mybatis.ItemMapper;
+import hello.springdb2.repository.mybatis.MyBatisItemRepository;
+import hello.springdb2.service.ItemService;
+import hello.springdb2.service.ItemServiceV1;
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@RequiredArgsConstructor
+public class MyBatisConfig {
+
+	private final ItemMapper itemMapper;
+	private final SqlSessionFactory sqlSessionFactory;
+	private final ItemQueryCache itemQueryCache;
+	
+	@Bean
+	ItemService itemService() {
+		return new ItemServiceV1(itemRepository(), itemQueryCache);
+	}
+	
+	@Bean
+	ItemRepository itemRepository() {
+		return new MyBatisItemRepository(itemMapper, sqlSessionFactory);
+	}
+}
@@ -0,0 +1,92 @@
+package hello.springdb2.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.Assert;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import hello.springdb2.datasource.ReplicaRoutingDataSource;
+
+/**
+ * 읽기 복제본 라우팅 설정 (item.datasource.replica.enabled=true 일 때만 등록)
+ * - 스프링 부트의 DataSource 자동 설정 대신 primary(spring.datasource.*) + 복제본 풀을 직접 만든다
+ * - dataSource(@Primary): LazyConnectionDataSourceProxy
+ *   -> 쓰기 / 트랜잭션 밖 = primary, @Transactional(readOnly = true) = ReplicaRoutingDataSource (정상 복제본 또는 primary)
+ * - item.datasource.replica.urls: 복제본 JDBC URL 목록 (쉼표 구분, 늘릴수록 읽기를 나눠 받는다)
+ *   계정과 풀 크기는 primary와 같게 만든다
+ * - item.datasource.replica.max-lag: 이보다 뒤처진 복제본은 읽기에서 뺀다
+ * - item.datasource.replica.check-interval: 복제 지연 측정 주기
+ * - spring.jpa.open-in-view=false 필요
+ *   -> 켜져 있으면 요청 동안 EntityManager가 처음 얻은 커넥션을 계속 쥐고 있어서
+ *      읽기 전용 트랜잭션 뒤의 쓰기가 복제본 커넥션으로 나갈 수 있다
+ * - 읽기 캐시는 모두 꺼야 한다 (켜져 있으면 시작 실패)
+ *   - item.cache.enabled=false (findById 캐시), item.query-cache.max-size=0 (검색 결과 캐시), item.jpa.cache.enabled=false (2차 캐시)
+ *   -> 캐시의 무효화는 primary에 쓰는 시점에 일어나는데, 아직 따라오지 못한 복제본에서 읽은 옛 값이 그 뒤에 다시 캐시에 올라가면
+ *      복제 지연(max-lag)이 아니라 캐시 ttl(최대 10분) 동안 옛 값을 보여준다
+ *   -> 캐시는 어느 커넥션(복제본 / primary fallback)에서 읽었는지 알 수 없으므로 채우기를 골라 막는 대신 함께 켜지 않는다
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean(initMethod = "start", destroyMethod = "close")
+	ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+			DataSourceProperties properties,
+			@Value("${spring.jpa.open-in-view:true}") boolean openInView,
+			@Value("${item.cache.enabled:false}") boolean itemCacheEnabled,
+			@Value("${item.query-cache.max-size:1000}") int queryCacheMaxSize,
+			@Value("${item.jpa.cache.enabled:false}") boolean jpaCacheEnabled,
+			@Value("${item.datasource.replica.urls}") List<String> urls,
+			@Value("${item.datasource.replica.max-lag:5s}") Duration maxLag,
+			@Value("${item.datasource.replica.check-interval:1s}") Duration checkInterval) {
+		Assert.state(!openInView, "읽기 복제본 라우팅은 spring.jpa.open-in-view=false 에서만 사용할 수 있습니다");
+		Assert.state(!itemCacheEnabled && queryCacheMaxSize == 0 && !jpaCacheEnabled,
+				"읽기 복제본 라우팅은 읽기 캐시를 끈 상태에서만 사용할 수 있습니다 "
+						+ "(item.cache.enabled=false, item.query-cache.max-size=0, item.jpa.cache.enabled=false)");
+
+		List<DataSource> replicas = new ArrayList<>(urls.size());
+		for (int i = 0; i < urls.size(); i++) {
+			HikariDataSource replica = DataSourceBuilder.create()
+					.type(HikariDataSource.class)
+					.driverClassName(properties.determineDriverClassName())
+					.url(urls.get(i))
+					.username(properties.determineUsername())
+					.password(properties.determinePassword())
+					.build();
+			replica.setPoolName("replica-" + i);
+			replica.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+			replica.setReadOnly(true);
+			replicas.add(replica);
+		}
+		return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, checkInterval);
+	}
+
+	@Bean
+	@Primary
+	DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+		LazyConnectionDataSourceProxy dataSource =
+				new LazyConnectionDataSourceProxy(replicaRoutingDataSource.getPrimary());
+		dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+		return dataSource;
+	}
+}
@@ -1,29 +1,41 @@
-package hello.springdb2.config;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.jpa.JpaItemRepositoryV2;
-import hello.springdb2.repository.jpa.SpringDataJpaItemRepository;
-import hello.springdb2.service.ItemService;
-import hello.springdb2.service.ItemServiceV1;
-import lombok.RequiredArgsConstructor;
-
-@Configuration
-@RequiredArgsConstructor
-public class SpringDataJpaConfig {
-
-	private final SpringDataJpaItemRepository springDataJpaItemRepository;
-	
-	@Bean
-	ItemService itemService() {
-		return new ItemServiceV1(itemRepository());
-	}
-	
-	@Bean
-	ItemRepository itemRepository() {
-		return new JpaItemRepositoryV2(springDataJpaItemRepository);
-	}
-	
-}
+package hello.springdb2.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.cache.ItemQueryCache;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV2;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV2.UpdateStrategy;
+import hello.springdb2.repository.jpa.SpringDataJpaItemRepository;
+import hello.springdb2.service.ItemService;
+import hello.springdb2.service.ItemServiceV1;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@RequiredArgsConstructor
+public class SpringDataJpaConfig {
+
+	private final SpringDataJpaItemRepository springDataJpaItemRepository;
+	private final EntityManager entityManager;
+	private final ItemQueryCache itemQueryCache;
+	
+	@Bean
+	ItemService itemService(ItemRepository itemRepository) {
+		return new ItemServiceV1(itemRepository, itemQueryCache);
+	}
+	
+	/**
+	 * item.jpa.update-strategy: DIRTY_CHECKING(기본, 조회 후 변경 감지) / BULK(조회 없이 UPDATE 한 문장)
+	 */
+	@Bean
+	ItemRepository itemRepository(
+			@Value("${item.jpa.update-strategy:DIRTY_CHECKING}") UpdateStrategy updateStrategy) {
+		JpaItemRepositoryV2 itemRepository = new JpaItemRepositoryV2(springDataJpaItemRepository, entityManager);
+		itemRepository.setUpdateStrategy(updateStrategy);
+		return itemRepository;
+	}
+	
+}
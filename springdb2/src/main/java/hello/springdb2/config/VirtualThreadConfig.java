@@ -0,0 +1,43 @@
+package hello.springdb2.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import hello.springdb2.web.ConcurrencyLimitFilter;
+
+/**
+ * 가상 스레드 요청 처리 모드 (spring.threads.virtual.enabled=true)
+ * 
+ * 1. 스레드 모델
+ *  - 톰캣이 요청마다 가상 스레드를 만들고, 컨트롤러 -> 서비스 -> 리포지토리(JDBC 블로킹)까지 같은 가상 스레드에서 실행된다
+ *  - JDBC 응답을 기다리는 동안 가상 스레드는 캐리어 스레드에서 내려오므로 요청 수만큼 OS 스레드가 필요하지 않다
+ *  - false(기본)면 기존처럼 톰캣 플랫폼 스레드 풀(server.tomcat.threads.max=200)에서 실행된다
+ * 
+ * 2. 커넥션 풀과 크기 맞추기
+ *  - 플랫폼 스레드 모드에서는 톰캣 스레드 수가 동시 요청 수의 상한이었지만 가상 스레드 모드에는 상한이 없다
+ *  - 실제 동시 DB 작업은 Hikari 풀 크기(spring.datasource.hikari.maximum-pool-size)를 넘을 수 없으므로
+ *    나머지 요청은 getConnection()에서 줄을 서다 connectionTimeout(30초)에 500으로 실패한다
+ *  - 그래서 /items 요청을 풀 크기만큼만 동시에 실행하고(ConcurrencyLimitFilter), 초과 요청은 필터에서 대기 -> 시간 초과 시 503
+ *  - item.web.virtual.max-concurrency: 동시 실행 수 (기본: Hikari 풀 크기)
+ *  - item.web.virtual.acquire-timeout: 대기 한도
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+	@Bean
+	FilterRegistrationBean<ConcurrencyLimitFilter> itemConcurrencyLimitFilter(
+			@Value("${item.web.virtual.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+			@Value("${item.web.virtual.acquire-timeout:5s}") Duration acquireTimeout) {
+		FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+				new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrency, acquireTimeout));
+		registration.addUrlPatterns("/items", "/items/*");
+		return registration;
+	}
+}
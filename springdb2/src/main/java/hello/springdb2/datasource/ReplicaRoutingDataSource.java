@@ -0,0 +1,179 @@
+package hello.springdb2.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.util.Assert;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ReplicaRoutingDataSource (읽기 복제본 라우팅)
+ *
+ * 1. 연결 방법 (ReplicaDataSourceConfig)
+ *  - LazyConnectionDataSourceProxy(primary) + setReadOnlyDataSource(이 클래스)
+ *  - @Transactional(readOnly = true) -> 트랜잭션 매니저가 커넥션에 setReadOnly(true)
+ *    -> 프록시는 첫 SQL을 실행할 때에야 실제 커넥션을 얻으므로 그 시점에 읽기 전용이면 이 클래스에서 커넥션을 받는다
+ *  - 쓰기 트랜잭션, 트랜잭션 밖의 호출은 그대로 primary
+ *
+ * 2. 복제본 선택
+ *  - 정상(지연이 maxLag 이하) 복제본을 돌아가며 사용 (라운드 로빈) -> 복제본을 늘리면 읽기 처리량이 늘어난다
+ *  - 정상 복제본이 없거나 복제본에서 커넥션을 얻지 못하면 primary로 대신 읽는다 (fallback)
+ *
+ * 3. 복제 지연 측정 (checkInterval 마다, refreshHealth)
+ *  - primary의 replica_heartbeat 행에 현재 시각(ms)을 쓰고, 각 복제본에서 같은 행을 읽어 차이를 지연으로 본다
+ *  - 행이 없거나 읽지 못하면 비정상
+ *  - 측정 단위가 checkInterval 이므로 실제 지연은 최대 maxLag + checkInterval
+ *
+ * 4. 캐시와 함께 쓰지 않는다 (ReplicaDataSourceConfig가 시작 시 검사)
+ *  - 복제본에서 읽은 옛 값이 쓰기 무효화 뒤에 캐시에 올라가면 복제 지연보다 훨씬 긴 캐시 ttl 동안 남는다
+ *
+ * 5. 종료: close()는 측정 스케줄러를 멈추고 AutoCloseable 복제본(HikariDataSource 등)을 닫는다 (primary는 닫지 않는다)
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+	private static final String HEARTBEAT_WRITE = "merge into replica_heartbeat key (id) values (1, ?)";
+	private static final String HEARTBEAT_READ = "select beat_at from replica_heartbeat where id = 1";
+
+	private final DataSource primary;
+	private final List<Replica> replicas;
+	private final JdbcTemplate primaryTemplate;
+	private final long maxLagMillis;
+	private final Duration checkInterval;
+
+	private final AtomicInteger next = new AtomicInteger();
+	private volatile List<Replica> healthyReplicas = List.of();
+	private ScheduledExecutorService scheduler;
+
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration maxLag,
+			Duration checkInterval) {
+		Assert.notEmpty(replicas, "복제본이 하나 이상 있어야 합니다");
+		Assert.isTrue(!checkInterval.isNegative() && !checkInterval.isZero(), "checkInterval은 0보다 커야 합니다");
+		this.primary = primary;
+		this.primaryTemplate = new JdbcTemplate(primary);
+		this.maxLagMillis = maxLag.toMillis();
+		this.checkInterval = checkInterval;
+
+		List<Replica> list = new ArrayList<>(replicas.size());
+		for (int i = 0; i < replicas.size(); i++) {
+			list.add(new Replica("replica-" + i, replicas.get(i)));
+		}
+		this.replicas = List.copyOf(list);
+	}
+
+	/**
+	 * 첫 측정도 checkInterval 뒤에 한다 (schema.sql 실행 전일 수 있으므로) -> 그 전까지 읽기는 primary
+	 */
+	public void start() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(
+				Thread.ofPlatform().name("replica-lag-monitor").daemon().factory());
+		scheduler.scheduleWithFixedDelay(this::refreshHealthQuietly,
+				checkInterval.toNanos(), checkInterval.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	public DataSource getPrimary() {
+		return primary;
+	}
+
+	public int getHealthyReplicaCount() {
+		return healthyReplicas.size();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		List<Replica> candidates = healthyReplicas;
+		for (int attempt = 0; attempt < candidates.size(); attempt++) {
+			Replica replica = candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+			try {
+				return replica.dataSource.getConnection();
+			} catch (SQLException e) {
+				log.warn("복제본 커넥션 실패, 다음 복제본 시도. replica={}", replica.name, e);
+			}
+		}
+		return primary.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return getConnection();
+	}
+
+	/**
+	 * 하트비트를 쓰고 각 복제본의 지연을 측정해 정상 복제본 목록을 교체
+	 */
+	public void refreshHealth() {
+		long now = System.currentTimeMillis();
+		primaryTemplate.update(HEARTBEAT_WRITE, now);
+
+		List<Replica> healthy = new ArrayList<>(replicas.size());
+		for (Replica replica : replicas) {
+			boolean wasHealthy = healthyReplicas.contains(replica);
+			Long lagMillis = lagMillis(replica, now);
+			boolean isHealthy = lagMillis != null && lagMillis <= maxLagMillis;
+			if (isHealthy) {
+				healthy.add(replica);
+			}
+			if (isHealthy != wasHealthy) {
+				log.info("복제본 상태 변경 replica={}, healthy={}, lagMillis={}", replica.name, isHealthy, lagMillis);
+			}
+		}
+		healthyReplicas = List.copyOf(healthy);
+	}
+
+	private Long lagMillis(Replica replica, long now) {
+		try {
+			List<Long> beats = replica.template.queryForList(HEARTBEAT_READ, Long.class);
+			return beats.isEmpty() ? null : Math.max(0, now - beats.get(0));
+		} catch (DataAccessException e) {
+			log.debug("복제본 지연 측정 실패 replica={}", replica.name, e);
+			return null;
+		}
+	}
+
+	private void refreshHealthQuietly() {
+		try {
+			refreshHealth();
+		} catch (RuntimeException e) {
+			healthyReplicas = List.of();
+			log.error("복제 지연 측정 실패, 모든 읽기를 primary로 보냅니다", e);
+		}
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		for (Replica replica : replicas) {
+			if (replica.dataSource instanceof AutoCloseable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+	private static final class Replica {
+
+		final String name;
+		final DataSource dataSource;
+		final JdbcTemplate template;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+			this.template = new JdbcTemplate(dataSource);
+		}
+	}
+}
@@ -1,88 +1,145 @@
-package hello.springdb2.domain;
-
-import jakarta.persistence.Column;
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-/**
- * "Item 도메인" 엔티티 정리
- * 
- * 1. 역할(Domain 의미)
- * - 시스템에서 관리하는 상품(Item) 정보를 표현하는 도메인 객체
- * - 데이터베이스의 item "테이블과 매핑되는 JPA 엔티티(클래스)"
- * 
- * 2. 객체-테이블 매핑(ORM)
- * - JPA(Object Relational Mapping)는 "객체와 테이블을 매핑"하여
- *   개발자가 "객체 중심으로 데이터베이스 작업"을 가능하게 함
- * - @Entity 애너테이션을 붙이면 해당 클래스가 JPA 엔티티로 인식됨
- * 
- * 3. 생성자 규칙
- * - JPA 엔티티는 public 또는 protected 기본 생성자가 필수 : @NoArgsConstructor
- * - JPA가 리플렉션을 사용하여 객체 생성
- * - 필드 초기화를 위한 추가 생성자 가능
- * 
- * 4. JPA 적용 요약
- * - @Entity + @Id는 JPA 엔티티의 필수 구조
- * - @GeneratedValue 전략에 따라 PK 생성 방식 결정
- * - @Column은 선택 사항이며, 스프링 부트가 자동으로 매핑 처리 가능
- * --------------------------------------------------
- * [애너테이션 분석]
- * 
- * @Data 
- * - getter/setter, toString, equals/hashCode 자동 생성
- * - DTO, VO, Entity 클래스 작성 시 사용
- * - 자동 생성 메서드:
- *   @Getter, @Setter, @ToString, @EqualsAndHashCode, @RequiredArgsConstructor
- * 
- * @Entity (jakarta.persistence)
- * - JPA가 관리하는 엔티티 클래스 표시
- * - DB 테이블과 매핑됨
- * 
- * @Id 
- * - 엔티티의 PK 지정
- * 
- * @GeneratedValue(strategy = GenerationType.IDENTITY)
- * - PK 생성 전략 지정(DB 위임, MySQL AUTO_INCREMENT 방식)
- * 
- * @Column(name = "item_name", length = 10)
- * - 컬럼명 지정 및 제약조건 부여
- */
-@Data
-@Entity
-@NoArgsConstructor
-public class Item {
-
-	/**
-	 * - @Id: 엔티티의 식별자 지정
-	 * - @GeneratedValue(strategy = GenerationType.IDENTITY):
-	 *   DB에서 자동 증가(AUTO_INCREMENT) 전략 사용
-	 *   INSERT 시점에 DB가 PK값을 생성
-	 */
-	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
-	private Long id;
-	
-	/**
-	 * itemName
-	 * - 상품명
-	 * - @Column(name = "item_name", length = 10):
-	 *   DB 컬럼명 "item_name"으로 매핑
-	 *   최대 길이 10자로 제한
-	 * - 생략 시 스프링 부트가 카멜케이스를 언터스코어로 자동 변환(itemName -> item_name)
-	 *   
-	 */
-	@Column(name = "item_name", length = 10)
-	private String itemName;
-	private Integer price;
-	private Integer quantity;
-	
-	public Item(String itemName, int price, int quantity) {
-		this.itemName = itemName;
-		this.price = price;
-		this.quantity = quantity;
-	}
-}
+package hello.springdb2.domain;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * "Item 도메인" 엔티티 정리
+ * 
+ * 1. 역할(Domain 의미)
+ * - 시스템에서 관리하는 상품(Item) 정보를 표현하는 도메인 객체
+ * - 데이터베이스의 item "테이블과 매핑되는 JPA 엔티티(클래스)"
+ * 
+ * 2. 객체-테이블 매핑(ORM)
+ * - JPA(Object Relational Mapping)는 "객체와 테이블을 매핑"하여
+ *   개발자가 "객체 중심으로 데이터베이스 작업"을 가능하게 함
+ * - @Entity 애너테이션을 붙이면 해당 클래스가 JPA 엔티티로 인식됨
+ * 
+ * 3. 생성자 규칙
+ * - JPA 엔티티는 public 또는 protected 기본 생성자가 필수 : @NoArgsConstructor
+ * - JPA가 리플렉션을 사용하여 객체 생성
+ * - 필드 초기화를 위한 추가 생성자 가능
+ * 
+ * 4. JPA 적용 요약
+ * - @Entity + @Id는 JPA 엔티티의 필수 구조
+ * - @GeneratedValue 전략에 따라 PK 생성 방식 결정
+ * - @Column은 선택 사항이며, 스프링 부트가 자동으로 매핑 처리 가능
+ * --------------------------------------------------
+ * [애너테이션 분석]
+ * 
+ * @Data 
+ * - getter/setter, toString, equals/hashCode 자동 생성
+ * - DTO, VO, Entity 클래스 작성 시 사용
+ * - 자동 생성 메서드:
+ *   @Getter, @Setter, @ToString, @EqualsAndHashCode, @RequiredArgsConstructor
+ * 
+ * @Entity (jakarta.persistence)
+ * - JPA가 관리하는 엔티티 클래스 표시
+ * - DB 테이블과 매핑됨
+ * 
+ * @Id 
+ * - 엔티티의 PK 지정
+ * 
+ * @GeneratedValue(strategy = GenerationType.SEQUENCE) + @SequenceGenerator
+ * - PK 생성 전략 지정(DB 시퀀스 item_seq, schema.sql에서 생성)
+ * - IDENTITY(AUTO_INCREMENT)는 INSERT를 해야 PK를 알 수 있어서 persist() 즉시 INSERT -> JDBC 배치 INSERT 불가
+ * - SEQUENCE는 persist() 시점에 PK를 미리 받아 두므로 INSERT를 flush 까지 모았다가
+ *   hibernate.jdbc.batch_size 건씩 배치로 보낸다 (application.properties)
+ * 
+ * @Column(name = "item_name", length = 10)
+ * - 컬럼명 지정 및 제약조건 부여
+ * 
+ * @Table(indexes = ...)
+ * - schema.sql과 같은 인덱스를 엔티티에도 선언 (ddl-auto로 스키마를 만들 때도 인덱스가 생기도록)
+ * - idx_item_price_covering: price <= ? 검색용 커버링 인덱스 (price, id, item_name, quantity, version)
+ * - idx_item_name: 상품명 시작 / 일치 검색용 인덱스 (SearchMode.PREFIX, EXACT)
+ * 
+ * @Version
+ * - 낙관적 락(optimistic lock)용 버전 컬럼
+ * - 수정 시 "update ... set version = version + 1 where id = ? and version = ?"
+ *   -> 그 사이 다른 트랜잭션이 먼저 수정했으면 0건이 수정되고 충돌(OptimisticLockingFailureException)로 처리
+ * - 행 잠금(select ... for update) 없이 동시 수정을 감지하므로 경합이 적을 때 처리량이 높다
+ * 
+ * @DynamicUpdate (Hibernate)
+ * - 기본은 모든 컬럼을 SET 하는 UPDATE 문 하나를 미리 만들어 재사용한다
+ * - 붙이면 flush 시점에 변경 감지로 실제로 바뀐 컬럼(+ version)만 SET 하는 UPDATE를 만든다
+ *   -> 바뀌지 않은 컬럼의 redo / WAL 기록, 그 컬럼이 들어간 인덱스(idx_item_name 등) 갱신이 줄어든다
+ *   -> 대신 SQL 문자열이 바뀐 컬럼 조합마다 달라진다 (문장 캐시 재사용은 줄어듦)
+ * 
+ * @Cacheable + @Cache (Hibernate 2차 캐시, JpaSecondLevelCacheConfig)
+ * - 영속성 컨텍스트(1차 캐시)는 트랜잭션(요청)마다 새로 만들어지지만, 2차 캐시는 애플리케이션 전체가 공유한다
+ *   -> find()가 1차 캐시에 없으면 2차 캐시(item 영역)를 먼저 보고, 없을 때만 SELECT
+ * - READ_WRITE: Hibernate를 통한 수정은 커밋 전까지 항목을 잠가(soft lock) 다른 트랜잭션이 옛 값을 읽지 않게 한다
+ * - JdbcTemplate / MyBatis로 직접 수정한 행은 2차 캐시가 알 수 없다 -> 같은 DB를 함께 쓸 때는 영역을 비워야 한다
+ * - 2차 캐시를 켜지 않으면(item.jpa.cache.enabled=false) 무시된다
+ */
+@Data
+@Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item")
+@Table(indexes = {
+		@Index(name = "idx_item_price_covering", columnList = "price, id, item_name, quantity, version"),
+		@Index(name = "idx_item_name", columnList = "item_name")
+})
+@NoArgsConstructor
+public class Item {
+
+	/**
+	 * - @Id: 엔티티의 식별자 지정
+	 * - @GeneratedValue(strategy = GenerationType.SEQUENCE): DB 시퀀스(item_seq)로 PK 생성
+	 * - allocationSize = 50 (pooled 최적화기)
+	 *   시퀀스 값 하나(increment by 50)로 PK 50개 범위를 예약해 두고 메모리에서 나눠 준다 -> 시퀀스 호출 50건당 1번
+	 *   schema.sql의 increment by와 같아야 한다
+	 *   (hibernate.id.sequence.increment_size_mismatch_strategy=fix: 다르면 DB 시퀀스의 increment by를 따른다
+	 *    -> 할당 크기는 시퀀스 정의 한 곳에서 바꾼다)
+	 * - JdbcTemplate / MyBatis INSERT는 id 컬럼 기본값(next value for item_seq)으로 같은 시퀀스를 쓴다
+	 *   시퀀스 값 v 하나가 JPA에게는 (v-50, v] 범위라서 서로 다른 값을 받은 두 경로의 PK는 겹치지 않는다
+	 */
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+	@SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
+	private Long id;
+	
+	/**
+	 * itemName
+	 * - 상품명
+	 * - @Column(name = "item_name", length = 10):
+	 *   DB 컬럼명 "item_name"으로 매핑
+	 *   최대 길이 10자로 제한
+	 * - 생략 시 스프링 부트가 카멜케이스를 언터스코어로 자동 변환(itemName -> item_name)
+	 *   
+	 */
+	@Column(name = "item_name", length = 10)
+	private String itemName;
+	private Integer price;
+	private Integer quantity;
+	
+	/**
+	 * version
+	 * - 저장 시 0, 수정할 때마다 1씩 증가 (JPA는 Hibernate가, JdbcTemplate / MyBatis / 메모리는 각 리포지토리가 증가)
+	 * - 새 엔티티는 null 이어야 한다 (스프링 데이터 JPA는 version == null 이면 새 엔티티로 보고 persist 한다)
+	 */
+	@Version
+	private Long version;
+	
+	public Item(String itemName, int price, int quantity) {
+		this.itemName = itemName;
+		this.price = price;
+		this.quantity = quantity;
+	}
+}
@@ -0,0 +1,17 @@
+package hello.springdb2.repository;
+
+import hello.springdb2.domain.Item;
+
+/**
+ * 상품 목록 화면(items.html) 한 줄
+ *
+ * - 엔티티가 아닌 불변 값 -> 영속성 컨텍스트에 올라가지 않는다 (변경 감지 스냅샷, 엔티티 등록 비용 없음)
+ * - JPA 구현체는 Querydsl Projections.constructor로 필요한 컬럼(version 제외)만 조회해 바로 담는다
+ * - 그 밖의 구현체는 조회한 Item을 from()으로 옮긴다 (ItemRepository.findListPage 기본 구현)
+ */
+public record ItemListRow(Long id, String itemName, Integer price, Integer quantity) {
+
+	public static ItemListRow from(Item item) {
+		return new ItemListRow(item.getId(), item.getItemName(), item.getPrice(), item.getQuantity());
+	}
+}
@@ -1,27 +1,100 @@
-package hello.springdb2.repository;
-
-import java.util.List;
-import java.util.Optional;
-
-import hello.springdb2.domain.Item;
-
-/**
- * ItemRepository 인터페이스
- * 
- * - 상품(Item) 엔티티의 데이터 접근 계층(Repository)역할을 추상화한 인터페이스
- * - 구체적인 "구현 기술(JdbcTemplate, MyBatis, JPA 등)에 의존하지 않고"
- *   "인터페이스만" 바라보도록 설계 -> 구현체를 갈아끼우기 쉽다 (DI)
- * - JdbcTemplateItemRepository, MyBatisItemRepository, JpaItemRepository 등
- *   다양한 구현체로 대체 가능
- * - 서비스 계층(Service)은 구현체가 아닌 인터페이스(ItemRepository)에만 의존
- * 
- */
-
-public interface ItemRepository {
-	
-	Item save(Item item);
-	Optional<Item> findById(Long id);
-	List<Item> findAll(ItemSearchCond cond);
-	void update(Long itemId, ItemUpdateDto updateParam);
-	void delete(Long id);
-}
+package hello.springdb2.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import hello.springdb2.domain.Item;
+
+/**
+ * ItemRepository 인터페이스
+ * 
+ * - 상품(Item) 엔티티의 데이터 접근 계층(Repository)역할을 추상화한 인터페이스
+ * - 구체적인 "구현 기술(JdbcTemplate, MyBatis, JPA 등)에 의존하지 않고"
+ *   "인터페이스만" 바라보도록 설계 -> 구현체를 갈아끼우기 쉽다 (DI)
+ * - JdbcTemplateItemRepository, MyBatisItemRepository, JpaItemRepository 등
+ *   다양한 구현체로 대체 가능
+ * - 서비스 계층(Service)은 구현체가 아닌 인터페이스(ItemRepository)에만 의존
+ * 
+ */
+
+public interface ItemRepository {
+	
+	/**
+	 * saveAll()의 기본 배치 크기 (한 번의 DB 왕복에 담을 INSERT 건수)
+	 */
+	int DEFAULT_BATCH_SIZE = 1000;
+	
+	/**
+	 * stream()의 기본 fetch size (DB에서 한 번에 가져오는 행 수)
+	 */
+	int DEFAULT_FETCH_SIZE = 1000;
+	
+	Item save(Item item);
+	
+	/**
+	 * 여러 건을 한 번에 저장 (대량 적재용)
+	 * - 구현체는 batchSize 단위로 나누어 배치 INSERT 한다 -> DB 왕복 횟수 감소
+	 * - 반환되는 Item에는 DB가 생성한 id가 채워져 있다
+	 */
+	List<Item> saveAll(Collection<Item> items);
+	
+	Optional<Item> findById(Long id);
+	
+	/**
+	 * 지금 재고만 조회 (상품이 없으면 empty)
+	 * - 기본 구현은 findById, 캐시 데코레이터(CachingItemRepository)는 캐시를 거치지 않고 delegate에서 읽는다
+	 *   -> 재고 기준값을 맞추는 곳(ItemQuantityWriteBehind)이 캐시에 남은 옛 재고를 읽지 않도록
+	 */
+	default Optional<Integer> findQuantity(Long id) {
+		return findById(id).map(Item::getQuantity);
+	}
+	
+	List<Item> findAll(ItemSearchCond cond);
+	
+	/**
+	 * 키셋(seek) 페이징 조회
+	 * - id > afterId 인 행을 id 오름차순으로 최대 limit 건 조회 (afterId가 null이면 첫 페이지)
+	 * - OFFSET 방식과 달리 앞 페이지를 읽고 버리지 않으므로 페이지가 깊어져도 비용이 일정하다
+	 * - 다음 페이지는 마지막 행의 id를 afterId로 넘겨서 조회
+	 */
+	List<Item> findPage(ItemSearchCond cond, Long afterId, int limit);
+	
+	/**
+	 * 상품 목록 화면용 키셋 페이징 조회 (조건, 순서는 findPage와 같다)
+	 * - 엔티티 대신 불변 ItemListRow를 반환한다
+	 * - JdbcTemplate / MyBatis / 메모리는 원래 관리되는 엔티티가 없으므로 findPage 결과를 그대로 옮긴다
+	 * - JPA(JpaItemRepositoryV3)는 DTO 프로젝션으로 오버라이드 -> 영속성 컨텍스트를 거치지 않는다
+	 */
+	default List<ItemListRow> findListPage(ItemSearchCond cond, Long afterId, int limit) {
+		return findPage(cond, afterId, limit).stream()
+				.map(ItemListRow::from)
+				.toList();
+	}
+	
+	/**
+	 * 검색 결과를 한 건씩 action에 넘긴다 (전체 결과를 List로 만들지 않음 -> 대용량 내보내기용)
+	 * - 구현체는 기술별 스트리밍(JDBC fetch size, MyBatis Cursor, JPA getResultStream)을 사용한다
+	 * - 메서드가 끝나면(정상/예외 모두) 커서와 커넥션이 닫힌다
+	 * - action에 넘어간 Item은 메서드가 끝난 뒤 다시 쓰지 않는다고 가정한다 (JPA는 한 건씩 detach)
+	 */
+	void stream(ItemSearchCond cond, Consumer<Item> action);
+	void update(Long itemId, ItemUpdateDto updateParam);
+	
+	/**
+	 * 재고 차감 (원자적 조건부 수정)
+	 * - 조회 후 수정(read-modify-write)하지 않고 한 문장으로 처리
+	 *   -> update item set quantity = quantity - ? where id = ? and quantity >= ?
+	 * - 재고가 부족하거나 상품이 없으면 아무것도 바꾸지 않고 false
+	 * - 수정하면 version도 올린다 (열려 있던 수정 폼의 저장은 충돌로 처리됨)
+	 */
+	boolean decrementQuantity(Long itemId, int amount);
+	
+	/**
+	 * 재고 증가 (원자적 수정), 상품이 없으면 false
+	 */
+	boolean incrementQuantity(Long itemId, int amount);
+	
+	void delete(Long id);
+}
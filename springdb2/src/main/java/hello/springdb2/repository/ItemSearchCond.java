@@ -1,22 +1,43 @@
-package hello.springdb2.repository;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-/**
- * ItemSearchCond (검색 조건 DTO)
- * 
- * - 상품 검색 시 조건을 담는 데이터 전송 객체(DTO)
- * - "검색 조건"을 하나의 객체로 전달하여 메서드 파라미터 단순화
- */
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class ItemSearchCond {
-
-	private String itemName;
-	private Integer maxPrice;
-	
-}
+package hello.springdb2.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ItemSearchCond (검색 조건 DTO)
+ * 
+ * - 상품 검색 시 조건을 담는 데이터 전송 객체(DTO)
+ * - "검색 조건"을 하나의 객체로 전달하여 메서드 파라미터 단순화
+ * - searchMode: 상품명 검색 방식 (포함 / 시작 / 일치), 값이 없으면 CONTAINS
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSearchCond {
+
+	private String itemName;
+	private Integer maxPrice;
+	private SearchMode searchMode = SearchMode.CONTAINS;
+	
+	public ItemSearchCond(String itemName, Integer maxPrice) {
+		this(itemName, maxPrice, SearchMode.CONTAINS);
+	}
+	
+	/**
+	 * 요청 파라미터가 비어 있으면(searchMode=) null로 바인딩되므로 기본값으로 돌려준다
+	 */
+	public SearchMode getSearchMode() {
+		return searchMode == null ? SearchMode.CONTAINS : searchMode;
+	}
+	
+	/**
+	 * PREFIX 검색의 범위 상한 (item_name < :itemNameUpperBound)
+	 * - BeanPropertySqlParameterSource, MyBatis 에서 프로퍼티로 바인딩한다
+	 */
+	public String getItemNameUpperBound() {
+		return SearchMode.prefixUpperBound(itemName);
+	}
+	
+}
@@ -1,27 +1,60 @@
-package hello.springdb2.repository;
-
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-/**
- * ItemUpdateDto (상품 수정용 DTO)
- * 
- * - 상품 수정 요청 시 전달할 데이터를 담는 객체
- * - 불필요한 필드(id 등)는 제외하고, 수정 가능한 필드만 포함
- * - 서비스 계층 -> 리포지토리 계층으로 데이터 전달에 사용
- */
-
-@Data
-@NoArgsConstructor
-public class ItemUpdateDto {
-
-	private String itemName;
-	private Integer price;
-	private Integer quantity;
-	
-	public ItemUpdateDto(String ItemName, int price, int quantity) {
-		this.itemName = ItemName;
-		this.price = price;
-		this.quantity = quantity;
-	}
-}
+package hello.springdb2.repository;
+
+import hello.springdb2.domain.Item;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ItemUpdateDto (상품 수정용 DTO)
+ * 
+ * - 상품 수정 요청 시 전달할 데이터를 담는 객체
+ * - 불필요한 필드(id 등)는 제외하고, 수정 가능한 필드만 포함
+ * - 서비스 계층 -> 리포지토리 계층으로 데이터 전달에 사용
+ * - version: 수정 폼을 열 때 읽은 Item.version (낙관적 락)
+ *   -> 그 사이 다른 사용자가 먼저 수정했으면 OptimisticLockingFailureException
+ *   -> null 이면 버전을 비교하지 않는다 (초기 데이터, 내부 호출 등)
+ * - 부분 수정: itemName / price / quantity 중 null 인 필드는 바꾸지 않는다
+ *   -> JdbcTemplate / MyBatis는 null이 아닌 컬럼만 SET 절에 넣는다 (바뀌지 않는 컬럼, 인덱스는 건드리지 않음)
+ *   -> JPA는 applyTo()로 null이 아닌 필드만 엔티티에 반영하고, @DynamicUpdate로 실제로 바뀐 컬럼만 UPDATE
+ *   -> 바꿀 필드가 하나도 없으면(hasChanges() == false) 리포지토리는 아무것도 하지 않는다 (버전도 그대로)
+ */
+
+@Data
+@NoArgsConstructor
+public class ItemUpdateDto {
+
+	private String itemName;
+	private Integer price;
+	private Integer quantity;
+	private Long version;
+	
+	public ItemUpdateDto(String ItemName, int price, int quantity) {
+		this.itemName = ItemName;
+		this.price = price;
+		this.quantity = quantity;
+	}
+	
+	public ItemUpdateDto(String itemName, int price, int quantity, Long version) {
+		this(itemName, price, quantity);
+		this.version = version;
+	}
+	
+	public boolean hasChanges() {
+		return itemName != null || price != null || quantity != null;
+	}
+	
+	/**
+	 * null이 아닌 필드만 item에 반영 (JPA 변경 감지, 메모리 리포지토리에서 사용)
+	 */
+	public void applyTo(Item item) {
+		if (itemName != null) {
+			item.setItemName(itemName);
+		}
+		if (price != null) {
+			item.setPrice(price);
+		}
+		if (quantity != null) {
+			item.setQuantity(quantity);
+		}
+	}
+}
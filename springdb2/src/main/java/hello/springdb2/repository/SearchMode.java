@@ -0,0 +1,50 @@
+package hello.springdb2.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 상품명 검색 방식
+ * 
+ * 1. CONTAINS (포함, 기본값)
+ *  - item_name like '%검색어%'
+ *  - 앞에 와일드카드가 있어 인덱스를 쓸 수 없다 -> 전체 스캔
+ *  
+ * 2. PREFIX (시작)
+ *  - 검색어로 시작하는 상품 (자동완성)
+ *  - item_name >= '검색어' and item_name < '검색어' || U+FFFF  -> item_name 인덱스 범위 스캔
+ *  - like :itemName || '%' 와 결과는 같지만, 검색어가 바인딩 파라미터면 H2는 준비(prepare) 시점에
+ *    패턴을 몰라 like로는 인덱스 범위를 만들지 못한다. 범위 비교는 파라미터여도 인덱스를 쓴다
+ *  
+ * 3. EXACT (일치)
+ *  - item_name = '검색어' -> item_name 인덱스 동등 조회
+ */
+@Getter
+@RequiredArgsConstructor
+public enum SearchMode {
+
+	CONTAINS("포함"),
+	PREFIX("시작"),
+	EXACT("일치");
+
+	private final String description;
+
+	/**
+	 * 메모리 구현, 검색 결과 캐시 무효화에서 DB 조건과 같은 의미로 비교
+	 */
+	public boolean matches(String name, String keyword) {
+		return switch (this) {
+			case CONTAINS -> name.contains(keyword);
+			case PREFIX -> name.startsWith(keyword);
+			case EXACT -> name.equals(keyword);
+		};
+	}
+
+	/**
+	 * PREFIX 범위 조건의 상한 (미포함)
+	 * - 검색어 뒤에 어떤 문자가 와도 검색어 + U+FFFF 보다 작다 (U+FFFF는 문자로 쓰이지 않는 코드)
+	 */
+	public static String prefixUpperBound(String prefix) {
+		return prefix == null ? null : prefix + Character.MAX_VALUE;
+	}
+}
@@ -0,0 +1,14 @@
+package hello.springdb2.repository.cache;
+
+/**
+ * 캐시 통계 스냅샷
+ * - hitCount / missCount: 조회 시 캐시 적중 / 미적중 횟수
+ * - evictionCount: 용량 초과(LRU) 또는 만료(TTL)로 제거된 횟수 (쓰기 무효화는 제외)
+ */
+public record CacheStats(long hitCount, long missCount, long evictionCount, int size) {
+
+	public double hitRate() {
+		long requestCount = hitCount + missCount;
+		return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+	}
+}
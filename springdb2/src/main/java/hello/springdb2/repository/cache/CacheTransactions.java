@@ -0,0 +1,67 @@
+package hello.springdb2.repository.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 캐시와 트랜잭션 경계를 맞추기 위한 도우미
+ *
+ * - afterCommit: 트랜잭션 안이면 커밋 후 실행, 밖이면 즉시 실행
+ * - invalidate: 즉시 제거 + 트랜잭션 종료(커밋/롤백) 후 한 번 더 제거
+ *   -> 커밋 전에 다른 스레드가 옛 값을 다시 캐시에 올려도 종료 시점에 지워진다
+ * - isDirty: 현재 트랜잭션이 이 캐시를 통해 쓰기를 했는지
+ *   -> 커밋 전 데이터를 읽었을 수 있으므로 이 경우 조회 결과를 캐시에 올리지 않는다
+ */
+final class CacheTransactions {
+
+	private CacheTransactions() {
+	}
+
+	static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	static void invalidate(Object cache, Runnable eviction) {
+		eviction.run();
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		markDirty(cache);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				eviction.run();
+			}
+		});
+	}
+
+	/**
+	 * 현재 트랜잭션을 이 캐시에 대해 "쓰기 있음"으로 표시 (트랜잭션 종료 시 해제)
+	 */
+	static void markDirty(Object cache) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()
+				|| TransactionSynchronizationManager.hasResource(cache)) {
+			return;
+		}
+		TransactionSynchronizationManager.bindResource(cache, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(cache);
+			}
+		});
+	}
+
+	static boolean isDirty(Object cache) {
+		return TransactionSynchronizationManager.hasResource(cache);
+	}
+}
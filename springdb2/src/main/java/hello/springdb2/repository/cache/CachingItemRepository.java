@@ -0,0 +1,265 @@
+package hello.springdb2.repository.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.springframework.util.Assert;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+
+/**
+ * CachingItemRepository (findById 읽기 캐시 데코레이터)
+ *
+ * 1. 데코레이터 패턴
+ * - ItemRepository를 구현하면서 실제 구현체(delegate)를 감싼다
+ * - JdbcTemplate, MyBatis, JPA 등 어떤 구현체든 그대로 감쌀 수 있다 (ItemCacheConfig 참고)
+ *
+ * 2. 읽기 (read-through)
+ * - findById: 캐시에 있으면 DB를 거치지 않고 반환, 없으면 delegate 조회 후 캐시에 저장
+ * - findQuantity: 캐시를 거치지 않는다 (지금 재고가 필요한 곳용)
+ * - 용량 제한(maxSize): LinkedHashMap 접근 순서 모드 -> 가장 오래 안 쓴 항목부터 제거(LRU)
+ * - 만료(ttl): 저장 후 ttl이 지난 항목은 미적중으로 처리
+ *
+ * 3. 쓰기 (무효화)
+ * - save: 저장된 상품을 캐시에 채운다 (트랜잭션 안이면 커밋 이후에)
+ * - saveAll: 캐시에 채우지 않는다 (대량 적재가 LRU의 자주 쓰는 항목을 모두 밀어내지 않도록)
+ * - update / delete / 재고 변경: 즉시 제거 + 트랜잭션 종료(커밋/롤백) 후 한 번 더 제거
+ *   -> 커밋 전에 다른 스레드가 옛 값을 다시 캐시에 올려도 종료 시점에 지워진다
+ * - 쓰기를 한 트랜잭션 안에서 조회한 값은 커밋 전 데이터일 수 있으므로 캐시에 올리지 않는다
+ * - 미적중 조회(delegate) 도중 무효화가 일어났다면(generation 변경) 읽은 값은 캐시에 올리지 않는다
+ *   -> 옛 값을 읽은 스레드가 다른 트랜잭션의 수정 / 삭제 무효화보다 늦게 put 해서 ttl 동안 남는 일을 막는다
+ * - 검색 결과 캐시(ItemQueryCache)도 함께 선택적으로 무효화한다
+ *
+ * 4. 캐시에는 복사본을 저장/반환한다
+ * - 호출 측이 반환된 Item을 수정해도 캐시 내용이 바뀌지 않도록
+ */
+public class CachingItemRepository implements ItemRepository {
+
+	private final ItemRepository delegate;
+	private final ItemQueryCache queryCache;
+	private final int maxSize;
+	private final long ttlNanos;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LinkedHashMap<Long, CacheEntry> cache;
+	private final AtomicLong generation = new AtomicLong();
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	public CachingItemRepository(ItemRepository delegate, int maxSize, Duration ttl) {
+		this(delegate, ItemQueryCache.disabled(), maxSize, ttl);
+	}
+
+	public CachingItemRepository(ItemRepository delegate, ItemQueryCache queryCache, int maxSize, Duration ttl) {
+		Assert.isTrue(maxSize > 0, "maxSize는 0보다 커야 합니다");
+		this.delegate = delegate;
+		this.queryCache = queryCache;
+		this.maxSize = maxSize;
+		this.ttlNanos = ttl.toNanos();
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, CacheEntry> eldest) {
+				if (size() > CachingItemRepository.this.maxSize) {
+					evictionCount.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public Item save(Item item) {
+		Item savedItem = delegate.save(item);
+		queryCache.evictSaved(savedItem);
+		CacheTransactions.markDirty(this);
+		CacheTransactions.afterCommit(() -> put(savedItem));
+		return savedItem;
+	}
+
+	@Override
+	public List<Item> saveAll(Collection<Item> items) {
+		List<Item> savedItems = delegate.saveAll(items);
+		queryCache.evictSavedAll(savedItems);
+		CacheTransactions.markDirty(this);
+		return savedItems;
+	}
+
+	@Override
+	public Optional<Item> findById(Long id) {
+		Item cached = get(id);
+		if (cached != null) {
+			hitCount.increment();
+			return Optional.of(cached);
+		}
+
+		missCount.increment();
+		long loadedAt = generation.get();
+		Optional<Item> found = delegate.findById(id);
+		if (found.isPresent() && !CacheTransactions.isDirty(this)) {
+			putIfUnchanged(found.get(), loadedAt);
+		}
+		return found;
+	}
+
+	@Override
+	public Optional<Integer> findQuantity(Long id) {
+		return delegate.findQuantity(id);
+	}
+
+	@Override
+	public List<Item> findAll(ItemSearchCond cond) {
+		return delegate.findAll(cond);
+	}
+
+	@Override
+	public List<Item> findPage(ItemSearchCond cond, Long afterId, int limit) {
+		return delegate.findPage(cond, afterId, limit);
+	}
+
+	@Override
+	public List<ItemListRow> findListPage(ItemSearchCond cond, Long afterId, int limit) {
+		return delegate.findListPage(cond, afterId, limit);
+	}
+
+	@Override
+	public void stream(ItemSearchCond cond, Consumer<Item> action) {
+		delegate.stream(cond, action);
+	}
+
+	@Override
+	public void update(Long itemId, ItemUpdateDto updateParam) {
+		delegate.update(itemId, updateParam);
+		queryCache.evictUpdated(itemId, updateParam);
+		CacheTransactions.invalidate(this, () -> remove(itemId));
+	}
+
+	@Override
+	public boolean decrementQuantity(Long itemId, int amount) {
+		boolean decremented = delegate.decrementQuantity(itemId, amount);
+		if (decremented) {
+			evictQuantityChanged(itemId);
+		}
+		return decremented;
+	}
+
+	@Override
+	public boolean incrementQuantity(Long itemId, int amount) {
+		boolean incremented = delegate.incrementQuantity(itemId, amount);
+		if (incremented) {
+			evictQuantityChanged(itemId);
+		}
+		return incremented;
+	}
+
+	private void evictQuantityChanged(Long itemId) {
+		queryCache.evictQuantityChanged(itemId);
+		CacheTransactions.invalidate(this, () -> remove(itemId));
+	}
+
+	@Override
+	public void delete(Long id) {
+		delegate.delete(id);
+		queryCache.evictDeleted(id);
+		CacheTransactions.invalidate(this, () -> remove(id));
+	}
+
+	public CacheStats getStats() {
+		lock.lock();
+		try {
+			return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), cache.size());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void clear() {
+		lock.lock();
+		try {
+			generation.incrementAndGet();
+			cache.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Item get(Long id) {
+		lock.lock();
+		try {
+			CacheEntry entry = cache.get(id);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.isExpired(System.nanoTime())) {
+				cache.remove(id);
+				evictionCount.increment();
+				return null;
+			}
+			return copyOf(entry.item());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void put(Item item) {
+		lock.lock();
+		try {
+			cache.put(item.getId(), new CacheEntry(copyOf(item), System.nanoTime() + ttlNanos));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void putIfUnchanged(Item item, long loadedAt) {
+		lock.lock();
+		try {
+			if (generation.get() != loadedAt) {
+				return;
+			}
+			cache.put(item.getId(), new CacheEntry(copyOf(item), System.nanoTime() + ttlNanos));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void remove(Long id) {
+		lock.lock();
+		try {
+			generation.incrementAndGet();
+			cache.remove(id);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	static Item copyOf(Item item) {
+		Item copy = new Item();
+		copy.setId(item.getId());
+		copy.setItemName(item.getItemName());
+		copy.setPrice(item.getPrice());
+		copy.setQuantity(item.getQuantity());
+		copy.setVersion(item.getVersion());
+		return copy;
+	}
+
+	private record CacheEntry(Item item, long expiresAt) {
+
+		boolean isExpired(long now) {
+			return now - expiresAt >= 0;
+		}
+	}
+}
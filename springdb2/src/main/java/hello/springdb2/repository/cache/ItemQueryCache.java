@@ -0,0 +1,274 @@
+package hello.springdb2.repository.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.SearchMode;
+
+/**
+ * ItemQueryCache (검색 결과 캐시)
+ *
+ * 1. 키: 정규화한 검색 조건(SearchKey)
+ * - itemName이 null / "" / 공백이면 모두 null로 -> 같은 키를 공유한다
+ * - get: 전체 검색 결과(findItems), getListPage: 상품 목록 화면의 키셋 페이지(findItemListPage)
+ *   -> 페이지 키는 afterId / limit까지 포함한다
+ *
+ * 2. 선택적 무효화
+ * - 전체를 비우지 않고, 쓰기로 결과가 달라질 수 있는 키만 제거한다
+ * - save: 새 상품이 조건(이름 포함 + 가격 이하)을 만족하는 키 (saveAll은 한 번의 순회로 여러 건을 함께 본다)
+ * - update: 결과에 그 id가 들어 있던 키(이전 값 기준) + 새 값이 조건을 만족하는 키
+ *   (부분 수정으로 null인 필드는 새 값을 모르므로 조건을 만족하는 것으로 본다)
+ * - delete: 결과에 그 id가 들어 있던 키
+ * - 재고 변경: 결과에 그 id가 들어 있던 키 (상품명 / 가격은 그대로라 새로 조건을 만족하는 키는 없다)
+ * - 키셋 페이지는 afterId 기준이라 다른 페이지의 삭제 / 수정으로 경계가 밀리지 않는다 -> 같은 규칙으로 충분하다
+ *
+ * 3. 동시성
+ * - 조회(loader) 도중 무효화가 일어났다면(generation 변경) 그 결과는 캐시에 올리지 않는다
+ * - 쓰기를 한 트랜잭션 안에서 조회한 결과도 캐시에 올리지 않는다 (CacheTransactions 참고)
+ *
+ * 4. maxSize = 0 이면 캐시를 사용하지 않는다 (항상 loader 호출)
+ */
+public class ItemQueryCache {
+
+	private final int maxSize;
+	private final long ttlNanos;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LinkedHashMap<SearchKey, CacheEntry> cache;
+	private final AtomicLong generation = new AtomicLong();
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	public ItemQueryCache(int maxSize, Duration ttl) {
+		Assert.isTrue(maxSize >= 0, "maxSize는 0 이상이어야 합니다");
+		this.maxSize = maxSize;
+		this.ttlNanos = ttl.toNanos();
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<SearchKey, CacheEntry> eldest) {
+				if (size() > ItemQueryCache.this.maxSize) {
+					evictionCount.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public static ItemQueryCache disabled() {
+		return new ItemQueryCache(0, Duration.ZERO);
+	}
+
+	public boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+	public List<Item> get(ItemSearchCond cond, Supplier<List<Item>> loader) {
+		return load(SearchKey.of(cond), loader, Item::getId, ItemQueryCache::copyOf);
+	}
+
+	/**
+	 * 상품 목록 화면용 키셋 페이지 (ItemRepository.findListPage 결과)
+	 * - ItemListRow는 불변이라 복사하지 않고 변경 불가 리스트로만 감싼다
+	 */
+	public List<ItemListRow> getListPage(ItemSearchCond cond, Long afterId, int limit,
+			Supplier<List<ItemListRow>> loader) {
+		return load(SearchKey.of(cond, afterId, limit), loader, ItemListRow::id, List::copyOf);
+	}
+
+	public void evictSaved(Item item) {
+		invalidate((key, entry) -> key.matches(item.getItemName(), item.getPrice()));
+	}
+
+	/**
+	 * 여러 건 저장(saveAll) -> 키마다 한 번만 검사하고 generation도 한 번만 올린다
+	 */
+	public void evictSavedAll(Collection<Item> items) {
+		if (items.isEmpty()) {
+			return;
+		}
+		invalidate((key, entry) -> {
+			for (Item item : items) {
+				if (key.matches(item.getItemName(), item.getPrice())) {
+					return true;
+				}
+			}
+			return false;
+		});
+	}
+
+	public void evictUpdated(Long itemId, ItemUpdateDto updateParam) {
+		invalidate((key, entry) -> entry.ids().contains(itemId)
+				|| key.matches(updateParam.getItemName(), updateParam.getPrice()));
+	}
+
+	public void evictDeleted(Long itemId) {
+		invalidate((key, entry) -> entry.ids().contains(itemId));
+	}
+
+	public void evictQuantityChanged(Long itemId) {
+		invalidate((key, entry) -> entry.ids().contains(itemId));
+	}
+
+	public void clear() {
+		lock.lock();
+		try {
+			generation.incrementAndGet();
+			cache.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public CacheStats getStats() {
+		lock.lock();
+		try {
+			return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), cache.size());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void invalidate(BiPredicate<SearchKey, CacheEntry> affected) {
+		if (!isEnabled()) {
+			return;
+		}
+		CacheTransactions.invalidate(this, () -> removeIf(affected));
+	}
+
+	private void removeIf(BiPredicate<SearchKey, CacheEntry> affected) {
+		lock.lock();
+		try {
+			generation.incrementAndGet();
+			cache.entrySet().removeIf(entry -> affected.test(entry.getKey(), entry.getValue()));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * - idOf: 무효화 판단용 id 추출
+	 * - copier: 저장할 때와 반환할 때 적용 (호출 측이 결과를 수정해도 캐시가 바뀌지 않도록)
+	 */
+	private <T> List<T> load(SearchKey key, Supplier<List<T>> loader,
+			Function<T, Long> idOf, UnaryOperator<List<T>> copier) {
+		if (!isEnabled()) {
+			return loader.get();
+		}
+
+		List<T> cached = lookup(key);
+		if (cached != null) {
+			hitCount.increment();
+			return copier.apply(cached);
+		}
+
+		missCount.increment();
+		long loadedAt = generation.get();
+		List<T> values = loader.get();
+		if (!CacheTransactions.isDirty(this)) {
+			store(key, copier.apply(values), idOf, loadedAt);
+		}
+		return values;
+	}
+
+	/**
+	 * 키의 종류(전체 결과 / 페이지)가 값의 타입을 정하므로 캐스팅은 안전하다
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> List<T> lookup(SearchKey key) {
+		lock.lock();
+		try {
+			CacheEntry entry = cache.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (System.nanoTime() - entry.expiresAt() >= 0) {
+				cache.remove(key);
+				evictionCount.increment();
+				return null;
+			}
+			return (List<T>) entry.values();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private <T> void store(SearchKey key, List<T> copies, Function<T, Long> idOf, long loadedAt) {
+		Set<Long> ids = new HashSet<>();
+		for (T value : copies) {
+			ids.add(idOf.apply(value));
+		}
+
+		lock.lock();
+		try {
+			if (generation.get() != loadedAt) {
+				return;
+			}
+			cache.put(key, new CacheEntry(copies, ids, System.nanoTime() + ttlNanos));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static List<Item> copyOf(List<Item> items) {
+		List<Item> copies = new ArrayList<>(items.size());
+		for (Item item : items) {
+			copies.add(CachingItemRepository.copyOf(item));
+		}
+		return copies;
+	}
+
+	/**
+	 * 검색 결과 캐시 키
+	 * - 상품명이 없으면 searchMode는 결과에 영향이 없으므로 CONTAINS로 맞춰 같은 키를 쓴다
+	 * - 전체 결과는 afterId / limit이 null, 페이지는 limit이 있다 (첫 페이지는 afterId만 null)
+	 */
+	record SearchKey(String itemName, SearchMode searchMode, Integer maxPrice, Long afterId, Integer limit) {
+
+		static SearchKey of(ItemSearchCond cond) {
+			return of(cond, null, null);
+		}
+
+		static SearchKey of(ItemSearchCond cond, Long afterId, Integer limit) {
+			if (!StringUtils.hasText(cond.getItemName())) {
+				return new SearchKey(null, SearchMode.CONTAINS, cond.getMaxPrice(), afterId, limit);
+			}
+			return new SearchKey(cond.getItemName(), cond.getSearchMode(), cond.getMaxPrice(), afterId, limit);
+		}
+
+		/**
+		 * 이 조건의 검색 결과에 해당 값의 상품이 포함될 수 있는지
+		 * - 값을 알 수 없으면(null) 포함될 수 있다고 본다
+		 */
+		boolean matches(String name, Integer price) {
+			boolean nameMatches = itemName == null || name == null || searchMode.matches(name, itemName);
+			boolean priceMatches = maxPrice == null || price == null || price <= maxPrice;
+			return nameMatches && priceMatches;
+		}
+	}
+
+	private record CacheEntry(List<?> values, Set<Long> ids, long expiresAt) {
+	}
+}
@@ -0,0 +1,105 @@
+package hello.springdb2.repository.fulltext;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.util.Assert;
+
+import hello.springdb2.repository.jdbcTemplate.ItemRowMapper;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 상품명 전문 검색 (H2 FullTextLucene)
+ * 
+ * 1. 색인
+ *  - FTL_CREATE_INDEX('PUBLIC', 'ITEM', 'ITEM_NAME') -> item 테이블에 트리거(FTL_ITEM)가 생기고
+ *    insert / update / delete 마다 Lucene 색인이 함께 갱신된다
+ *  - DB 트리거이므로 어떤 경로로 쓰든(JdbcTemplate, MyBatis, JPA, 스프링 데이터 JPA, CSV 가져오기) 색인이 맞춰진다
+ *  - 색인 파일은 DB 파일 경로에 저장된다 (메모리 DB면 메모리에 저장)
+ *  - Lucene 색인은 트랜잭션에 참여하지 않는다 -> 롤백된 행의 문서가 남을 수 있어 item과 조인해서 걸러낸다
+ *  
+ * 2. 시작 시점 동기화 (initialize)
+ *  - 색인이 등록되어 있고 트리거도 살아 있으면 그대로 사용 (트리거가 계속 색인을 맞춰 왔으므로 재색인하지 않는다)
+ *  - 등록은 되어 있는데 트리거가 없으면 테이블이 다시 만들어진 것(schema.sql의 drop table)
+ *    -> 남은 문서는 이전 테이블의 id를 가리키므로 색인을 지우고 새 테이블 기준으로 다시 만든다
+ *  - 등록되어 있지 않으면 새로 만든다 (기존 행 색인)
+ *  
+ * 3. 검색 (search)
+ *  - FTL_SEARCH_DATA(query, 0, 0): 맞는 문서 키를 모두 돌려준다 (Lucene 점수(BM25))
+ *  - KEYS[1](id)로 item과 조인해 상품 전체를 한 번에 읽는다
+ *  - limit / offset은 조인 뒤에 적용한다
+ *    -> FTL_SEARCH_DATA에 넘기면 조인에서 빠지는(롤백 / 삭제된) 문서까지 세어 페이지가 짧아지고 다음 페이지 여부도 틀린다
+ *    -> 대신 맞는 문서 키는 매번 모두 읽는다 (키만 읽으므로 상품명 검색 규모에서는 충분하다)
+ *  - query는 Lucene 질의 문법 (사용자 입력은 ItemSearchService에서 이스케이프)
+ */
+@Slf4j
+public class ItemFullTextRepository {
+
+	private static final String SCHEMA = "PUBLIC";
+	private static final String TABLE = "ITEM";
+	private static final String COLUMNS = "ITEM_NAME";
+	private static final String TRIGGER = "FTL_" + TABLE;
+
+	private static final RowMapper<ItemSearchHit> hitRowMapper = ItemFullTextRepository::mapHit;
+
+	private final JdbcTemplate template;
+
+	public ItemFullTextRepository(DataSource dataSource) {
+		this.template = new JdbcTemplate(dataSource);
+	}
+
+	public void initialize() {
+		template.execute("create alias if not exists FTL_INIT for 'org.h2.fulltext.FullTextLucene.init'");
+		template.execute("call FTL_INIT()");
+
+		boolean registered = count("select count(*) from FTL.INDEXES where \"SCHEMA\" = ? and \"TABLE\" = ?",
+				SCHEMA, TABLE) > 0;
+		boolean triggerExists = count("select count(*) from information_schema.triggers "
+				+ "where trigger_schema = ? and trigger_name = ?", SCHEMA, TRIGGER) > 0;
+
+		if (registered && triggerExists) {
+			log.info("전문 검색 색인 재사용 (재색인 생략)");
+			return;
+		}
+		if (registered) {
+			log.info("item 테이블이 다시 만들어짐 -> 이전 전문 검색 색인 삭제");
+			template.update("call FTL_DROP_INDEX(?, ?)", SCHEMA, TABLE);
+		}
+		template.update("call FTL_CREATE_INDEX(?, ?, ?)", SCHEMA, TABLE, COLUMNS);
+		log.info("전문 검색 색인 생성: {}.{}({})", SCHEMA, TABLE, COLUMNS);
+	}
+
+	/**
+	 * 관련도 순 검색
+	 * @param query Lucene 질의
+	 * @param offset 건너뛸 문서 수
+	 * @param limit 최대 결과 수
+	 */
+	public List<ItemSearchHit> search(String query, int offset, int limit) {
+		Assert.isTrue(offset >= 0, "offset must not be negative");
+		Assert.isTrue(limit > 0, "limit must be positive");
+
+		String sql = "select i.id, i.item_name, i.price, i.quantity, i.version, ft.score as score "
+				+ "from FTL_SEARCH_DATA(?, 0, 0) ft "
+				+ "join item i on i.id = cast(ft.keys[1] as bigint) "
+				+ "where ft.\"TABLE\" = '" + TABLE + "' "
+				+ "order by ft.score desc, i.id "
+				+ "limit ? offset ?";
+		log.info("sql={}, query={}", sql, query);
+		return template.query(sql, hitRowMapper, query, limit, offset);
+	}
+
+	private int count(String sql, Object... args) {
+		Integer count = template.queryForObject(sql, Integer.class, args);
+		return count == null ? 0 : count;
+	}
+
+	private static ItemSearchHit mapHit(ResultSet rs, int rowNum) throws SQLException {
+		return new ItemSearchHit(ItemRowMapper.INSTANCE.mapRow(rs, rowNum), rs.getFloat("score"));
+	}
+}
@@ -0,0 +1,9 @@
+package hello.springdb2.repository.fulltext;
+
+import hello.springdb2.domain.Item;
+
+/**
+ * 전문 검색 결과 한 건 (상품 + Lucene 관련도 점수)
+ */
+public record ItemSearchHit(Item item, float score) {
+}
@@ -0,0 +1,45 @@
+package hello.springdb2.repository.jdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import hello.springdb2.domain.Item;
+
+/**
+ * ItemRowMapper (item 테이블 전용 RowMapper)
+ * 
+ * - BeanPropertyRowMapper 대신 사용하는 직접 작성한 매퍼
+ *   -> 리플렉션, 컬럼명 조회(ResultSetMetaData), 카멜 케이스 변환 없이 setter를 바로 호출
+ * - 컬럼 이름이 아니라 인덱스로 읽는다
+ *   -> 반드시 "select id, item_name, price, quantity, version" 순서로 조회해야 한다 (COLUMNS 사용)
+ * - 상태가 없으므로 하나의 인스턴스(INSTANCE)를 공유한다
+ * - getLong/getInt는 기본형으로 읽는다 (Item 필드가 Long/Integer 이므로 setter 호출 시에만 박싱)
+ */
+public final class ItemRowMapper implements RowMapper<Item> {
+
+	public static final ItemRowMapper INSTANCE = new ItemRowMapper();
+
+	public static final String COLUMNS = "id, item_name, price, quantity, version";
+
+	private static final int ID = 1;
+	private static final int ITEM_NAME = 2;
+	private static final int PRICE = 3;
+	private static final int QUANTITY = 4;
+	private static final int VERSION = 5;
+
+	private ItemRowMapper() {
+	}
+
+	@Override
+	public Item mapRow(ResultSet rs, int rowNum) throws SQLException {
+		Item item = new Item();
+		item.setId(rs.getLong(ID));
+		item.setItemName(rs.getString(ITEM_NAME));
+		item.setPrice(rs.getInt(PRICE));
+		item.setQuantity(rs.getInt(QUANTITY));
+		item.setVersion(rs.getLong(VERSION));
+		return item;
+	}
+}
@@ -1,183 +1,358 @@
-package hello.springdb2.repository.jdbcTemplate;
-
-import java.sql.PreparedStatement;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-
-import javax.sql.DataSource;
-
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.util.StringUtils;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-import lombok.extern.slf4j.Slf4j;
-
-
-/**
- * [조회]
- * 
- * - 단건 조회 (숫자 조회)
- * int rowCount = jdbcTemplate.queryForObject("select count(*) from t_actor", Integer.class);
- * 
- * - 단건 조회 (숫자 조회, 파라미터 바인딩)
- * int countOfActorsNamedJoe = jdbcTemplate.queryForObject(
- * 			"select count(*) from t_actor where first_name = ?",
- * 	 		Integer.class, 
- * 	    	"Joe");
- * 
- * - 단건 조회 (문자 조회, 파라미터 바인딩)
- * String lastName = jdbcTemplate.queryForObject(
- * 			"select last_name from t_actor where id = ?",
- * 			String.class,
- * 			111L);
- * 
- * - 단건 조회 (객체 조회, 파라미터 바인딩)
- * Actor actor = jdbcTemplate.queryForObject(
- * 			"select first_name, last_name from t_actor where id = ?",
- * 			(rs, rowNum) -> {
- * 				Actor newActor = new Actor();
- * 				newActor.setFirstName(rs.getString("first_name"));
- * 				newActor.setLastName(rs.getString("last_name"));
- * 				return newActor;
- * 			}, 
- * 			111L);
- * 
- * - 목록 조회 (객체 조회)
- * List<Actor> actorList = jdbcTemplate.query(
- * 			"select first_name, last_name from t_actor",
- * 			(rs, rowNum) -> {
- * 				Actor actor = new Actor();
- * 				actor.setFirstName(rs.getString("first_name"));
- * 				actor.setLastName(rs.getString("last_name"));
- * 				return actor;
- * 			});
- *----------------------------------------------------------------------- 
- * [변경] 
- * 
- * - INSERT
- * jdbcTemplate.update(
- * 		"insert into t_actor (first_name, last_name) values (?, ?),
- * 		"Anna Viktorovna", "Choe");
- * 
- * - UPDATE
- * jdbcTemplate.update(
- * 		"update t_actor set last_name = ? where id = ?",
- * 		"Choe", 1111L);
- * 
- * - DELETE
- * jdbcTemplate.update(
- * 		"delete from t_actor where id = ?",
- * 		Long.valueOf(actorId));
- */
-
-/**
- * JdbcTemplateItemRepositoryV1
- * - ItemRepository 인터페이스 구현체
- * - Spring JDBC의 "JdbcTemplate"을 사용해서 DB CRUD 구현
- * - JdbcTemplate은 JDBC "보일러 플레이트 코드"(try/catch, close, preparedStatement 등)를 줄여줌
- */
-
-@Slf4j
-public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
-	
-	private final JdbcTemplate template;
-	
-	public JdbcTemplateItemRepositoryV1(DataSource dataSource) {
-		this.template = new JdbcTemplate(dataSource);
-	}
-	
-	private final RowMapper<Item> itemRowMapper = (rs, rowNum) -> {
-		Item item = new Item();
-		item.setId(rs.getLong("id"));
-		item.setItemName(rs.getString("item_name"));
-		item.setPrice(rs.getInt("price"));
-		item.setQuantity(rs.getInt("quantity"));
-		return item;
-	};
-	
-	@Override
-	public Item save(Item item) {
-		String sql = "insert into item (item_name, price, quantity) values (?, ?, ?)";
-		KeyHolder keyHolder = new GeneratedKeyHolder();
-		
-		template.update(connection -> {
-			PreparedStatement ps = connection.prepareStatement(sql, new String[] {"id"});
-			ps.setString(1, item.getItemName());
-			ps.setInt(2, item.getPrice());
-			ps.setInt(3, item.getQuantity());
-			return ps;
-		}, keyHolder);
-		
-		long key = keyHolder.getKey().longValue();
-		item.setId(key);
-		return item;
-	}
-
-	@Override
-	public Optional<Item> findById(Long id) {
-		String sql = "select id, item_name, price, quantity from item where id = ?";
-		try {
-			Item item = template.queryForObject(sql, itemRowMapper, id);
-			return Optional.of(item);
-		} catch (EmptyResultDataAccessException e) {
-			return Optional.empty();
-		}
-	}
-
-	@Override
-	public List<Item> findAll(ItemSearchCond cond) {
-		String itemName = cond.getItemName();
-		Integer maxPrice = cond.getMaxPrice();
-
-		String sql = "select id, item_name, price, quantity from item";
-		// 동적 쿼리
-		if (StringUtils.hasText(itemName) || maxPrice != null) {
-			sql += " where";
-		}
-
-		boolean andFlag = false;
-		List<Object> param = new ArrayList<>();
-		if (StringUtils.hasText(itemName)) {
-			sql += " item_name like concat('%',?,'%')";
-			param.add(itemName);
-			andFlag = true;
-		}
-
-		if (maxPrice != null) {
-			if (andFlag) {
-				sql += " and";
-			}
-			sql += " price <= ?";
-			param.add(maxPrice);
-		}
-
-		log.info("sql={}", sql);
-		return template.query(sql, itemRowMapper, param.toArray());
-	}
-
-	@Override
-	public void update(Long itemId, ItemUpdateDto updateParam) {
-		String sql = "update item set item_name=?, price=?, quantity=? where id=?";
-		template.update(sql, 
-				updateParam.getItemName(),
-				updateParam.getPrice(),
-				updateParam.getQuantity(),
-				itemId);
-	}
-
-	@Override
-	public void delete(Long id) {
-		String sql = "delete from item where id = ?";
-		template.update(sql, id);
-	}
-
-
-}
+package hello.springdb2.repository.jdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * [조회]
+ * 
+ * - 단건 조회 (숫자 조회)
+ * int rowCount = jdbcTemplate.queryForObject("select count(*) from t_actor", Integer.class);
+ * 
+ * - 단건 조회 (숫자 조회, 파라미터 바인딩)
+ * int countOfActorsNamedJoe = jdbcTemplate.queryForObject(
+ * 			"select count(*) from t_actor where first_name = ?",
+ * 	 		Integer.class, 
+ * 	    	"Joe");
+ * 
+ * - 단건 조회 (문자 조회, 파라미터 바인딩)
+ * String lastName = jdbcTemplate.queryForObject(
+ * 			"select last_name from t_actor where id = ?",
+ * 			String.class,
+ * 			111L);
+ * 
+ * - 단건 조회 (객체 조회, 파라미터 바인딩)
+ * Actor actor = jdbcTemplate.queryForObject(
+ * 			"select first_name, last_name from t_actor where id = ?",
+ * 			(rs, rowNum) -> {
+ * 				Actor newActor = new Actor();
+ * 				newActor.setFirstName(rs.getString("first_name"));
+ * 				newActor.setLastName(rs.getString("last_name"));
+ * 				return newActor;
+ * 			}, 
+ * 			111L);
+ * 
+ * - 목록 조회 (객체 조회)
+ * List<Actor> actorList = jdbcTemplate.query(
+ * 			"select first_name, last_name from t_actor",
+ * 			(rs, rowNum) -> {
+ * 				Actor actor = new Actor();
+ * 				actor.setFirstName(rs.getString("first_name"));
+ * 				actor.setLastName(rs.getString("last_name"));
+ * 				return actor;
+ * 			});
+ *----------------------------------------------------------------------- 
+ * [변경] 
+ * 
+ * - INSERT
+ * jdbcTemplate.update(
+ * 		"insert into t_actor (first_name, last_name) values (?, ?),
+ * 		"Anna Viktorovna", "Choe");
+ * 
+ * - UPDATE
+ * jdbcTemplate.update(
+ * 		"update t_actor set last_name = ? where id = ?",
+ * 		"Choe", 1111L);
+ * 
+ * - DELETE
+ * jdbcTemplate.update(
+ * 		"delete from t_actor where id = ?",
+ * 		Long.valueOf(actorId));
+ */
+
+/**
+ * JdbcTemplateItemRepositoryV1
+ * - ItemRepository 인터페이스 구현체
+ * - Spring JDBC의 "JdbcTemplate"을 사용해서 DB CRUD 구현
+ * - JdbcTemplate은 JDBC "보일러 플레이트 코드"(try/catch, close, preparedStatement 등)를 줄여줌
+ */
+
+@Slf4j
+public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
+	
+	private final JdbcTemplate template;
+	private final JdbcTemplate streamTemplate;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	
+	public JdbcTemplateItemRepositoryV1(DataSource dataSource) {
+		this.template = new JdbcTemplate(dataSource);
+		this.streamTemplate = new JdbcTemplate(dataSource);
+		this.streamTemplate.setFetchSize(DEFAULT_FETCH_SIZE);
+	}
+	
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize는 0보다 커야 합니다");
+		this.batchSize = batchSize;
+	}
+	
+	public void setFetchSize(int fetchSize) {
+		Assert.isTrue(fetchSize > 0, "fetchSize는 0보다 커야 합니다");
+		this.streamTemplate.setFetchSize(fetchSize);
+	}
+	
+	private final RowMapper<Item> itemRowMapper = (rs, rowNum) -> {
+		Item item = new Item();
+		item.setId(rs.getLong("id"));
+		item.setItemName(rs.getString("item_name"));
+		item.setPrice(rs.getInt("price"));
+		item.setQuantity(rs.getInt("quantity"));
+		item.setVersion(rs.getLong("version"));
+		return item;
+	};
+	
+	@Override
+	public Item save(Item item) {
+		String sql = "insert into item (item_name, price, quantity) values (?, ?, ?)";
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		
+		template.update(connection -> {
+			PreparedStatement ps = connection.prepareStatement(sql, new String[] {"id"});
+			ps.setString(1, item.getItemName());
+			ps.setInt(2, item.getPrice());
+			ps.setInt(3, item.getQuantity());
+			return ps;
+		}, keyHolder);
+		
+		long key = keyHolder.getKey().longValue();
+		item.setId(key);
+		item.setVersion(0L);
+		return item;
+	}
+
+	/**
+	 * JdbcTemplate.batchUpdate(PreparedStatementCreator, BatchPreparedStatementSetter, KeyHolder)
+	 * - batchSize 건씩 addBatch() -> executeBatch() 로 한 번에 전송
+	 * - KeyHolder.getKeyList()에 배치 순서대로 생성된 PK가 담긴다
+	 */
+	@Override
+	public List<Item> saveAll(Collection<Item> items) {
+		String sql = "insert into item (item_name, price, quantity) values (?, ?, ?)";
+		List<Item> savedItems = new ArrayList<>(items);
+		
+		for (int from = 0; from < savedItems.size(); from += batchSize) {
+			List<Item> chunk = savedItems.subList(from, Math.min(from + batchSize, savedItems.size()));
+			KeyHolder keyHolder = new GeneratedKeyHolder();
+			
+			template.batchUpdate(connection -> connection.prepareStatement(sql, new String[] {"id"}),
+					new BatchPreparedStatementSetter() {
+						@Override
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							Item item = chunk.get(i);
+							ps.setString(1, item.getItemName());
+							ps.setInt(2, item.getPrice());
+							ps.setInt(3, item.getQuantity());
+						}
+
+						@Override
+						public int getBatchSize() {
+							return chunk.size();
+						}
+					}, keyHolder);
+			
+			List<Map<String, Object>> keys = keyHolder.getKeyList();
+			for (int i = 0; i < chunk.size(); i++) {
+				chunk.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+				chunk.get(i).setVersion(0L);
+			}
+		}
+		return savedItems;
+	}
+
+	@Override
+	public Optional<Item> findById(Long id) {
+		String sql = "select id, item_name, price, quantity, version from item where id = ?";
+		try {
+			Item item = template.queryForObject(sql, itemRowMapper, id);
+			return Optional.of(item);
+		} catch (EmptyResultDataAccessException e) {
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public List<Item> findAll(ItemSearchCond cond) {
+		List<Object> param = new ArrayList<>();
+		List<String> conditions = searchConditions(cond, param);
+
+		String sql = "select id, item_name, price, quantity, version from item" + where(conditions);
+		log.info("sql={}", sql);
+		return template.query(sql, itemRowMapper, param.toArray());
+	}
+
+	@Override
+	public List<Item> findPage(ItemSearchCond cond, Long afterId, int limit) {
+		List<Object> param = new ArrayList<>();
+		List<String> conditions = searchConditions(cond, param);
+		if (afterId != null) {
+			conditions.add("id > ?");
+			param.add(afterId);
+		}
+		param.add(limit);
+
+		String sql = "select id, item_name, price, quantity, version from item" + where(conditions)
+				+ " order by id limit ?";
+		log.info("sql={}", sql);
+		return template.query(sql, itemRowMapper, param.toArray());
+	}
+
+	/**
+	 * 스트리밍 조회
+	 * - queryForStream: ResultSet을 열어 둔 채 한 행씩 매핑 (fetch size 만큼씩 DB에서 가져온다)
+	 * - Stream을 닫아야 ResultSet과 커넥션이 반환되므로 try-with-resources 사용
+	 */
+	@Override
+	public void stream(ItemSearchCond cond, Consumer<Item> action) {
+		List<Object> param = new ArrayList<>();
+		List<String> conditions = searchConditions(cond, param);
+
+		String sql = "select id, item_name, price, quantity, version from item" + where(conditions);
+		log.info("sql={}", sql);
+		try (Stream<Item> items = streamTemplate.queryForStream(sql, itemRowMapper, param.toArray())) {
+			items.forEach(action);
+		}
+	}
+
+	/**
+	 * 동적 쿼리 - 검색 조건을 where 절 조건 목록으로 변환
+	 * - 순서 기반 바인딩이므로 조건을 추가한 순서대로 param에 값을 추가한다
+	 * - 상품명 조건은 searchMode에 따라 like(포함) / 범위 비교(시작) / 동등 비교(일치)로 만든다 (SearchMode 참고)
+	 */
+	private List<String> searchConditions(ItemSearchCond cond, List<Object> param) {
+		String itemName = cond.getItemName();
+		Integer maxPrice = cond.getMaxPrice();
+
+		List<String> conditions = new ArrayList<>();
+		if (StringUtils.hasText(itemName)) {
+			switch (cond.getSearchMode()) {
+				case PREFIX -> {
+					conditions.add("item_name >= ? and item_name < ?");
+					param.add(itemName);
+					param.add(cond.getItemNameUpperBound());
+				}
+				case EXACT -> {
+					conditions.add("item_name = ?");
+					param.add(itemName);
+				}
+				case CONTAINS -> {
+					conditions.add("item_name like concat('%',?,'%')");
+					param.add(itemName);
+				}
+			}
+		}
+
+		if (maxPrice != null) {
+			conditions.add("price <= ?");
+			param.add(maxPrice);
+		}
+		return conditions;
+	}
+
+	private String where(List<String> conditions) {
+		if (conditions.isEmpty()) {
+			return "";
+		}
+		return " where " + String.join(" and ", conditions);
+	}
+
+	/**
+	 * 낙관적 락 (조건부 수정)
+	 * - version = version + 1 로 올리면서 where id=? and version=? 으로 읽었던 버전일 때만 수정
+	 * - 0건 수정 -> 그 사이 다른 트랜잭션이 먼저 수정(또는 삭제) -> OptimisticLockingFailureException
+	 * - updateParam.version == null 이면 버전 비교 없이 수정 (버전은 그래도 올린다)
+	 * 
+	 * 부분 수정 (동적 SET 절)
+	 * - null이 아닌 필드만 SET 절에 넣는다 (검색 조건과 같은 방식: 추가한 순서대로 param에 값 추가)
+	 * - 바꿀 필드가 없으면 SQL을 실행하지 않는다
+	 */
+	@Override
+	public void update(Long itemId, ItemUpdateDto updateParam) {
+		if (!updateParam.hasChanges()) {
+			return;
+		}
+		Long version = updateParam.getVersion();
+		List<Object> param = new ArrayList<>();
+		List<String> assignments = assignments(updateParam, param);
+		
+		String sql = "update item set " + String.join(", ", assignments) + " where id=?";
+		param.add(itemId);
+		if (version != null) {
+			sql += " and version=?";
+			param.add(version);
+		}
+		
+		int updated = template.update(sql, param.toArray());
+		if (updated == 0 && version != null) {
+			throw new OptimisticLockingFailureException(
+					"상품이 없거나 다른 사용자가 먼저 수정했습니다. itemId=" + itemId + ", version=" + version);
+		}
+	}
+	
+	private List<String> assignments(ItemUpdateDto updateParam, List<Object> param) {
+		List<String> assignments = new ArrayList<>();
+		if (updateParam.getItemName() != null) {
+			assignments.add("item_name=?");
+			param.add(updateParam.getItemName());
+		}
+		if (updateParam.getPrice() != null) {
+			assignments.add("price=?");
+			param.add(updateParam.getPrice());
+		}
+		if (updateParam.getQuantity() != null) {
+			assignments.add("quantity=?");
+			param.add(updateParam.getQuantity());
+		}
+		assignments.add("version=version+1");
+		return assignments;
+	}
+
+	/**
+	 * 재고 차감: where 절의 quantity >= ? 조건으로 음수 재고를 막는다 (행 잠금은 UPDATE 한 문장 동안만)
+	 */
+	@Override
+	public boolean decrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		String sql = "update item set quantity=quantity-?, version=version+1 where id=? and quantity>=?";
+		return template.update(sql, amount, itemId, amount) == 1;
+	}
+
+	@Override
+	public boolean incrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		String sql = "update item set quantity=quantity+?, version=version+1 where id=?";
+		return template.update(sql, amount, itemId) == 1;
+	}
+
+	@Override
+	public void delete(Long id) {
+		String sql = "delete from item where id = ?";
+		template.update(sql, id);
+	}
+
+
+}
@@ -1,139 +1,287 @@
-package hello.springdb2.repository.jdbcTemplate;
-
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-
-import javax.sql.DataSource;
-
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
-import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.namedparam.SqlParameterSource;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.util.StringUtils;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-import lombok.extern.slf4j.Slf4j;
-
-@Slf4j
-public class JdbcTemplateItemRepositoryV3 implements ItemRepository {
-	
-	private final NamedParameterJdbcTemplate template;
-	private final SimpleJdbcInsert jdbcInsert;
-	
-	public JdbcTemplateItemRepositoryV3(DataSource dataSource) {
-		this.template = new NamedParameterJdbcTemplate(dataSource);
-		this.jdbcInsert = new SimpleJdbcInsert(dataSource)
-				.withTableName("item") // 테이블 네임
-				.usingGeneratedKeyColumns("id") // PK 컬럼지정
-				.usingColumns("item_name", "price", "quantity");
-	}
-	
-	/**
-	 * RowMapper<Item>: ResultSet → Item 객체 변환기
-	 * BeanPropertyRowMapper: DB 컬럼명과 객체 필드명을 자동 매핑
-	 *  -> item_name → itemName (카멜 케이스 자동변환 지원)
-	 */
-	private RowMapper<Item> itemRowMapper() {
-		return BeanPropertyRowMapper.newInstance(Item.class);
-	}
-	
-	@Override
-	public Item save(Item item) {
-		
-		/**
-		 * BeanPropertySqlParameterSource(item) 
-		 * 	-> item.getItemName(), getPrice(), getQuantity()를 자동으로 매핑.
-		 * 
-		 * KeyHolder
-		 *  -> DB가 생성한 PK(id) 값을 받아옴
-		 */
-		SqlParameterSource param = new BeanPropertySqlParameterSource(item);
-		Number key = jdbcInsert.executeAndReturnKey(param);
-		item.setId(key.longValue());
-		return item;
-	}
-
-	@Override
-	public Optional<Item> findById(Long id) {
-		String sql = "select id, item_name, price, quantity from item where id = :id";
-		try {
-			/**
-			 * - :id 파라미터를 Map.of("id", id)로 전달
-			 * - queryForObject -> 결과가 반드시 1건일 때 사용.
-			 */
-			Map<String, Object> paramMap = Map.of("id", id);
-			Item item = template.queryForObject(sql, paramMap, itemRowMapper());
-			return Optional.of(item);
-		} catch (EmptyResultDataAccessException e) {
-			return Optional.empty();
-		}
-	}
-
-	@Override
-	public List<Item> findAll(ItemSearchCond cond) {
-		String itemName = cond.getItemName();
-		Integer maxPrice = cond.getMaxPrice();
-
-		/**
-		 * BeanPropertySqlParameterSource(cond)
-		 * 	-> cond.getItemName(), getMaxPrice()를 SQL의 :itemName, :maxPrice에 자동 바인딩.
-		 */
-		SqlParameterSource param = new BeanPropertySqlParameterSource(cond);
-		
-		String sql = "select id, item_name, price, quantity from item";
-		// 동적 쿼리
-		if (StringUtils.hasText(itemName) || maxPrice != null) {
-			sql += " where";
-		}
-
-		boolean andFlag = false;
-		if (StringUtils.hasText(itemName)) {
-			sql += " item_name like concat('%',:itemName,'%')";
-			andFlag = true;
-		}
-
-		if (maxPrice != null) {
-			if (andFlag) {
-				sql += " and";
-			}
-			sql += " price <= :maxPrice";
-		}
-
-		log.info("sql={}", sql);
-		return template.query(sql, param, itemRowMapper());
-	}
-
-	@Override
-	public void update(Long itemId, ItemUpdateDto updateParam) {
-		String sql = "update item " + 
-					 "set item_name=:itemName, price=:price, quantity=:quantity " + 
-				     "where id=:id";
-		
-		SqlParameterSource paramMap = new MapSqlParameterSource()
-					.addValue("itemName", updateParam.getItemName())
-					.addValue("price", updateParam.getPrice())
-					.addValue("quantity", updateParam.getQuantity())
-					.addValue("id", itemId);
-		
-		template.update(sql, paramMap);
-	}
-
-	public NamedParameterJdbcTemplate getJdbcTemplate() {
-		return template;
-	}
-
-	@Override
-	public void delete(Long id) {
-		String sql = "delete from item where id = :id";
-		template.update(sql, Map.of("id", id));
-	}
-	
-}
+package hello.springdb2.repository.jdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class JdbcTemplateItemRepositoryV3 implements ItemRepository {
+	
+	private final NamedParameterJdbcTemplate template;
+	private final NamedParameterJdbcTemplate streamTemplate;
+	private final SimpleJdbcInsert jdbcInsert;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	
+	public JdbcTemplateItemRepositoryV3(DataSource dataSource) {
+		this.template = new NamedParameterJdbcTemplate(dataSource);
+		JdbcTemplate fetchSizeTemplate = new JdbcTemplate(dataSource);
+		fetchSizeTemplate.setFetchSize(DEFAULT_FETCH_SIZE);
+		this.streamTemplate = new NamedParameterJdbcTemplate(fetchSizeTemplate);
+		this.jdbcInsert = new SimpleJdbcInsert(dataSource)
+				.withTableName("item") // 테이블 네임
+				.usingGeneratedKeyColumns("id") // PK 컬럼지정
+				.usingColumns("item_name", "price", "quantity");
+	}
+	
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize는 0보다 커야 합니다");
+		this.batchSize = batchSize;
+	}
+	
+	public void setFetchSize(int fetchSize) {
+		Assert.isTrue(fetchSize > 0, "fetchSize는 0보다 커야 합니다");
+		this.streamTemplate.getJdbcTemplate().setFetchSize(fetchSize);
+	}
+	
+	/**
+	 * RowMapper<Item>: ResultSet → Item 객체 변환기
+	 * - 예전에는 조회마다 BeanPropertyRowMapper.newInstance(Item.class)를 생성했다 (리플렉션 + 컬럼명 조회)
+	 * - ItemRowMapper: 인덱스로 읽는 공유 인스턴스 (select 컬럼 순서는 ItemRowMapper.COLUMNS)
+	 */
+	private final RowMapper<Item> itemRowMapper = ItemRowMapper.INSTANCE;
+	
+	@Override
+	public Item save(Item item) {
+		
+		/**
+		 * BeanPropertySqlParameterSource(item) 
+		 * 	-> item.getItemName(), getPrice(), getQuantity()를 자동으로 매핑.
+		 * 
+		 * KeyHolder
+		 *  -> DB가 생성한 PK(id) 값을 받아옴
+		 */
+		SqlParameterSource param = new BeanPropertySqlParameterSource(item);
+		Number key = jdbcInsert.executeAndReturnKey(param);
+		item.setId(key.longValue());
+		item.setVersion(0L);
+		return item;
+	}
+
+	/**
+	 * SqlParameterSourceUtils.createBatch(chunk)
+	 * 	-> Item 목록을 BeanPropertySqlParameterSource[] 로 변환 (:itemName, :price, :quantity 바인딩)
+	 * - SimpleJdbcInsert.executeBatch()는 생성된 PK를 돌려주지 않으므로
+	 *   NamedParameterJdbcTemplate.batchUpdate(sql, batchArgs, keyHolder, keyColumnNames)를 사용한다
+	 * - batchSize 건씩 나누어 전송, KeyHolder.getKeyList()에 배치 순서대로 생성된 PK가 담긴다
+	 */
+	@Override
+	public List<Item> saveAll(Collection<Item> items) {
+		String sql = "insert into item (item_name, price, quantity) " +
+					 "values (:itemName, :price, :quantity)";
+		List<Item> savedItems = new ArrayList<>(items);
+		
+		for (int from = 0; from < savedItems.size(); from += batchSize) {
+			List<Item> chunk = savedItems.subList(from, Math.min(from + batchSize, savedItems.size()));
+			KeyHolder keyHolder = new GeneratedKeyHolder();
+			
+			template.batchUpdate(sql, SqlParameterSourceUtils.createBatch(chunk), keyHolder, "id");
+			
+			List<Map<String, Object>> keys = keyHolder.getKeyList();
+			for (int i = 0; i < chunk.size(); i++) {
+				chunk.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+				chunk.get(i).setVersion(0L);
+			}
+		}
+		return savedItems;
+	}
+
+	@Override
+	public Optional<Item> findById(Long id) {
+		String sql = "select " + ItemRowMapper.COLUMNS + " from item where id = :id";
+		try {
+			/**
+			 * - :id 파라미터를 Map.of("id", id)로 전달
+			 * - queryForObject -> 결과가 반드시 1건일 때 사용.
+			 */
+			Map<String, Object> paramMap = Map.of("id", id);
+			Item item = template.queryForObject(sql, paramMap, itemRowMapper);
+			return Optional.of(item);
+		} catch (EmptyResultDataAccessException e) {
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public List<Item> findAll(ItemSearchCond cond) {
+		/**
+		 * BeanPropertySqlParameterSource(cond)
+		 * 	-> cond.getItemName(), getMaxPrice()를 SQL의 :itemName, :maxPrice에 자동 바인딩.
+		 */
+		SqlParameterSource param = new BeanPropertySqlParameterSource(cond);
+		
+		String sql = "select " + ItemRowMapper.COLUMNS + " from item" + where(searchConditions(cond));
+		log.info("sql={}", sql);
+		return template.query(sql, param, itemRowMapper);
+	}
+
+	/**
+	 * 스트리밍 조회 (fetch size 만큼씩 가져오며 한 행씩 매핑)
+	 * - Stream을 닫아야 ResultSet과 커넥션이 반환되므로 try-with-resources 사용
+	 */
+	@Override
+	public void stream(ItemSearchCond cond, Consumer<Item> action) {
+		SqlParameterSource param = new BeanPropertySqlParameterSource(cond);
+		
+		String sql = "select " + ItemRowMapper.COLUMNS + " from item" + where(searchConditions(cond));
+		log.info("sql={}", sql);
+		try (Stream<Item> items = streamTemplate.queryForStream(sql, param, itemRowMapper)) {
+			items.forEach(action);
+		}
+	}
+
+	/**
+	 * 키셋 페이징
+	 * - cond에 없는 afterId, limit 까지 바인딩해야 하므로 MapSqlParameterSource 사용
+	 */
+	@Override
+	public List<Item> findPage(ItemSearchCond cond, Long afterId, int limit) {
+		SqlParameterSource param = new MapSqlParameterSource()
+				.addValue("itemName", cond.getItemName())
+				.addValue("itemNameUpperBound", cond.getItemNameUpperBound())
+				.addValue("maxPrice", cond.getMaxPrice())
+				.addValue("afterId", afterId)
+				.addValue("limit", limit);
+		
+		List<String> conditions = searchConditions(cond);
+		if (afterId != null) {
+			conditions.add("id > :afterId");
+		}
+		
+		String sql = "select " + ItemRowMapper.COLUMNS + " from item" + where(conditions)
+				+ " order by id limit :limit";
+		log.info("sql={}", sql);
+		return template.query(sql, param, itemRowMapper);
+	}
+
+	/**
+	 * 동적 쿼리 - 검색 조건을 where 절 조건 목록으로 변환
+	 * - 이름 기반 바인딩이므로 조건 순서와 파라미터 순서를 맞출 필요가 없다
+	 * - 상품명 조건은 searchMode에 따라 like(포함) / 범위 비교(시작) / 동등 비교(일치)로 만든다 (SearchMode 참고)
+	 */
+	private List<String> searchConditions(ItemSearchCond cond) {
+		List<String> conditions = new ArrayList<>();
+		if (StringUtils.hasText(cond.getItemName())) {
+			conditions.add(switch (cond.getSearchMode()) {
+				case PREFIX -> "item_name >= :itemName and item_name < :itemNameUpperBound";
+				case EXACT -> "item_name = :itemName";
+				case CONTAINS -> "item_name like concat('%',:itemName,'%')";
+			});
+		}
+		if (cond.getMaxPrice() != null) {
+			conditions.add("price <= :maxPrice");
+		}
+		return conditions;
+	}
+
+	private String where(List<String> conditions) {
+		if (conditions.isEmpty()) {
+			return "";
+		}
+		return " where " + String.join(" and ", conditions);
+	}
+
+	/**
+	 * 낙관적 락 (조건부 수정)
+	 * - version = version + 1 로 올리면서 where id=:id and version=:version 으로 읽었던 버전일 때만 수정
+	 * - 0건 수정 -> 그 사이 다른 트랜잭션이 먼저 수정(또는 삭제) -> OptimisticLockingFailureException
+	 * - updateParam.version == null 이면 버전 비교 없이 수정 (버전은 그래도 올린다)
+	 * 
+	 * 부분 수정 (동적 SET 절)
+	 * - null이 아닌 필드만 SET 절에 넣는다 (이름 기반 바인딩이라 파라미터는 모두 넣어 두고 SQL만 조립)
+	 * - 바꿀 필드가 없으면 SQL을 실행하지 않는다
+	 */
+	@Override
+	public void update(Long itemId, ItemUpdateDto updateParam) {
+		if (!updateParam.hasChanges()) {
+			return;
+		}
+		Long version = updateParam.getVersion();
+		String sql = "update item " + 
+					 "set " + String.join(", ", assignments(updateParam)) + " " + 
+				     "where id=:id" + (version != null ? " and version=:version" : "");
+		
+		SqlParameterSource paramMap = new MapSqlParameterSource()
+					.addValue("itemName", updateParam.getItemName())
+					.addValue("price", updateParam.getPrice())
+					.addValue("quantity", updateParam.getQuantity())
+					.addValue("id", itemId)
+					.addValue("version", version);
+		
+		int updated = template.update(sql, paramMap);
+		if (updated == 0 && version != null) {
+			throw new OptimisticLockingFailureException(
+					"상품이 없거나 다른 사용자가 먼저 수정했습니다. itemId=" + itemId + ", version=" + version);
+		}
+	}
+	
+	private List<String> assignments(ItemUpdateDto updateParam) {
+		List<String> assignments = new ArrayList<>();
+		if (updateParam.getItemName() != null) {
+			assignments.add("item_name=:itemName");
+		}
+		if (updateParam.getPrice() != null) {
+			assignments.add("price=:price");
+		}
+		if (updateParam.getQuantity() != null) {
+			assignments.add("quantity=:quantity");
+		}
+		assignments.add("version=version+1");
+		return assignments;
+	}
+
+	public NamedParameterJdbcTemplate getJdbcTemplate() {
+		return template;
+	}
+
+	/**
+	 * 재고 차감: where 절의 quantity >= :amount 조건으로 음수 재고를 막는다 (행 잠금은 UPDATE 한 문장 동안만)
+	 */
+	@Override
+	public boolean decrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		String sql = "update item set quantity=quantity-:amount, version=version+1 " +
+					 "where id=:id and quantity>=:amount";
+		return template.update(sql, Map.of("id", itemId, "amount", amount)) == 1;
+	}
+
+	@Override
+	public boolean incrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		String sql = "update item set quantity=quantity+:amount, version=version+1 where id=:id";
+		return template.update(sql, Map.of("id", itemId, "amount", amount)) == 1;
+	}
+
+	@Override
+	public void delete(Long id) {
+		String sql = "delete from item where id = :id";
+		template.update(sql, Map.of("id", id));
+	}
+	
+}
@@ -0,0 +1,51 @@
+package hello.springdb2.repository.jpa;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.util.Assert;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * 재고 증감 벌크 UPDATE (JpaItemRepositoryV1 / JpaItemRepositoryV3 공용)
+ *
+ * - 조회 후 수정하지 않고 SQL UPDATE 한 문장 (ItemRepository.decrementQuantity 참고)
+ * - 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 실행 전 flush, 실행 후 clear
+ *   (스프링 데이터 JPA의 @Modifying(flushAutomatically = true, clearAutomatically = true)와 같음)
+ * - JPQL 대신 네이티브 SQL + query space(ItemSecondLevelCache.BULK_UPDATE_SPACE)
+ *   -> JPQL 벌크 연산은 2차 캐시의 item 영역 전체를 비우므로, 바꾼 상품 한 건만 비운다 (ItemSecondLevelCache 참고)
+ * - JpaItemRepositoryV2는 같은 SQL을 SpringDataJpaItemRepository의 @Query로 실행한다
+ */
+final class ItemQuantityUpdates {
+
+	private static final String DECREMENT_SQL = "update item set quantity = quantity - :amount, version = version + 1 " +
+												"where id = :id and quantity >= :amount";
+	private static final String INCREMENT_SQL = "update item set quantity = quantity + :amount, version = version + 1 " +
+												"where id = :id";
+
+	private ItemQuantityUpdates() {
+	}
+
+	static boolean decrement(EntityManager entityManager, Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		return execute(entityManager, DECREMENT_SQL, itemId, amount);
+	}
+
+	static boolean increment(EntityManager entityManager, Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		return execute(entityManager, INCREMENT_SQL, itemId, amount);
+	}
+
+	private static boolean execute(EntityManager entityManager, String sql, Long itemId, int amount) {
+		entityManager.flush();
+		int updated = entityManager.createNativeQuery(sql)
+				.setParameter("id", itemId)
+				.setParameter("amount", amount)
+				.setHint(HibernateHints.HINT_NATIVE_SPACES, ItemSecondLevelCache.BULK_UPDATE_SPACE)
+				.executeUpdate();
+		entityManager.clear();
+		if (updated == 1) {
+			ItemSecondLevelCache.evictAfterQuantityUpdate(entityManager, itemId);
+		}
+		return updated == 1;
+	}
+}
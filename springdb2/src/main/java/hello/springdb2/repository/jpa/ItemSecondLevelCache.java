@@ -0,0 +1,135 @@
+package hello.springdb2.repository.jpa;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import hello.springdb2.domain.Item;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Item 2차 캐시 영역 관리 (JpaSecondLevelCacheConfig에서 등록)
+ *
+ * 1. 영역(region)
+ *  - ITEM_REGION: Item 엔티티 (Item의 @Cache, id -> 컬럼 값)
+ *  - QUERY_REGION: Querydsl 목록 조회 결과 (ReadOnlyQueries가 읽기 전용 트랜잭션의 조회에만 지정)
+ *    -> 엔티티 결과는 id 목록만 저장하고 엔티티는 ITEM_REGION에서 꺼낸다
+ *    -> item 테이블을 Hibernate로 수정하면(벌크 UPDATE 포함) 그 이전에 저장한 결과는 쓰지 않는다 (timestamps 영역)
+ *
+ * 2. 영역 단위 비우기
+ *  - JdbcTemplate / MyBatis 등 Hibernate를 거치지 않고 item 테이블을 수정한 뒤 호출한다
+ *  - 엔티티 영역을 비우면 조회 결과 영역도 함께 비운다
+ *    (id만 남은 조회 결과가 적중하면 엔티티를 한 건씩 다시 SELECT 하므로)
+ *
+ * 3. 벌크 UPDATE (재고 차감 / 증가, 벌크 수정)
+ *  - Hibernate는 JPQL 벌크 UPDATE 뒤에 item 엔티티 영역 전체와 item 테이블 조회 결과를 모두 무효화한다
+ *    -> 재고 차감 한 번, 지연 쓰기 플러시 한 번마다 캐시 전체가 비워진다
+ *  - 그래서 JPA 리포지토리의 벌크 UPDATE는 네이티브 SQL + query space BULK_UPDATE_SPACE로 실행한다
+ *    -> item이 아닌 query space라 Hibernate는 아무 영역도 비우지 않고, 그 상품 한 건만 직접 비운다
+ *  - 재고 증감 (evictAfterQuantityUpdate): 엔티티 한 건만, QUERY_REGION은 그대로
+ *    -> 엔티티 결과는 id 목록이라 적중해도 비운 엔티티는 DB에서 다시 읽는다, 상품명 / 가격이 그대로라 id 목록도 그대로
+ *    -> DTO 프로젝션(findListPage의 ItemListRow.quantity)만 최대 item.jpa.cache.query.ttl 동안 옛 재고를 보여줄 수 있다
+ *  - 벌크 수정 (evictAfterBulkUpdate, JpaItemRepositoryV2 BULK): 엔티티 한 건 + QUERY_REGION
+ *    -> 상품명 / 가격이 바뀌면 어느 결과의 id 목록이 달라질지 고를 수 없다
+ *
+ * 4. 통계: 영역별 적중 / 미적중 / 저장 횟수 (hibernate.generate_statistics=true 일 때만 쌓인다)
+ */
+public class ItemSecondLevelCache {
+
+	public static final String ITEM_REGION = "item";
+	public static final String QUERY_REGION = "item-query";
+
+	/**
+	 * 네이티브 벌크 UPDATE에 지정하는 query space (HibernateHints.HINT_NATIVE_SPACES)
+	 * - 지정하지 않으면 Hibernate는 모든 영역을 비운다
+	 */
+	public static final String BULK_UPDATE_SPACE = "item_bulk_update";
+
+	private final Cache cache;
+	private final Statistics statistics;
+
+	public ItemSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+		SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+		this.cache = sessionFactory.getCache();
+		this.statistics = sessionFactory.getStatistics();
+	}
+
+	public boolean contains(Long itemId) {
+		return cache.containsEntity(Item.class, itemId);
+	}
+
+	public void evictItem(Long itemId) {
+		cache.evictEntityData(Item.class, itemId);
+		cache.evictQueryRegion(QUERY_REGION);
+	}
+
+	public void evictItems() {
+		cache.evictEntityData(Item.class);
+		cache.evictQueryRegion(QUERY_REGION);
+	}
+
+	public void evictQueries() {
+		cache.evictQueryRegion(QUERY_REGION);
+	}
+
+	/**
+	 * 재고 증감 벌크 UPDATE 뒤: 그 상품의 엔티티만 비운다 (3. 벌크 UPDATE 참고)
+	 */
+	public static void evictAfterQuantityUpdate(EntityManager entityManager, Long itemId) {
+		evictNowAndAfterCompletion(entityManager, cache -> cache.evictEntityData(Item.class, itemId));
+	}
+
+	/**
+	 * 상품명 / 가격까지 바꾸는 벌크 UPDATE 뒤: 그 상품의 엔티티 + 조회 결과 영역
+	 */
+	public static void evictAfterBulkUpdate(EntityManager entityManager, Long itemId) {
+		evictNowAndAfterCompletion(entityManager, cache -> {
+			cache.evictEntityData(Item.class, itemId);
+			cache.evictQueryRegion(QUERY_REGION);
+		});
+	}
+
+	/**
+	 * 지금 한 번 + 트랜잭션 종료 후 한 번 더 (2차 캐시가 꺼져 있으면 아무것도 하지 않는다)
+	 * -> 커밋 전에 다른 트랜잭션이 옛 값을 다시 캐시에 올려도 종료 시점에 지워진다
+	 */
+	private static void evictNowAndAfterCompletion(EntityManager entityManager, Consumer<Cache> eviction) {
+		Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+		eviction.accept(cache);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					eviction.accept(cache);
+				}
+			});
+		}
+	}
+
+	public SecondLevelCacheStats getItemStats() {
+		return toStats(ITEM_REGION, statistics.getDomainDataRegionStatistics(ITEM_REGION));
+	}
+
+	public SecondLevelCacheStats getQueryStats() {
+		return toStats(QUERY_REGION, statistics.getQueryRegionStatistics(QUERY_REGION));
+	}
+
+	public List<SecondLevelCacheStats> getStats() {
+		return List.of(getItemStats(), getQueryStats());
+	}
+
+	private static SecondLevelCacheStats toStats(String region, CacheRegionStatistics regionStatistics) {
+		if (regionStatistics == null) {
+			return new SecondLevelCacheStats(region, 0, 0, 0);
+		}
+		return new SecondLevelCacheStats(region, regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+				regionStatistics.getPutCount());
+	}
+}
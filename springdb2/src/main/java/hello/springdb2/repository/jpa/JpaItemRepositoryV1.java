@@ -1,148 +1,249 @@
-package hello.springdb2.repository.jpa;
-
-import java.util.List;
-import java.util.Optional;
-
-import org.springframework.util.StringUtils;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.TypedQuery;
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-
-/**
- * JPA 적용 원리 및 JpaItemRepository 매서드 동작 분석
- * 
- * 1. EntityManager
- * - JPA의 모든 동작은 EntityManager를 통해 수행됨
- * - EntityManager는 내부적으로 DataSource를 가지고 있으며 데이터베이스에 직접 접근할 수 있음
- * - 스프링에서는 생성자 주입(Constructor Injection)을 통해 EntityManager를 제공
- * 
- * 예시: 
- * private final EntityManager em;
- * public JpaItemRepositoryV1(EntityManager em) { this.em = em;}
- * 
- * 참고: Spring Boot는 EntityManagerFactory, JpaTransactionManager 등
- *      JPA 설정을 자동을 설정함
- * 
- * 2. 트랜잭션 처리 : @Transactional
- * - JPA에서 데이터 변경(등록, 수정, 삭제)는 데이터 일관성과 성능을 위해
- *   반드시 트랜잭션 안에서 이루어져야 한다. 일반적으로 트랜잭션은 서비스 계층에서 선언한다.
- * -----------------------------------------------------------------------
- * 예외 변환(Exception Translation) - JPA
- *
- * 1. 문제 상황
- *    - JPA(EntityManager)를 사용하면 내부에서 문제가 발생했을 때
- *      JPA 전용 예외(PersistenceException 및 하위 예외)를 던짐.
- *    - 예: em.persist(item) 수행 시 DB 오류 발생 → PersistenceException 발생.
- *    - 이러한 예외들은 스프링의 공통 예외 계층(DataAccessException)과 다름.
- *    - 결과적으로 서비스 계층에서 일관된 예외 처리가 어려움.
- *
- * 2. 스프링의 해결책
- *    - 스프링은 PersistenceExceptionTranslator를 통해
- *      JPA 예외를 DataAccessException으로 변환하는 기능 제공.
- *    - 이를 "예외 변환(Exception Translation)"이라고 함.
- *
- * 3. 동작 과정
- *    1) @Repository 애노테이션 사용
- *       - 스프링에게 해당 클래스가 데이터 접근 계층임을 알림.
- *       - 예외 변환 AOP 대상이 됨.
- *
- *    2) AOP 프록시 생성
- *       - 스프링이 자동으로 리포지토리 클래스에 프록시를 생성.
- *       - 메서드 호출 시 예외를 가로챔.
- *
- *    3) 예외 변환 수행
- *       - JPA 예외 → 스프링 DataAccessException 변환.
- *       - 내부적으로 EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible() 사용.
- *
- *    4) 일관된 예외 처리 가능
- *       - 서비스 계층에서 JPA인지 JDBC인지 구분 없이 동일하게 처리 가능.
- *
- * 4. 스프링 부트 지원
- *    - PersistenceExceptionTranslationPostProcessor를 자동 등록.
- *    - @Repository가 붙은 클래스에 자동으로 예외 변환 기능 적용.
- *
- * @Repository를 사용하면 JPA 예외를 자동으로 스프링 DataAccessException으로 변환하여
- * 예외 처리를 일관되고 기술에 독립적으로 할 수 있습니다.
- */
-
-@Slf4j
-@Transactional
-@RequiredArgsConstructor
-public class JpaItemRepositoryV1 implements ItemRepository {
-
-	private final EntityManager entityManager;
-	
-	@Override
-	public Item save(Item item) {
-		entityManager.persist(item);
-		return item;
-	}
-
-	@Override
-	public Optional<Item> findById(Long id) {
-		Item item = entityManager.find(Item.class, id);
-		return Optional.ofNullable(item);
-	}
-
-	@Override
-	public List<Item> findAll(ItemSearchCond cond) {
-		String jpql = "select i from Item i";
-		boolean hasCondition = false;
-		
-		String itemName = cond.getItemName();
-		Integer maxPrice = cond.getMaxPrice();
-
-		if (StringUtils.hasText(itemName) || maxPrice != null) {
-			jpql += " where";
-		}
-
-		if (StringUtils.hasText(itemName)) {
-			jpql += " i.itemName like concat('%', :itemName, '%')";
-			hasCondition = true;
-		}
-
-		if (maxPrice != null) {
-			if (hasCondition) {
-				jpql += " and";
-			} else {
-				jpql += " i.price <= :maxPrice";
-			}
-		}
-
-		log.info("JPQL = {}, itemName = {}, maxPrice = {}", jpql, itemName, maxPrice);
-
-		TypedQuery<Item> query = entityManager.createQuery(jpql, Item.class);
-		
-		if (StringUtils.hasText(itemName)) {
-			query.setParameter("itemName", itemName);
-		}
-		
-		if(maxPrice != null) {
-			query.setParameter("maxPrice", maxPrice);
-		}
-		
-		return query.getResultList();
-	}
-
-	@Override
-	public void update(Long itemId, ItemUpdateDto updateParam) {
-		Item findItem = entityManager.find(Item.class, itemId);
-		findItem.setItemName(updateParam.getItemName());
-		findItem.setPrice(updateParam.getPrice());
-		findItem.setQuantity(updateParam.getQuantity());
-	}
-
-	@Override
-	public void delete(Long id) {
-		Item item =  entityManager.find(Item.class, id);
-		entityManager.remove(item);
-	}
-
-}
+package hello.springdb2.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.SearchMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JPA 적용 원리 및 JpaItemRepository 매서드 동작 분석
+ * 
+ * 1. EntityManager
+ * - JPA의 모든 동작은 EntityManager를 통해 수행됨
+ * - EntityManager는 내부적으로 DataSource를 가지고 있으며 데이터베이스에 직접 접근할 수 있음
+ * - 스프링에서는 생성자 주입(Constructor Injection)을 통해 EntityManager를 제공
+ * 
+ * 예시: 
+ * private final EntityManager em;
+ * public JpaItemRepositoryV1(EntityManager em) { this.em = em;}
+ * 
+ * 참고: Spring Boot는 EntityManagerFactory, JpaTransactionManager 등
+ *      JPA 설정을 자동을 설정함
+ * 
+ * 2. 트랜잭션 처리 : @Transactional
+ * - JPA에서 데이터 변경(등록, 수정, 삭제)는 데이터 일관성과 성능을 위해
+ *   반드시 트랜잭션 안에서 이루어져야 한다. 일반적으로 트랜잭션은 서비스 계층에서 선언한다.
+ * -----------------------------------------------------------------------
+ * 예외 변환(Exception Translation) - JPA
+ *
+ * 1. 문제 상황
+ *    - JPA(EntityManager)를 사용하면 내부에서 문제가 발생했을 때
+ *      JPA 전용 예외(PersistenceException 및 하위 예외)를 던짐.
+ *    - 예: em.persist(item) 수행 시 DB 오류 발생 → PersistenceException 발생.
+ *    - 이러한 예외들은 스프링의 공통 예외 계층(DataAccessException)과 다름.
+ *    - 결과적으로 서비스 계층에서 일관된 예외 처리가 어려움.
+ *
+ * 2. 스프링의 해결책
+ *    - 스프링은 PersistenceExceptionTranslator를 통해
+ *      JPA 예외를 DataAccessException으로 변환하는 기능 제공.
+ *    - 이를 "예외 변환(Exception Translation)"이라고 함.
+ *
+ * 3. 동작 과정
+ *    1) @Repository 애노테이션 사용
+ *       - 스프링에게 해당 클래스가 데이터 접근 계층임을 알림.
+ *       - 예외 변환 AOP 대상이 됨.
+ *
+ *    2) AOP 프록시 생성
+ *       - 스프링이 자동으로 리포지토리 클래스에 프록시를 생성.
+ *       - 메서드 호출 시 예외를 가로챔.
+ *
+ *    3) 예외 변환 수행
+ *       - JPA 예외 → 스프링 DataAccessException 변환.
+ *       - 내부적으로 EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible() 사용.
+ *
+ *    4) 일관된 예외 처리 가능
+ *       - 서비스 계층에서 JPA인지 JDBC인지 구분 없이 동일하게 처리 가능.
+ *
+ * 4. 스프링 부트 지원
+ *    - PersistenceExceptionTranslationPostProcessor를 자동 등록.
+ *    - @Repository가 붙은 클래스에 자동으로 예외 변환 기능 적용.
+ *
+ * @Repository를 사용하면 JPA 예외를 자동으로 스프링 DataAccessException으로 변환하여
+ * 예외 처리를 일관되고 기술에 독립적으로 할 수 있습니다.
+ */
+
+@Slf4j
+@Transactional
+@RequiredArgsConstructor
+public class JpaItemRepositoryV1 implements ItemRepository {
+
+	private final EntityManager entityManager;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize는 0보다 커야 합니다");
+		this.batchSize = batchSize;
+	}
+	
+	@Override
+	public Item save(Item item) {
+		entityManager.persist(item);
+		return item;
+	}
+
+	/**
+	 * 대량 저장
+	 * - persist()된 엔티티는 영속성 컨텍스트(1차 캐시)에 계속 쌓인다
+	 * - batchSize 마다 flush()로 INSERT를 내보내고 clear()로 컨텍스트를 비워 메모리 사용량을 일정하게 유지
+	 * - clear() 이후 반환된 Item들은 준영속(detached) 상태
+	 */
+	@Override
+	public List<Item> saveAll(Collection<Item> items) {
+		List<Item> savedItems = new ArrayList<>(items.size());
+		for (Item item : items) {
+			entityManager.persist(item);
+			savedItems.add(item);
+			if (savedItems.size() % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		return savedItems;
+	}
+
+	@Override
+	public Optional<Item> findById(Long id) {
+		Item item = entityManager.find(Item.class, id);
+		return Optional.ofNullable(item);
+	}
+
+	@Override
+	public List<Item> findAll(ItemSearchCond cond) {
+		return createSearchQuery(cond, null, "").getResultList();
+	}
+
+	@Override
+	public List<Item> findPage(ItemSearchCond cond, Long afterId, int limit) {
+		return createSearchQuery(cond, afterId, " order by i.id")
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	/**
+	 * getResultStream(): Hibernate가 ScrollableResults로 한 행씩 읽는다
+	 * - HINT_FETCH_SIZE: JDBC fetch size, HINT_READ_ONLY: 변경 감지용 스냅샷을 만들지 않는다
+	 * - action에 넘긴 뒤 detach -> 영속성 컨텍스트가 결과 크기만큼 커지지 않는다
+	 */
+	@Override
+	public void stream(ItemSearchCond cond, Consumer<Item> action) {
+		TypedQuery<Item> query = createSearchQuery(cond, null, "")
+				.setHint(HibernateHints.HINT_FETCH_SIZE, DEFAULT_FETCH_SIZE)
+				.setHint(HibernateHints.HINT_READ_ONLY, true);
+		
+		try (Stream<Item> items = query.getResultStream()) {
+			items.forEach(item -> {
+				action.accept(item);
+				entityManager.detach(item);
+			});
+		}
+	}
+
+	/**
+	 * 동적 JPQL 생성
+	 * - 조건을 목록으로 모은 뒤 " and "로 이어 붙인다
+	 * - 파라미터는 JPQL에 추가한 조건에 대해서만 바인딩 (없는 파라미터를 바인딩하면 예외)
+	 * - 상품명 조건은 searchMode에 따라 like(포함) / 범위 비교(시작) / 동등 비교(일치) (SearchMode 참고)
+	 */
+	private TypedQuery<Item> createSearchQuery(ItemSearchCond cond, Long afterId, String orderBy) {
+		String itemName = cond.getItemName();
+		Integer maxPrice = cond.getMaxPrice();
+
+		List<String> conditions = new ArrayList<>();
+		if (StringUtils.hasText(itemName)) {
+			conditions.add(switch (cond.getSearchMode()) {
+				case PREFIX -> "i.itemName >= :itemName and i.itemName < :itemNameUpperBound";
+				case EXACT -> "i.itemName = :itemName";
+				case CONTAINS -> "i.itemName like concat('%', :itemName, '%')";
+			});
+		}
+		if (maxPrice != null) {
+			conditions.add("i.price <= :maxPrice");
+		}
+		if (afterId != null) {
+			conditions.add("i.id > :afterId");
+		}
+
+		String jpql = "select i from Item i";
+		if (!conditions.isEmpty()) {
+			jpql += " where " + String.join(" and ", conditions);
+		}
+		jpql += orderBy;
+
+		log.info("JPQL = {}, itemName = {}, maxPrice = {}, afterId = {}", jpql, itemName, maxPrice, afterId);
+
+		TypedQuery<Item> query = entityManager.createQuery(jpql, Item.class);
+		
+		if (StringUtils.hasText(itemName)) {
+			query.setParameter("itemName", itemName);
+			if (cond.getSearchMode() == SearchMode.PREFIX) {
+				query.setParameter("itemNameUpperBound", cond.getItemNameUpperBound());
+			}
+		}
+		
+		if(maxPrice != null) {
+			query.setParameter("maxPrice", maxPrice);
+		}
+		
+		if (afterId != null) {
+			query.setParameter("afterId", afterId);
+		}
+		
+		return query;
+	}
+
+	/**
+	 * 낙관적 락 (@Version)
+	 * - 수정 폼에서 읽은 버전(updateParam.version)과 지금 버전이 다르면 바로 충돌
+	 * - 같더라도 flush 시점에 Hibernate가 "update ... where id=? and version=?" 을 실행하므로
+	 *   조회 이후 다른 트랜잭션이 먼저 커밋했으면 0건 수정 -> ObjectOptimisticLockingFailureException (커밋 시점)
+	 * - 부분 수정: null이 아닌 필드만 반영 (applyTo), Item의 @DynamicUpdate로 실제로 바뀐 컬럼만 UPDATE
+	 */
+	@Override
+	public void update(Long itemId, ItemUpdateDto updateParam) {
+		Item findItem = entityManager.find(Item.class, itemId);
+		if (updateParam.getVersion() != null && !updateParam.getVersion().equals(findItem.getVersion())) {
+			throw new ObjectOptimisticLockingFailureException(Item.class, itemId);
+		}
+		updateParam.applyTo(findItem);
+	}
+
+	/**
+	 * 재고 차감 (벌크 연산 -> SQL UPDATE 한 문장, ItemQuantityUpdates)
+	 * - 엔티티를 조회해서 고치면(변경 감지) 조회와 수정 사이에 다른 트랜잭션이 끼어들 수 있다
+	 */
+	@Override
+	public boolean decrementQuantity(Long itemId, int amount) {
+		return ItemQuantityUpdates.decrement(entityManager, itemId, amount);
+	}
+
+	@Override
+	public boolean incrementQuantity(Long itemId, int amount) {
+		return ItemQuantityUpdates.increment(entityManager, itemId, amount);
+	}
+
+	@Override
+	public void delete(Long id) {
+		Item item =  entityManager.find(Item.class, id);
+		entityManager.remove(item);
+	}
+
+}
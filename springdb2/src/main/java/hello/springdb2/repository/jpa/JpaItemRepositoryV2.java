@@ -1,125 +1,288 @@
-package hello.springdb2.repository.jpa;
-
-import java.util.List;
-import java.util.Optional;
-
-import org.springframework.util.StringUtils;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
-
-/**
- * SpringDataJPA_ConcepNotes
- * 
- * 1) 주요 인터페이스 계층
- * 
- * CrudRepository<T, ID> 
- * - 가장 기본이 되는 CRUD 인터페이스 
- * - save, findById, existsById, findAll, count, deleteById 등 제공 
- * - 기존의 findOne()은 findById()로 변경 (리턴 타입 Optional 사용)
- * 
- * PagingAndSortingRepository<T, ID> 
- * - CrudRepository를 확장하여 페이징(Paging)과 정렬(Sorting) 기능 추가 
- * - 반환 타입: Page<T>, Slice<T>
- * 
- * JpaRepository<T, ID>
- * - JPA 특화 기능을 더한 인터페이스
- * - flush(), saveAndFlush, deleteInBatch(), getOne(지연 조회; 현재는 getById 권장) 등 추가
- * - 실무에서는 대부분 JpaRepository를 상속해서 사용
- * ------------------------------------------------------------------------- 
- * 2) 사용 예 (간단한 선언)
- * 
- * public interface ItemRepository extends JpaRepository<Item, Long> { }
- * 
- * - 제네릭: <엔티티 타입, ID 타입> 
- * - Spring Data JPA가 "런타임"에 이 "인터페이스의 구현체(프록시)"를 만들어 "스프링 빈"으로 등록한다. 
- * - 따라서 개발자는 직접 구현체를 만들 필요가 없다(단, 추가 커스텀 구현은 가능).
- * ------------------------------------------------------------------------- 
- * 3) 쿼리 생성 방식
- * 
- * 1. 메서드 이름으로 쿼리 유추 (Derived Query) 
- * 예: List<Item> findByItemNameContainingAndPriceLessThanEqual(String name, Integer maxPrice) 
- * - 이름을 분석해 WHERE 절을 만들기 때문에 간단한 조건에는 아주 편리 
- * - 복잡한 쿼리는 가독성 저하 또는 한계 발생
- *
- * 2. @Query 어노테이션 (JPQL 또는 nativeQuery=true) 
- * - 복잡한 조인이나 집계, 성능 튜닝이 필요할 때 사용 
- * 예: @Query("select i from Item i where i.price >= :min")
- *
- * -------------------------------------------------------------------------
- * 4) Spring 이 구현체를 생성하는 방법(개념)
- * 
- * - 스프링 부트/스프링 설정에서 @EnableJpaRepositories 또는 Spring Boot의 자동설정이 
- *   Repository 인터페이스를 스캔한다. 
- * - RepositoryFactorySupport (구현체: JpaRepositoryFactory 등)가 인터페이스를 분석하고 
- *   SimpleJpaRepository 같은 기본 구현을 사용해 프록시 인스턴스를 생성한다. 
- * - 프록시는 내부적으로 EntityManager를 주입받아 실제 DB 연산을 수행한다. 
- * - 개발자는 "인터페이스"만 선언하면 스프링이 런타임에 "구현체"를 만들어 빈으로 등록한다.
- */
-
-
-@Transactional
-@RequiredArgsConstructor
-public class JpaItemRepositoryV2 implements ItemRepository {
-
-	private final SpringDataJpaItemRepository springDataJpaItemRepository;
-	
-	@Override
-	public Item save(Item item) {
-		return springDataJpaItemRepository.save(item);
-	}
-
-	@Override
-	public Optional<Item> findById(Long id) {
-		return springDataJpaItemRepository.findById(id);
-	}
-
-
-	@Override
-	public List<Item> findAll(ItemSearchCond cond) {
-		String itemName = cond.getItemName();
-		Integer maxPrice = cond.getMaxPrice();
-		
-		String nameSearchCondition = "%" + itemName + "%";
-		
-		if(StringUtils.hasText(itemName) && maxPrice != null) {
-//			return springDataJpaItemRepository.findByItemNameLikeAndPriceLessThanEqual(nameSearchCondition, maxPrice);
-			return springDataJpaItemRepository.findItems(nameSearchCondition, maxPrice);
-		} else if (StringUtils.hasText(itemName)) {
-			return springDataJpaItemRepository.findByItemNameLike(nameSearchCondition);
-		} else if (maxPrice != null) {
-			return springDataJpaItemRepository.findByPriceLessThanEqual(maxPrice);
-		} else {
-			return springDataJpaItemRepository.findAll();
-		}
-	}
-
-
-	@Override
-	public void update(Long itemId, ItemUpdateDto updateParam) {
-		Item findItem = springDataJpaItemRepository.findById(itemId).orElseThrow();
-		findItem.setItemName(updateParam.getItemName());
-		findItem.setPrice(updateParam.getPrice());
-		findItem.setItemName(updateParam.getItemName());
-	}
-
-	@Override
-	public void delete(Long id) {
-		springDataJpaItemRepository.deleteById(id);
-	}
-
-	
-}
-
-
-
-
-
-
-
-
-
+package hello.springdb2.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.SearchMode;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * SpringDataJPA_ConcepNotes
+ * 
+ * 1) 주요 인터페이스 계층
+ * 
+ * CrudRepository<T, ID> 
+ * - 가장 기본이 되는 CRUD 인터페이스 
+ * - save, findById, existsById, findAll, count, deleteById 등 제공 
+ * - 기존의 findOne()은 findById()로 변경 (리턴 타입 Optional 사용)
+ * 
+ * PagingAndSortingRepository<T, ID> 
+ * - CrudRepository를 확장하여 페이징(Paging)과 정렬(Sorting) 기능 추가 
+ * - 반환 타입: Page<T>, Slice<T>
+ * 
+ * JpaRepository<T, ID>
+ * - JPA 특화 기능을 더한 인터페이스
+ * - flush(), saveAndFlush, deleteInBatch(), getOne(지연 조회; 현재는 getById 권장) 등 추가
+ * - 실무에서는 대부분 JpaRepository를 상속해서 사용
+ * ------------------------------------------------------------------------- 
+ * 2) 사용 예 (간단한 선언)
+ * 
+ * public interface ItemRepository extends JpaRepository<Item, Long> { }
+ * 
+ * - 제네릭: <엔티티 타입, ID 타입> 
+ * - Spring Data JPA가 "런타임"에 이 "인터페이스의 구현체(프록시)"를 만들어 "스프링 빈"으로 등록한다. 
+ * - 따라서 개발자는 직접 구현체를 만들 필요가 없다(단, 추가 커스텀 구현은 가능).
+ * ------------------------------------------------------------------------- 
+ * 3) 쿼리 생성 방식
+ * 
+ * 1. 메서드 이름으로 쿼리 유추 (Derived Query) 
+ * 예: List<Item> findByItemNameContainingAndPriceLessThanEqual(String name, Integer maxPrice) 
+ * - 이름을 분석해 WHERE 절을 만들기 때문에 간단한 조건에는 아주 편리 
+ * - 복잡한 쿼리는 가독성 저하 또는 한계 발생
+ *
+ * 2. @Query 어노테이션 (JPQL 또는 nativeQuery=true) 
+ * - 복잡한 조인이나 집계, 성능 튜닝이 필요할 때 사용 
+ * 예: @Query("select i from Item i where i.price >= :min")
+ *
+ * -------------------------------------------------------------------------
+ * 4) Spring 이 구현체를 생성하는 방법(개념)
+ * 
+ * - 스프링 부트/스프링 설정에서 @EnableJpaRepositories 또는 Spring Boot의 자동설정이 
+ *   Repository 인터페이스를 스캔한다. 
+ * - RepositoryFactorySupport (구현체: JpaRepositoryFactory 등)가 인터페이스를 분석하고 
+ *   SimpleJpaRepository 같은 기본 구현을 사용해 프록시 인스턴스를 생성한다. 
+ * - 프록시는 내부적으로 EntityManager를 주입받아 실제 DB 연산을 수행한다. 
+ * - 개발자는 "인터페이스"만 선언하면 스프링이 런타임에 "구현체"를 만들어 빈으로 등록한다.
+ */
+
+
+@Transactional
+@RequiredArgsConstructor
+public class JpaItemRepositoryV2 implements ItemRepository {
+
+	private final SpringDataJpaItemRepository springDataJpaItemRepository;
+	private final EntityManager entityManager;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private UpdateStrategy updateStrategy = UpdateStrategy.DIRTY_CHECKING;
+	
+	/**
+	 * update() 방식
+	 * - DIRTY_CHECKING: 엔티티를 조회(SELECT)한 뒤 필드를 바꾸고 flush 시점에 변경 감지로 UPDATE
+	 *   -> 바뀐 컬럼만 SET (@DynamicUpdate), 값이 같으면 UPDATE 자체를 생략, 영속성 컨텍스트의 엔티티도 최신
+	 * - BULK: SpringDataJpaItemRepository.updateItem() 벌크 연산 한 문장 -> SELECT 왕복 없음
+	 *   -> 대신 세 컬럼을 모두 다시 쓰고, 실행 전 flush / 실행 후 clear (이미 조회한 엔티티는 준영속이 된다)
+	 */
+	public enum UpdateStrategy {
+		DIRTY_CHECKING, BULK
+	}
+	
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize는 0보다 커야 합니다");
+		this.batchSize = batchSize;
+	}
+	
+	public void setUpdateStrategy(UpdateStrategy updateStrategy) {
+		Assert.notNull(updateStrategy, "updateStrategy는 null일 수 없습니다");
+		this.updateStrategy = updateStrategy;
+	}
+	
+	@Override
+	public Item save(Item item) {
+		return springDataJpaItemRepository.save(item);
+	}
+
+	/**
+	 * batchSize 단위로 saveAll() -> flush() -> clear()
+	 * - 스프링 데이터 JPA에는 clear()가 없으므로 같은 영속성 컨텍스트의 EntityManager로 비운다
+	 */
+	@Override
+	public List<Item> saveAll(Collection<Item> items) {
+		List<Item> itemList = new ArrayList<>(items);
+		List<Item> savedItems = new ArrayList<>(itemList.size());
+		
+		for (int from = 0; from < itemList.size(); from += batchSize) {
+			List<Item> chunk = itemList.subList(from, Math.min(from + batchSize, itemList.size()));
+			savedItems.addAll(springDataJpaItemRepository.saveAll(chunk));
+			springDataJpaItemRepository.flush();
+			entityManager.clear();
+		}
+		return savedItems;
+	}
+
+	@Override
+	public Optional<Item> findById(Long id) {
+		return springDataJpaItemRepository.findById(id);
+	}
+
+
+	@Override
+	public List<Item> findAll(ItemSearchCond cond) {
+		String itemName = cond.getItemName();
+		Integer maxPrice = cond.getMaxPrice();
+		
+		if (StringUtils.hasText(itemName) && cond.getSearchMode() == SearchMode.PREFIX) {
+			return springDataJpaItemRepository.findByItemNamePrefix(itemName, cond.getItemNameUpperBound(), maxPrice);
+		}
+		if (StringUtils.hasText(itemName) && cond.getSearchMode() == SearchMode.EXACT) {
+			return maxPrice != null
+					? springDataJpaItemRepository.findByItemNameAndPriceLessThanEqual(itemName, maxPrice)
+					: springDataJpaItemRepository.findByItemName(itemName);
+		}
+		
+		String nameSearchCondition = "%" + itemName + "%";
+		
+		if(StringUtils.hasText(itemName) && maxPrice != null) {
+//			return springDataJpaItemRepository.findByItemNameLikeAndPriceLessThanEqual(nameSearchCondition, maxPrice);
+			return springDataJpaItemRepository.findItems(nameSearchCondition, maxPrice);
+		} else if (StringUtils.hasText(itemName)) {
+			return springDataJpaItemRepository.findByItemNameLike(nameSearchCondition);
+		} else if (maxPrice != null) {
+			return springDataJpaItemRepository.findByPriceLessThanEqual(maxPrice);
+		} else {
+			return springDataJpaItemRepository.findAll();
+		}
+	}
+
+	/**
+	 * 상품명 조건은 findAll과 같이 나눈다 (SearchMode 참고)
+	 * - CONTAINS(또는 검색어 없음): like, PREFIX: 범위 비교, EXACT: 동등 비교
+	 *   -> 상품 목록 화면(findListPage -> findPage)도 시작 / 일치 검색이면 item_name 인덱스를 쓴다
+	 */
+	@Override
+	public List<Item> findPage(ItemSearchCond cond, Long afterId, int limit) {
+		String itemName = cond.getItemName();
+		Integer maxPrice = cond.getMaxPrice();
+		long lastId = afterId != null ? afterId : 0L;
+		PageRequest page = PageRequest.of(0, limit);
+		
+		if (!StringUtils.hasText(itemName)) {
+			return springDataJpaItemRepository.findPage(null, maxPrice, lastId, page);
+		}
+		return switch (cond.getSearchMode()) {
+			case PREFIX -> springDataJpaItemRepository.findPageByItemNamePrefix(itemName,
+					cond.getItemNameUpperBound(), maxPrice, lastId, page);
+			case EXACT -> springDataJpaItemRepository.findPageByItemName(itemName, maxPrice, lastId, page);
+			case CONTAINS -> springDataJpaItemRepository.findPage("%" + itemName + "%", maxPrice, lastId, page);
+		};
+	}
+
+
+	/**
+	 * 한 건씩 action에 넘긴 뒤 detach -> 영속성 컨텍스트가 결과 크기만큼 커지지 않는다
+	 */
+	@Override
+	public void stream(ItemSearchCond cond, Consumer<Item> action) {
+		try (Stream<Item> items = streamItems(cond)) {
+			items.forEach(item -> {
+				action.accept(item);
+				entityManager.detach(item);
+			});
+		}
+	}
+
+	/**
+	 * 상품명 조건은 findPage와 같이 나눈다
+	 */
+	private Stream<Item> streamItems(ItemSearchCond cond) {
+		String itemName = cond.getItemName();
+		Integer maxPrice = cond.getMaxPrice();
+		
+		if (!StringUtils.hasText(itemName)) {
+			return springDataJpaItemRepository.streamItems(null, maxPrice);
+		}
+		return switch (cond.getSearchMode()) {
+			case PREFIX -> springDataJpaItemRepository.streamItemsByItemNamePrefix(itemName,
+					cond.getItemNameUpperBound(), maxPrice);
+			case EXACT -> springDataJpaItemRepository.streamItemsByItemName(itemName, maxPrice);
+			case CONTAINS -> springDataJpaItemRepository.streamItems("%" + itemName + "%", maxPrice);
+		};
+	}
+
+	/**
+	 * 부분 수정: null이 아닌 필드만 반영 (applyTo), Item의 @DynamicUpdate로 실제로 바뀐 컬럼만 UPDATE
+	 * - updateStrategy == BULK 이면 조회 없이 벌크 연산 (UpdateStrategy 참고)
+	 */
+	@Override
+	public void update(Long itemId, ItemUpdateDto updateParam) {
+		if (updateStrategy == UpdateStrategy.BULK) {
+			bulkUpdate(itemId, updateParam);
+			return;
+		}
+		Item findItem = springDataJpaItemRepository.findById(itemId).orElseThrow();
+		if (updateParam.getVersion() != null && !updateParam.getVersion().equals(findItem.getVersion())) {
+			throw new ObjectOptimisticLockingFailureException(Item.class, itemId);
+		}
+		updateParam.applyTo(findItem);
+	}
+	
+	/**
+	 * 0건 수정 + 버전 지정 -> 충돌 (버전이 없으면 JdbcTemplate 구현처럼 없는 상품은 무시)
+	 */
+	private void bulkUpdate(Long itemId, ItemUpdateDto updateParam) {
+		if (!updateParam.hasChanges()) {
+			return;
+		}
+		int updated = springDataJpaItemRepository.updateItem(itemId, updateParam.getItemName(),
+				updateParam.getPrice(), updateParam.getQuantity(), updateParam.getVersion());
+		if (updated == 0 && updateParam.getVersion() != null) {
+			throw new ObjectOptimisticLockingFailureException(Item.class, itemId);
+		}
+		if (updated == 1) {
+			ItemSecondLevelCache.evictAfterBulkUpdate(entityManager, itemId);
+		}
+	}
+
+	/**
+	 * 네이티브 벌크 연산은 2차 캐시를 건드리지 않으므로 바꾼 상품 한 건만 비운다 (ItemSecondLevelCache 참고)
+	 * - 재고만 바뀌므로 조회 결과 영역은 그대로 둔다
+	 */
+	@Override
+	public boolean decrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		return evictIfUpdated(itemId, springDataJpaItemRepository.decrementQuantity(itemId, amount));
+	}
+
+	@Override
+	public boolean incrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		return evictIfUpdated(itemId, springDataJpaItemRepository.incrementQuantity(itemId, amount));
+	}
+
+	private boolean evictIfUpdated(Long itemId, int updated) {
+		if (updated == 1) {
+			ItemSecondLevelCache.evictAfterQuantityUpdate(entityManager, itemId);
+		}
+		return updated == 1;
+	}
+
+	@Override
+	public void delete(Long id) {
+		springDataJpaItemRepository.deleteById(id);
+	}
+
+	
+}
+
+
+
+
+
+
+
+
+
@@ -1,118 +1,255 @@
-package hello.springdb2.repository.jpa;
-
-import java.util.List;
-import java.util.Optional;
-
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
-
-import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.impl.JPAQueryFactory;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.domain.QItem;
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-
-import jakarta.persistence.EntityManager;
-
-/**
- * QueryDsl 동작 원리
- * 
- * 1. 엔티티 클래스 작성 : @Entity
- * 
- * 2. Q클래스(Q-Type) 생성
- * - QueryDsl은 "컴파일 시점"에 엔티티 기반으로 "Q클래스"를 자동 생성함
- * - Item -> QItem.java
- * - 이 Q클래스는 타입 안전한 쿼리를 만들 수 있도록 돕는 도우미 클래스
- * 
- * 3. 생성 위치
- * - Gradle 빌드 시 'annotationProcessor'가 실행됨
- * - Q클래스는 보통 'build/generated/sources/annotationProcessor/java/main' 안에 생성됨
- * 
- * 4. generated, build
- * - build/ : Gradle이 빌드할 때 쓰는 모든 산출물이 모이는 디렉토리
- * - build/generated/... : annotationProcessor(=쿼리DSL)가 Q클래스를 생성하는 디렉토리
- * - src/main/java : 우리가 직접 작성하는 코드.
- * - 즉, QItem.java 같은 건 "build/generated/..." 안에 생기고,
- *   우리가 직접 관리하지 않고, 빌드할 때마다 자동 생성된다.
- * 
- * 5. 실제 사용 방식
- * - Q클래스를 import 해서 JPQL 대신 타입 안전한 코드 작성 가능.
- *      예: QItem item = QItem.item;
- *          queryFactory.selectFrom(item)
- *                      .where(item.itemName.eq("상품A"))
- *                      .fetch();
- *
- * - 여기서 QItem.item 은 "static 싱글톤 객체" (Querydsl이 미리 만들어둠)
- * 
- */
-
-@Transactional
-public class JpaItemRepositoryV3 implements ItemRepository {
-
-    private final EntityManager entityManager;
-    private final JPAQueryFactory queryFactory;
-
-    public JpaItemRepositoryV3(EntityManager entityManager) {
-        this.entityManager = entityManager;
-        this.queryFactory = new JPAQueryFactory(entityManager);
-    }
-
-    @Override
-    public Item save(Item item) {
-        entityManager.persist(item);
-        return item;
-    }
-
-    @Override
-    public Optional<Item> findById(Long id) {
-        Item item = entityManager.find(Item.class, id);
-        return Optional.ofNullable(item);
-    }
-
-    @Override
-    public void update(Long itemId, ItemUpdateDto updateParam) {
-        Item findItem = entityManager.find(Item.class, itemId);
-        findItem.setItemName(updateParam.getItemName());
-        findItem.setPrice(updateParam.getPrice());
-        findItem.setQuantity(updateParam.getQuantity());
-    }
-
-    @Override
-    public List<Item> findAll(ItemSearchCond cond) {
-        String itemName = cond.getItemName();
-        Integer maxPrice = cond.getMaxPrice();
-
-        QItem item = QItem.item;
-
-        return queryFactory
-                .select(item)
-                .from(item)
-                .where(likeItemName(itemName, item), maxPrice(maxPrice, item))
-                .fetch();
-    }
-
-    private BooleanExpression likeItemName(String itemName, QItem item) {
-        if (StringUtils.hasText(itemName)) {
-            return item.itemName.like("%" + itemName + "%");
-        }
-        return null;
-    }
-
-    private BooleanExpression maxPrice(Integer maxPrice, QItem item) {
-        if (maxPrice != null) {
-            return item.price.loe(maxPrice);
-        }
-        return null;
-    }
-
-    @Override
-    public void delete(Long id) {
-        Item item = entityManager.find(Item.class, id);
-        if (item != null) {
-            entityManager.remove(item);
-        }
-    }
-}
+package hello.springdb2.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.domain.QItem;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * QueryDsl 동작 원리
+ * 
+ * 1. 엔티티 클래스 작성 : @Entity
+ * 
+ * 2. Q클래스(Q-Type) 생성
+ * - QueryDsl은 "컴파일 시점"에 엔티티 기반으로 "Q클래스"를 자동 생성함
+ * - Item -> QItem.java
+ * - 이 Q클래스는 타입 안전한 쿼리를 만들 수 있도록 돕는 도우미 클래스
+ * 
+ * 3. 생성 위치
+ * - Gradle 빌드 시 'annotationProcessor'가 실행됨
+ * - Q클래스는 보통 'build/generated/sources/annotationProcessor/java/main' 안에 생성됨
+ * 
+ * 4. generated, build
+ * - build/ : Gradle이 빌드할 때 쓰는 모든 산출물이 모이는 디렉토리
+ * - build/generated/... : annotationProcessor(=쿼리DSL)가 Q클래스를 생성하는 디렉토리
+ * - src/main/java : 우리가 직접 작성하는 코드.
+ * - 즉, QItem.java 같은 건 "build/generated/..." 안에 생기고,
+ *   우리가 직접 관리하지 않고, 빌드할 때마다 자동 생성된다.
+ * 
+ * 5. 실제 사용 방식
+ * - Q클래스를 import 해서 JPQL 대신 타입 안전한 코드 작성 가능.
+ *      예: QItem item = QItem.item;
+ *          queryFactory.selectFrom(item)
+ *                      .where(item.itemName.eq("상품A"))
+ *                      .fetch();
+ *
+ * - 여기서 QItem.item 은 "static 싱글톤 객체" (Querydsl이 미리 만들어둠)
+ * 
+ */
+
+@Transactional
+public class JpaItemRepositoryV3 implements ItemRepository {
+
+    private final EntityManager entityManager;
+    private final JPAQueryFactory queryFactory;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public JpaItemRepositoryV3(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize는 0보다 커야 합니다");
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Item save(Item item) {
+        entityManager.persist(item);
+        return item;
+    }
+
+    /**
+     * batchSize 마다 flush() + clear()
+     * - 영속성 컨텍스트가 무한정 커지지 않도록 끊어서 INSERT 후 비운다
+     */
+    @Override
+    public List<Item> saveAll(Collection<Item> items) {
+        List<Item> savedItems = new ArrayList<>(items.size());
+        for (Item item : items) {
+            entityManager.persist(item);
+            savedItems.add(item);
+            if (savedItems.size() % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        return savedItems;
+    }
+
+    /**
+     * 읽기 전용 조회 (findById, findAll, findPage)
+     * - readOnly = true: 새로 시작한 트랜잭션이면 스프링이 세션을 FlushMode.MANUAL + 읽기 전용으로 바꾼다
+     * - 이미 열린 EntityManager(open-in-view)에도 같은 효과가 나도록 쿼리마다 ReadOnlyQueries로 한 번 더 지정
+     * - 쓰기 트랜잭션에 참여하면 readOnly는 무시되고 평소처럼 조회 (ReadOnlyQueries 참고)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Item> findById(Long id) {
+        return ReadOnlyQueries.findById(entityManager, Item.class, id);
+    }
+
+    /**
+     * 낙관적 락 (@Version)
+     * - 수정 폼에서 읽은 버전(updateParam.version)과 지금 버전이 다르면 바로 충돌
+     * - 같더라도 flush 시점에 Hibernate가 "update ... where id=? and version=?" 을 실행하므로
+     *   조회 이후 다른 트랜잭션이 먼저 커밋했으면 0건 수정 -> ObjectOptimisticLockingFailureException (커밋 시점)
+     * - 부분 수정: null이 아닌 필드만 반영 (applyTo), Item의 @DynamicUpdate로 실제로 바뀐 컬럼만 UPDATE
+     */
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        Item findItem = entityManager.find(Item.class, itemId);
+        if (updateParam.getVersion() != null && !updateParam.getVersion().equals(findItem.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Item.class, itemId);
+        }
+        updateParam.applyTo(findItem);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Item> findAll(ItemSearchCond cond) {
+        Integer maxPrice = cond.getMaxPrice();
+
+        QItem item = QItem.item;
+
+        return ReadOnlyQueries.apply(queryFactory
+                .select(item)
+                .from(item)
+                .where(itemName(cond, item), maxPrice(maxPrice, item)))
+                .fetch();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Item> findPage(ItemSearchCond cond, Long afterId, int limit) {
+        QItem item = QItem.item;
+
+        return ReadOnlyQueries.apply(queryFactory
+                .selectFrom(item)
+                .where(itemName(cond, item), maxPrice(cond.getMaxPrice(), item),
+                        idGreaterThan(afterId, item))
+                .orderBy(item.id.asc())
+                .limit(limit))
+                .fetch();
+    }
+
+    /**
+     * DTO 프로젝션 (Projections.constructor -> select new ItemListRow(id, itemName, price, quantity))
+     * - 결과가 엔티티가 아니므로 영속성 컨텍스트에 등록하지도, 스냅샷을 만들지도 않는다
+     * - version 컬럼은 읽지 않는다
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemListRow> findListPage(ItemSearchCond cond, Long afterId, int limit) {
+        QItem item = QItem.item;
+
+        return ReadOnlyQueries.apply(queryFactory
+                .select(Projections.constructor(ItemListRow.class,
+                        item.id, item.itemName, item.price, item.quantity))
+                .from(item)
+                .where(itemName(cond, item), maxPrice(cond.getMaxPrice(), item),
+                        idGreaterThan(afterId, item))
+                .orderBy(item.id.asc())
+                .limit(limit))
+                .fetch();
+    }
+
+    /**
+     * Querydsl stream() -> JPA getResultStream() (Hibernate ScrollableResults)
+     * - HINT_FETCH_SIZE: JDBC fetch size, HINT_READ_ONLY: 변경 감지용 스냅샷을 만들지 않는다
+     * - action에 넘긴 뒤 detach -> 영속성 컨텍스트가 결과 크기만큼 커지지 않는다
+     */
+    @Override
+    public void stream(ItemSearchCond cond, Consumer<Item> action) {
+        QItem item = QItem.item;
+
+        try (Stream<Item> items = queryFactory
+                .selectFrom(item)
+                .where(itemName(cond, item), maxPrice(cond.getMaxPrice(), item))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, DEFAULT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            items.forEach(found -> {
+                action.accept(found);
+                entityManager.detach(found);
+            });
+        }
+    }
+
+    /**
+     * 상품명 조건 (SearchMode 참고)
+     * - CONTAINS: like '%검색어%'
+     * - PREFIX: 검색어 <= itemName < 검색어 + U+FFFF (item_name 인덱스 범위 스캔)
+     * - EXACT: itemName = 검색어
+     */
+    private BooleanExpression itemName(ItemSearchCond cond, QItem item) {
+        String itemName = cond.getItemName();
+        if (!StringUtils.hasText(itemName)) {
+            return null;
+        }
+        return switch (cond.getSearchMode()) {
+            case PREFIX -> item.itemName.goe(itemName).and(item.itemName.lt(cond.getItemNameUpperBound()));
+            case EXACT -> item.itemName.eq(itemName);
+            case CONTAINS -> item.itemName.like("%" + itemName + "%");
+        };
+    }
+
+    private BooleanExpression maxPrice(Integer maxPrice, QItem item) {
+        if (maxPrice != null) {
+            return item.price.loe(maxPrice);
+        }
+        return null;
+    }
+
+    private BooleanExpression idGreaterThan(Long afterId, QItem item) {
+        if (afterId != null) {
+            return item.id.gt(afterId);
+        }
+        return null;
+    }
+
+    /**
+     * 재고 차감 (벌크 연산 -> SQL UPDATE 한 문장, ItemQuantityUpdates)
+     * - Querydsl update(JPQL) 대신 네이티브 SQL: JPQL 벌크 연산은 2차 캐시의 item 영역 전체를 비운다
+     */
+    @Override
+    public boolean decrementQuantity(Long itemId, int amount) {
+        return ItemQuantityUpdates.decrement(entityManager, itemId, amount);
+    }
+
+    @Override
+    public boolean incrementQuantity(Long itemId, int amount) {
+        return ItemQuantityUpdates.increment(entityManager, itemId, amount);
+    }
+
+    @Override
+    public void delete(Long id) {
+        Item item = entityManager.find(Item.class, id);
+        if (item != null) {
+            entityManager.remove(item);
+        }
+    }
+}
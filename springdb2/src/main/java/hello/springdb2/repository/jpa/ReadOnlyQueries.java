@@ -0,0 +1,56 @@
+package hello.springdb2.repository.jpa;
+
+import java.util.Optional;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.querydsl.jpa.impl.JPAQuery;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * 읽기 전용 트랜잭션의 조회 최적화 (JpaItemRepositoryV3, ItemQueryRepositoryV2)
+ *
+ * - 지금 트랜잭션이 @Transactional(readOnly = true) 일 때만 적용
+ *   -> 쓰기 트랜잭션에 참여한 조회는 그대로 둔다 (아직 flush 안 한 변경을 봐야 하고, 조회한 엔티티를 고칠 수 있으므로)
+ * - 읽기 전용 로딩 (HINT_READ_ONLY, withReadOnly)
+ *   -> 변경 감지용 스냅샷(엔티티 필드 복사본)을 만들지 않고, 커밋 시 비교(dirty checking)도 하지 않는다
+ *   -> 조회한 엔티티를 고쳐도 UPDATE 되지 않는다
+ * - FlushMode.MANUAL (HINT_FLUSH_MODE): 쿼리 전 자동 flush(변경 검사)를 건너뛴다
+ * - 조회 결과 캐시 (HINT_CACHEABLE, ItemSecondLevelCache.QUERY_REGION)
+ *   -> 2차 캐시(JpaSecondLevelCacheConfig)를 켰을 때만 동작, 꺼져 있으면 Hibernate가 무시한다
+ * - 스프링도 새로 시작한 읽기 전용 트랜잭션에는 세션 전체를 MANUAL + 읽기 전용으로 바꾸지만,
+ *   open-in-view로 요청 동안 열려 있던 EntityManager에는 읽기 전용 로딩을 적용하지 않는다 -> 쿼리마다 명시
+ */
+public final class ReadOnlyQueries {
+
+	private ReadOnlyQueries() {
+	}
+
+	public static boolean isReadOnlyTransaction() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+
+	public static <T> JPAQuery<T> apply(JPAQuery<T> query) {
+		if (isReadOnlyTransaction()) {
+			query.setHint(HibernateHints.HINT_READ_ONLY, true)
+					.setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+					.setHint(HibernateHints.HINT_CACHEABLE, true)
+					.setHint(HibernateHints.HINT_CACHE_REGION, ItemSecondLevelCache.QUERY_REGION);
+		}
+		return query;
+	}
+
+	public static <T> Optional<T> findById(EntityManager entityManager, Class<T> entityClass, Object id) {
+		if (!isReadOnlyTransaction()) {
+			return Optional.ofNullable(entityManager.find(entityClass, id));
+		}
+		return entityManager.unwrap(Session.class)
+				.byId(entityClass)
+				.withReadOnly(true)
+				.loadOptional(id);
+	}
+}
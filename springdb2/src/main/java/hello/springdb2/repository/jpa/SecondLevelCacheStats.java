@@ -0,0 +1,14 @@
+package hello.springdb2.repository.jpa;
+
+/**
+ * 2차 캐시 영역 하나의 통계 스냅샷 (Hibernate Statistics)
+ * - hitCount / missCount: 캐시 조회 적중 / 미적중 횟수 (미적중이면 SQL 실행)
+ * - putCount: DB에서 읽거나 저장한 값을 캐시에 넣은 횟수
+ */
+public record SecondLevelCacheStats(String region, long hitCount, long missCount, long putCount) {
+
+	public double hitRate() {
+		long requestCount = hitCount + missCount;
+		return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+	}
+}
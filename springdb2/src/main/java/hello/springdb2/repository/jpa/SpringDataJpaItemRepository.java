@@ -1,50 +1,180 @@
-package hello.springdb2.repository.jpa;
-
-import java.util.List;
-
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
-
-import hello.springdb2.domain.Item;
-
-/**
- * JpaRepository 개념
- * - JpaRepository<T, ID> 인터페이스를 상속받으면 CRUD, 페이징, 정렬 기능 자동 제공
- * - T: 엔티티 타입, ID: 엔티티 PK타입
- * - 직접 구현 클래스 작성 없이 인터페이스 선언만으로 스프링이 런타임에 구현체 생성
- * 
- * 쿼리 메서드(Query Methods)
- * - 메서드 이름을 분석해 자동으로 JPQL 쿼리를 생성
- * - 예시:
- * 	- findAll(): 모든 데이터 조회
- *    JPQL: select i from Item i
- *    
- *  - findByItemNameLike(String itemName): 이름 검색
- *    JPQL: select i from Item i where i.itemName like ?
- *    
- *  - findByPriceLessThanEqual(Integer price): 가격 조건 검색
- *    JPQL: select i from Item i where i.price <= ?
- *    
- *  - findByItemNameLikeAndPriceLessThanEqual(String itemName, Integer price): 이름 + 가격 조건 검색
- *    JPQL: select i from Item i where i.itemName like ? and i.price <= ?
- *    
- * @Query 애너테이션
- * - 직접 JPQL 또는 네이티브 쿼리 작성 가능
- * - 예시:
- *   @Query("select i from Item i where i.itemName like :itemName and i.price <= :price")
- *   List<Item> findItems(@Param("itemName") String itemName, @Param("price") Integer price);
- *   
- */
-
-public interface SpringDataJpaItemRepository extends JpaRepository<Item, Long>{
-
-	List<Item> findByItemNameLike(String itemName);
-	
-	List<Item> findByPriceLessThanEqual(Integer price);
-	
-	List<Item> findByItemNameLikeAndPriceLessThanEqual(String itemName, Integer price);
-
-	@Query("select i from Item i where i.itemName like :itemName and i.price <= :price")
-	List<Item> findItems(@Param("itemName") String itemName, @Param("price") Integer price);
-}
+package hello.springdb2.repository.jpa;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import hello.springdb2.domain.Item;
+import jakarta.persistence.QueryHint;
+
+/**
+ * JpaRepository 개념
+ * - JpaRepository<T, ID> 인터페이스를 상속받으면 CRUD, 페이징, 정렬 기능 자동 제공
+ * - T: 엔티티 타입, ID: 엔티티 PK타입
+ * - 직접 구현 클래스 작성 없이 인터페이스 선언만으로 스프링이 런타임에 구현체 생성
+ * 
+ * 쿼리 메서드(Query Methods)
+ * - 메서드 이름을 분석해 자동으로 JPQL 쿼리를 생성
+ * - 예시:
+ * 	- findAll(): 모든 데이터 조회
+ *    JPQL: select i from Item i
+ *    
+ *  - findByItemNameLike(String itemName): 이름 검색
+ *    JPQL: select i from Item i where i.itemName like ?
+ *    
+ *  - findByPriceLessThanEqual(Integer price): 가격 조건 검색
+ *    JPQL: select i from Item i where i.price <= ?
+ *    
+ *  - findByItemNameLikeAndPriceLessThanEqual(String itemName, Integer price): 이름 + 가격 조건 검색
+ *    JPQL: select i from Item i where i.itemName like ? and i.price <= ?
+ *    
+ * @Query 애너테이션
+ * - 직접 JPQL 또는 네이티브 쿼리 작성 가능
+ * - 예시:
+ *   @Query("select i from Item i where i.itemName like :itemName and i.price <= :price")
+ *   List<Item> findItems(@Param("itemName") String itemName, @Param("price") Integer price);
+ *   
+ */
+
+public interface SpringDataJpaItemRepository extends JpaRepository<Item, Long>{
+
+	List<Item> findByItemNameLike(String itemName);
+	
+	List<Item> findByPriceLessThanEqual(Integer price);
+	
+	List<Item> findByItemNameLikeAndPriceLessThanEqual(String itemName, Integer price);
+
+	@Query("select i from Item i where i.itemName like :itemName and i.price <= :price")
+	List<Item> findItems(@Param("itemName") String itemName, @Param("price") Integer price);
+	
+	List<Item> findByItemName(String itemName);
+	
+	List<Item> findByItemNameAndPriceLessThanEqual(String itemName, Integer price);
+	
+	/**
+	 * 접두어 검색 (SearchMode.PREFIX)
+	 * - like :prefix% 와 같은 결과를 범위 비교로 조회 -> item_name 인덱스 범위 스캔
+	 * - upperBound: prefix + U+FFFF (SearchMode.prefixUpperBound)
+	 */
+	@Query("select i from Item i " +
+		   "where i.itemName >= :prefix and i.itemName < :upperBound " +
+		   "and (:maxPrice is null or i.price <= :maxPrice)")
+	List<Item> findByItemNamePrefix(@Param("prefix") String prefix, @Param("upperBound") String upperBound,
+									@Param("maxPrice") Integer maxPrice);
+	
+	/**
+	 * 키셋 페이징 (상품명 조건 없음 / 포함 검색)
+	 * - null 파라미터는 해당 조건을 무시 (:param is null or ...)
+	 * - Pageable은 LIMIT 용도로만 사용 (PageRequest.of(0, limit)), 반환 타입이 List라 count 쿼리는 실행되지 않는다
+	 * - 시작(PREFIX) / 일치(EXACT) 검색은 아래 전용 쿼리 (findAll과 같은 범위 / 동등 비교)
+	 */
+	@Query("select i from Item i " +
+		   "where i.id > :afterId " +
+		   "and (:itemName is null or i.itemName like :itemName) " +
+		   "and (:maxPrice is null or i.price <= :maxPrice) " +
+		   "order by i.id")
+	List<Item> findPage(@Param("itemName") String itemName, @Param("maxPrice") Integer maxPrice,
+						@Param("afterId") Long afterId, Pageable pageable);
+	
+	/**
+	 * 키셋 페이징 - 시작(PREFIX): 범위 비교 -> item_name 인덱스 범위 스캔 (findByItemNamePrefix와 같은 조건)
+	 */
+	@Query("select i from Item i " +
+		   "where i.id > :afterId " +
+		   "and i.itemName >= :prefix and i.itemName < :upperBound " +
+		   "and (:maxPrice is null or i.price <= :maxPrice) " +
+		   "order by i.id")
+	List<Item> findPageByItemNamePrefix(@Param("prefix") String prefix, @Param("upperBound") String upperBound,
+										@Param("maxPrice") Integer maxPrice, @Param("afterId") Long afterId,
+										Pageable pageable);
+	
+	/**
+	 * 키셋 페이징 - 일치(EXACT): 동등 비교 (like가 아니므로 검색어의 % _ 도 글자 그대로 비교)
+	 */
+	@Query("select i from Item i " +
+		   "where i.id > :afterId " +
+		   "and i.itemName = :itemName " +
+		   "and (:maxPrice is null or i.price <= :maxPrice) " +
+		   "order by i.id")
+	List<Item> findPageByItemName(@Param("itemName") String itemName, @Param("maxPrice") Integer maxPrice,
+								  @Param("afterId") Long afterId, Pageable pageable);
+	
+	/**
+	 * 스트리밍 조회 (반환 타입 Stream -> 결과를 List로 만들지 않고 커서로 한 행씩 읽는다)
+	 * - 트랜잭션 안에서 호출해야 하고, 다 쓴 Stream은 닫아야 한다
+	 * - HINT_FETCH_SIZE: JDBC fetch size
+	 * - HINT_READ_ONLY: 변경 감지용 스냅샷을 만들지 않는다
+	 * - 상품명 조건은 findPage와 같이 나눈다 (없음 / 포함: like, 시작: 범위 비교, 일치: 동등 비교)
+	 */
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select i from Item i " +
+		   "where (:itemName is null or i.itemName like :itemName) " +
+		   "and (:maxPrice is null or i.price <= :maxPrice)")
+	Stream<Item> streamItems(@Param("itemName") String itemName, @Param("maxPrice") Integer maxPrice);
+	
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select i from Item i " +
+		   "where i.itemName >= :prefix and i.itemName < :upperBound " +
+		   "and (:maxPrice is null or i.price <= :maxPrice)")
+	Stream<Item> streamItemsByItemNamePrefix(@Param("prefix") String prefix, @Param("upperBound") String upperBound,
+											 @Param("maxPrice") Integer maxPrice);
+	
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select i from Item i " +
+		   "where i.itemName = :itemName " +
+		   "and (:maxPrice is null or i.price <= :maxPrice)")
+	Stream<Item> streamItemsByItemName(@Param("itemName") String itemName, @Param("maxPrice") Integer maxPrice);
+	
+	/**
+	 * 재고 차감 (벌크 연산 -> SQL UPDATE 한 문장)
+	 * - @Modifying: select가 아닌 executeUpdate()로 실행, 반환값은 수정된 행 수
+	 * - 벌크 연산은 영속성 컨텍스트를 거치지 않으므로
+	 *   flushAutomatically: 실행 전 flush, clearAutomatically: 실행 후 clear (이미 조회한 엔티티가 옛 값을 들고 있지 않도록)
+	 * - 벌크 연산 세 개는 JPQL 대신 네이티브 SQL + query space 힌트
+	 *   -> JPQL 벌크 연산은 2차 캐시의 item 영역 전체를 비우므로, 호출 측(JpaItemRepositoryV2)이 바꾼 상품 한 건만 비운다
+	 *      (ItemSecondLevelCache 참고)
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ItemSecondLevelCache.BULK_UPDATE_SPACE))
+	@Query(value = "update item set quantity = quantity - :amount, version = version + 1 " +
+				   "where id = :id and quantity >= :amount", nativeQuery = true)
+	int decrementQuantity(@Param("id") Long id, @Param("amount") int amount);
+	
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ItemSecondLevelCache.BULK_UPDATE_SPACE))
+	@Query(value = "update item set quantity = quantity + :amount, version = version + 1 " +
+				   "where id = :id", nativeQuery = true)
+	int incrementQuantity(@Param("id") Long id, @Param("amount") int amount);
+	
+	/**
+	 * 상품 수정 (벌크 연산 -> 엔티티를 조회하지 않고 SQL UPDATE 한 문장)
+	 * - 부분 수정: null 파라미터는 coalesce로 지금 값을 그대로 둔다 (SET 절은 고정이라 세 컬럼 모두 다시 쓴다)
+	 *   -> 네이티브 SQL에서는 null 파라미터의 타입을 알 수 없으므로 cast로 지정
+	 * - 낙관적 락: :version이 null이 아니면 그 버전일 때만 수정 -> 반환값 0이면 충돌(또는 없는 상품)
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ItemSecondLevelCache.BULK_UPDATE_SPACE))
+	@Query(value = "update item set item_name = coalesce(cast(:itemName as varchar(255)), item_name), " +
+				   "price = coalesce(cast(:price as int), price), " +
+				   "quantity = coalesce(cast(:quantity as int), quantity), " +
+				   "version = version + 1 " +
+				   "where id = :id and (cast(:version as bigint) is null or version = :version)", nativeQuery = true)
+	int updateItem(@Param("id") Long id, @Param("itemName") String itemName, @Param("price") Integer price,
+				   @Param("quantity") Integer quantity, @Param("version") Long version);
+}
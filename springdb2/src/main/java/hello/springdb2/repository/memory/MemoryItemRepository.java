@@ -1,70 +1,326 @@
-package hello.springdb2.repository.memory;
-
-import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
-
-import org.springframework.util.ObjectUtils;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-import lombok.extern.slf4j.Slf4j;
-
-@Slf4j
-public class MemoryItemRepository implements ItemRepository {
-
-	private static final ConcurrentHashMap<Long, Item> store = new ConcurrentHashMap<>();
-	private static final AtomicLong sequence = new AtomicLong(0L);
-	
-	@Override
-	public Item save(Item item) {
-		long sequenceId = sequence.incrementAndGet();
-		item.setId(sequenceId);
-		store.put(sequenceId, item);
-		return item;
-	}
-
-	@Override
-	public Optional<Item> findById(Long id) {
-		return Optional.ofNullable(store.get(id));
-	}
-
-	@Override
-	public List<Item> findAll(ItemSearchCond cond) {
-		String itemName = cond.getItemName();
-		Integer maxPrice = cond.getMaxPrice();
-		return store.values().stream().filter(item -> {
-			if (ObjectUtils.isEmpty(itemName)) {
-				return true;
-			}
-			return item.getItemName().contains(itemName);
-		}).filter(item -> {
-			if (maxPrice == null) {
-				return true;
-			}
-			return item.getPrice() <= maxPrice;
-		}).collect(Collectors.toList());
-	}
-
-	@Override
-	public void update(Long itemId, ItemUpdateDto updateParam) {
-		Item findItem = store.get(itemId);
-		findItem.setItemName(updateParam.getItemName());
-		findItem.setPrice(updateParam.getPrice());
-		findItem.setQuantity(updateParam.getQuantity());
-	}
-
-	@Override
-	public void delete(Long id) {
-		store.remove(id);
-	}
-	
-	public void clearStore() {
-		store.clear();
-	}
-
-}
+package hello.springdb2.repository.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MemoryItemRepository (정렬 저장소 + 가격 보조 인덱스)
+ *
+ * 1. store: ConcurrentSkipListMap<id, Item>
+ * - id 오름차순으로 정렬된 동시성 맵
+ * - 전체 조회가 항상 id 순서, 키셋 페이징은 tailMap(afterId)부터 읽으면 된다
+ *
+ * 2. priceIndex: ConcurrentSkipListMap<price, Set<id>>
+ * - 가격 -> 해당 가격의 id 목록
+ * - maxPrice 조건은 headMap(maxPrice, true) 범위만 탐색 -> 전체 스캔(O(n)) 대신 범위 크기만큼만 읽는다
+ * - save / update / delete 시점에 함께 갱신
+ *
+ * 3. nameIndex: TrigramIndex (상품명 3-gram 역색인)
+ * - 부분 문자열(contains) 검색을 posting list 교집합으로 처리 -> 전체 상품명을 훑지 않는다
+ * - 3글자 미만 검색어는 색인을 쓸 수 없어 가격 인덱스 또는 전체 스캔으로 처리
+ * - 시작(PREFIX) / 일치(EXACT) 검색도 3-gram 후보는 그대로 쓰고, 최종 비교만 searchMode에 맞춘다
+ *
+ * 4. 동시성
+ * - 쓰기(store + 인덱스 갱신)는 writeLock으로 직렬화, 읽기는 잠금 없이 조회
+ * - 읽기 도중 쓰기가 끼어들 수 있으므로 인덱스로 찾은 후보도 실제 값으로 한 번 더 조건을 검사한다
+ * - synchronized 대신 ReentrantLock: 가상 스레드를 캐리어 스레드에 고정(pinning)하지 않는다
+ *
+ * 5. 저장된 Item은 바꾸지 않는다 (copy-on-write)
+ * - save는 복사본을 저장하고, 조회(findById, findAll, findPage, stream)는 복사본을 반환한다
+ *   -> 호출 측이 Item을 고쳐도 store가 바뀌지 않으므로 아래 CAS의 "이전 값" 비교(@Data equals)가 항상 저장 시점의 스냅샷과 비교된다
+ * - update / 재고 변경은 복사본을 만들어 store.replace(id, 이전 값, 새 값)으로 교체 (CAS)
+ * - 재고 변경은 인덱스(가격, 상품명)를 건드리지 않으므로 writeLock 없이 CAS가 성공할 때까지 재시도한다
+ *   -> 같은 상품에 동시에 몰려도 잠금 대기 없이 처리, update와 겹치면 CAS 실패 후 새 값으로 다시 계산
+ */
+@Slf4j
+public class MemoryItemRepository implements ItemRepository {
+
+	private static final ConcurrentSkipListMap<Long, Item> store = new ConcurrentSkipListMap<>();
+	private static final ConcurrentSkipListMap<Integer, Set<Long>> priceIndex = new ConcurrentSkipListMap<>();
+	private static final TrigramIndex nameIndex = new TrigramIndex();
+	private static final AtomicLong sequence = new AtomicLong(0L);
+	private static final ReentrantLock writeLock = new ReentrantLock();
+
+	@Override
+	public Item save(Item item) {
+		writeLock.lock();
+		try {
+			long sequenceId = sequence.incrementAndGet();
+			item.setId(sequenceId);
+			item.setVersion(0L);
+			Item stored = copyOf(item);
+			store.put(sequenceId, stored);
+			addToIndexes(stored);
+			return item;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public List<Item> saveAll(Collection<Item> items) {
+		List<Item> savedItems = new ArrayList<>(items.size());
+		for (Item item : items) {
+			savedItems.add(save(item));
+		}
+		return savedItems;
+	}
+
+	@Override
+	public Optional<Item> findById(Long id) {
+		return Optional.ofNullable(store.get(id)).map(MemoryItemRepository::copyOf);
+	}
+
+	@Override
+	public List<Item> findAll(ItemSearchCond cond) {
+		return candidates(cond, null)
+				.filter(item -> matches(item, cond))
+				.map(MemoryItemRepository::copyOf)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public List<Item> findPage(ItemSearchCond cond, Long afterId, int limit) {
+		if (usesPriceIndex(cond)) {
+			return pageFromPriceIndex(cond, afterId, limit);
+		}
+		return candidates(cond, afterId)
+				.filter(item -> matches(item, cond))
+				.limit(limit)
+				.map(MemoryItemRepository::copyOf)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * 메모리 구현은 이미 모든 상품을 들고 있으므로 결과 List만 만들지 않고 후보를 바로 넘긴다 (한 건씩 복사)
+	 */
+	@Override
+	public void stream(ItemSearchCond cond, Consumer<Item> action) {
+		candidates(cond, null)
+				.filter(item -> matches(item, cond))
+				.map(MemoryItemRepository::copyOf)
+				.forEach(action);
+	}
+
+	/**
+	 * 조회 후보를 id 오름차순으로 반환
+	 * - 상품명 검색어가 3글자 이상이면 3-gram 색인 교집합에서 후보 id를 얻는다
+	 * - maxPrice 조건이 있으면 가격 인덱스 범위(headMap)에서 id만 모아 정렬한 뒤 store에서 꺼낸다
+	 *   (범위 전체가 결과인 findAll / stream 용, findPage는 pageFromPriceIndex)
+	 * - 둘 다 아니면 정렬된 store를 afterId 다음부터 그대로 읽는다
+	 */
+	private static boolean usesPriceIndex(ItemSearchCond cond) {
+		return !TrigramIndex.isSearchable(cond.getItemName()) && cond.getMaxPrice() != null;
+	}
+
+	/**
+	 * 가격 인덱스 범위에서 키셋 페이지 하나 (findPage 전용)
+	 * - 가격 순서로 나오는 id를 모두 정렬하지 않고, 크기 limit의 최대 힙으로 afterId 다음의 가장 작은 id limit개만 남긴다
+	 *   -> 범위 크기 k에 대해 O(k log limit), 힙이 차면 힙의 최대 id 이상은 store에서 꺼내지도 않는다
+	 * - 인덱스의 가격과 현재 가격이 다른 항목은 건너뛴다 (update 도중 두 가격에 잠시 걸친 id를 한 번만 센다)
+	 */
+	private List<Item> pageFromPriceIndex(ItemSearchCond cond, Long afterId, int limit) {
+		if (limit <= 0) {
+			return List.of();
+		}
+		PriorityQueue<Item> page = new PriorityQueue<>(limit + 1, Comparator.comparing(Item::getId).reversed());
+		for (Map.Entry<Integer, Set<Long>> entry : priceIndex.headMap(cond.getMaxPrice(), true).entrySet()) {
+			for (Long id : entry.getValue()) {
+				if ((afterId != null && id <= afterId) || (page.size() == limit && id >= page.peek().getId())) {
+					continue;
+				}
+				Item item = store.get(id);
+				if (item == null || !entry.getKey().equals(item.getPrice()) || !matches(item, cond)) {
+					continue;
+				}
+				page.offer(item);
+				if (page.size() > limit) {
+					page.poll();
+				}
+			}
+		}
+		List<Item> result = new ArrayList<>(page.size());
+		for (Item item : page) {
+			result.add(copyOf(item));
+		}
+		result.sort(Comparator.comparing(Item::getId));
+		return result;
+	}
+
+	private Stream<Item> candidates(ItemSearchCond cond, Long afterId) {
+		String itemName = cond.getItemName();
+		if (TrigramIndex.isSearchable(itemName)) {
+			NavigableSet<Long> ids = nameIndex.candidates(itemName);
+			return (afterId == null ? ids : ids.tailSet(afterId, false)).stream()
+					.map(store::get)
+					.filter(Objects::nonNull);
+		}
+
+		Integer maxPrice = cond.getMaxPrice();
+		if (maxPrice == null) {
+			return afterId == null
+					? store.values().stream()
+					: store.tailMap(afterId, false).values().stream();
+		}
+
+		return priceIndex.headMap(maxPrice, true).values().stream()
+				.flatMap(Set::stream)
+				.filter(id -> afterId == null || id > afterId)
+				.sorted()
+				.map(store::get)
+				.filter(Objects::nonNull);
+	}
+
+	private boolean matches(Item item, ItemSearchCond cond) {
+		String itemName = cond.getItemName();
+		Integer maxPrice = cond.getMaxPrice();
+		if (!ObjectUtils.isEmpty(itemName) && !cond.getSearchMode().matches(item.getItemName(), itemName)) {
+			return false;
+		}
+		return maxPrice == null || item.getPrice() <= maxPrice;
+	}
+
+	/**
+	 * 낙관적 락: 버전 비교 후 새 값(버전 + 1)으로 교체 (DB 구현의 where id=? and version=? 과 같은 의미)
+	 * - writeLock은 다른 update / delete와의 인덱스 갱신 순서를 지키기 위한 것
+	 * - 재고 변경(CAS)은 잠금 없이 끼어들 수 있으므로 교체도 CAS로 하고, 실패하면 새 값으로 다시 비교한다
+	 * - 부분 수정: null이 아닌 필드만 반영 (바꿀 필드가 없으면 아무것도 하지 않는다)
+	 */
+	@Override
+	public void update(Long itemId, ItemUpdateDto updateParam) {
+		if (!updateParam.hasChanges()) {
+			return;
+		}
+		writeLock.lock();
+		try {
+			Long version = updateParam.getVersion();
+			Item findItem;
+			Item updatedItem;
+			do {
+				findItem = store.get(itemId);
+				if (version != null && (findItem == null || !version.equals(findItem.getVersion()))) {
+					throw new OptimisticLockingFailureException(
+							"상품이 없거나 다른 사용자가 먼저 수정했습니다. itemId=" + itemId + ", version=" + version);
+				}
+				updatedItem = copyOf(findItem);
+				updateParam.applyTo(updatedItem);
+				updatedItem.setVersion(findItem.getVersion() + 1);
+			} while (!store.replace(itemId, findItem, updatedItem));
+			removeFromIndexes(findItem);
+			addToIndexes(updatedItem);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public boolean decrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		return changeQuantity(itemId, -amount);
+	}
+
+	@Override
+	public boolean incrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		return changeQuantity(itemId, amount);
+	}
+
+	/**
+	 * 잠금 없는 CAS 루프
+	 * - 현재 값을 읽고 -> 새 재고로 복사본을 만들고 -> 그 사이 바뀌지 않았으면 교체
+	 * - 다른 스레드가 먼저 바꿨으면(replace 실패) 새 값을 다시 읽어 재시도
+	 * - 재고가 음수가 되거나 상품이 없으면(삭제 포함) false
+	 */
+	private boolean changeQuantity(Long itemId, int delta) {
+		while (true) {
+			Item current = store.get(itemId);
+			if (current == null) {
+				return false;
+			}
+			int quantity = Math.addExact(current.getQuantity(), delta);
+			if (quantity < 0) {
+				return false;
+			}
+			Item changed = copyOf(current);
+			changed.setQuantity(quantity);
+			changed.setVersion(current.getVersion() + 1);
+			if (store.replace(itemId, current, changed)) {
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public void delete(Long id) {
+		writeLock.lock();
+		try {
+			Item removed = store.remove(id);
+			if (removed != null) {
+				removeFromIndexes(removed);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	public void clearStore() {
+		writeLock.lock();
+		try {
+			store.clear();
+			priceIndex.clear();
+			nameIndex.clear();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private static Item copyOf(Item item) {
+		Item copy = new Item();
+		copy.setId(item.getId());
+		copy.setItemName(item.getItemName());
+		copy.setPrice(item.getPrice());
+		copy.setQuantity(item.getQuantity());
+		copy.setVersion(item.getVersion());
+		return copy;
+	}
+
+	private void addToIndexes(Item item) {
+		priceIndex.computeIfAbsent(item.getPrice(), price -> ConcurrentHashMap.newKeySet())
+				.add(item.getId());
+		nameIndex.add(item.getId(), item.getItemName());
+	}
+
+	private void removeFromIndexes(Item item) {
+		priceIndex.computeIfPresent(item.getPrice(), (price, ids) -> {
+			ids.remove(item.getId());
+			return ids.isEmpty() ? null : ids;
+		});
+		nameIndex.remove(item.getId(), item.getItemName());
+	}
+
+}
@@ -0,0 +1,89 @@
+package hello.springdb2.repository.memory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상품명 3-gram 역색인 (부분 문자열 검색용)
+ *
+ * 1. 색인
+ * - "itemA" -> "ite", "tem", "emA" 처럼 연속된 3글자 조각(gram)으로 나눈다
+ * - gram -> 그 gram을 포함하는 id 목록(posting list)
+ *
+ * 2. 검색
+ * - "temA"를 포함하는 상품은 반드시 "tem", "emA"를 모두 포함한다
+ * - 검색어의 gram별 posting list를 작은 것부터 교집합 -> 후보 id
+ * - gram을 모두 포함해도 연속해서 나타나지 않을 수 있으므로(거짓 양성) 최종 판단은 호출 측에서 contains()로 한다
+ * - 3글자 미만 검색어는 gram을 만들 수 없으므로 색인을 사용할 수 없다
+ *
+ * 3. 동시성
+ * - posting list는 동시성 Set, 갱신은 MemoryItemRepository의 쓰기 잠금 안에서만 일어난다
+ */
+class TrigramIndex {
+
+	static final int GRAM_LENGTH = 3;
+
+	private final ConcurrentHashMap<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+	static boolean isSearchable(String query) {
+		return query != null && query.length() >= GRAM_LENGTH;
+	}
+
+	void add(Long id, String text) {
+		for (String gram : grams(text)) {
+			postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+		}
+	}
+
+	void remove(Long id, String text) {
+		for (String gram : grams(text)) {
+			postings.computeIfPresent(gram, (key, ids) -> {
+				ids.remove(id);
+				return ids.isEmpty() ? null : ids;
+			});
+		}
+	}
+
+	/**
+	 * query의 모든 gram을 포함하는 id 후보 (id 오름차순)
+	 * - isSearchable(query)인 경우에만 호출
+	 */
+	NavigableSet<Long> candidates(String query) {
+		List<Set<Long>> lists = new ArrayList<>();
+		for (String gram : grams(query)) {
+			Set<Long> ids = postings.get(gram);
+			if (ids == null) {
+				return new TreeSet<>();
+			}
+			lists.add(ids);
+		}
+
+		lists.sort(Comparator.comparingInt(Set::size));
+		NavigableSet<Long> result = new TreeSet<>(lists.get(0));
+		for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+			result.retainAll(lists.get(i));
+		}
+		return result;
+	}
+
+	void clear() {
+		postings.clear();
+	}
+
+	private static Set<String> grams(String text) {
+		Set<String> grams = new HashSet<>();
+		if (text == null) {
+			return grams;
+		}
+		for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+			grams.add(text.substring(i, i + GRAM_LENGTH));
+		}
+		return grams;
+	}
+}
@@ -1,119 +1,216 @@
-package hello.springdb2.repository.mybatis;
-
-import java.util.List;
-import java.util.Optional;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-
-/**
- * MyBatis 개념 정리
- * 
- * 1. MyBatis
- * - MyBatis는 JDBC, JdbcTemplate 보다 더 많은 기능을 제공하는 SQL Mapper 프레임워크
- * - SQL을 XML로 편리하게 작성할 수 있고, 동적 쿼리를 매우 쉽게 만들 수 있다
- * ------------------------------------------------------------------------
- * 2. JdbcTemplate vs MyBatis
- * 
- *  - SQL 여러 줄 처리
- *    JdbcTemplate:
- *      String sql = "update item " +
- *       			 "set item_name=:itemName, price=:price, quantity=:quantity " +
- *       			 "where id = :id"
- *    
- *    MyBatis:
- *      <update id="update">
- *        update item
- *        set item_name=#{itemName},
- *            price=#{price}
- *            quantity=#{quantity}
- *        where id=#{id}
- *      </update>
- * 
- *  - 동적 쿼리 처리
- *    JdbcTemplate:
- *      String sql = "select id, item_name, price, quantity from item"
- *      if(condition) {
- *      	sql += " where...";
- *      }
- *      
- *    MyBatis:
- *      <select id="findAll" resultType="Item">
- *      	select id, item_name, price, quantity
- *       	from item
- *       	<where>
- *       		<if test="itemName != null and itemName != ''">
- *       			item_name like concat('%', #{itemName}, '%')
- *       		</if>
- *       		<if test="maxPrice != null">
- *       			price &lt;= #{maxPrice}
- *       		</if> 
- *       	</where>
- *      </select>  
- * ------------------------------------------------------------------------
- * 3. 관례의 불일치
- * - Java 객체는 camelCase 표기법 사용: itemName
- * - DB 컬럼은 snake_case 표기법 사용: item_name
- * - map-underscore-to-camel-case 옵션 활성화 시 자동 변환 가능
- * - 컬럼과 객체명이 완전히 다르면 별칭 사용 필요
- *   예:
- *     select item_name as name
- * ------------------------------------------------------------------------
- *  # MyBatis 설정
- *  mybatis.type-aliases-package=hello.springdb2.domain
- *  - 지정한 패키지의 도메인 클래스명을 MyBatis에서 별칭으로 사용 가능
- *  
- *  mybatis.configuration.map-underscore-to-camel-case=true
- *  - DB 컬럼명 snake_case 자동 변환
- *
- *  logging.level.hello.itemservice.repository.mybatis=trace
- *  - MyBatis 실행 쿼리 로그 확인 가능  
- */
-
-@Slf4j
-@RequiredArgsConstructor
-public class MyBatisItemRepository implements ItemRepository {
-
-	/**
-	 * 스프링이 itemMapper 프록시 객체를 자동으로 주입
-	 * - ItemMapper는 인터페이스일 뿐인데, MyBatis가 동적 프록시 구현체를 만들어서 
-	 *   스프링 빈으로 등록해 둠 (@MapperScan)
-	 *   
-	 * @MapperScan 
-	 * - MyBatis에서 @Mapper 가 붙은 인터페이스를 자동으로 스캔해서
-	 *   동적 프록시 객체를 만들어 스프링 빈으로 등록해주는 기능
-	 */
-	private final ItemMapper itemMapper;
-	
-	@Override
-	public Item save(Item item) {
-		log.info("itemMapper class = {}", itemMapper);
-		itemMapper.save(item);
-		return item;
-	}
-
-	@Override
-	public Optional<Item> findById(Long id) {
-		return itemMapper.findById(id);
-	}
-
-	@Override
-	public List<Item> findAll(ItemSearchCond cond) {
-		return itemMapper.findAll(cond);
-	}
-
-	@Override
-	public void update(Long itemId, ItemUpdateDto updateParam) {
-		itemMapper.update(itemId, updateParam);
-	}
-
-	@Override
-	public void delete(Long id) {
-		itemMapper.delete(id);
-	}
-
-}
+package hello.springdb2.repository.mybatis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.Assert;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MyBatis 개념 정리
+ * 
+ * 1. MyBatis
+ * - MyBatis는 JDBC, JdbcTemplate 보다 더 많은 기능을 제공하는 SQL Mapper 프레임워크
+ * - SQL을 XML로 편리하게 작성할 수 있고, 동적 쿼리를 매우 쉽게 만들 수 있다
+ * ------------------------------------------------------------------------
+ * 2. JdbcTemplate vs MyBatis
+ * 
+ *  - SQL 여러 줄 처리
+ *    JdbcTemplate:
+ *      String sql = "update item " +
+ *       			 "set item_name=:itemName, price=:price, quantity=:quantity " +
+ *       			 "where id = :id"
+ *    
+ *    MyBatis:
+ *      <update id="update">
+ *        update item
+ *        set item_name=#{itemName},
+ *            price=#{price}
+ *            quantity=#{quantity}
+ *        where id=#{id}
+ *      </update>
+ * 
+ *  - 동적 쿼리 처리
+ *    JdbcTemplate:
+ *      String sql = "select id, item_name, price, quantity from item"
+ *      if(condition) {
+ *      	sql += " where...";
+ *      }
+ *      
+ *    MyBatis:
+ *      <select id="findAll" resultType="Item">
+ *      	select id, item_name, price, quantity
+ *       	from item
+ *       	<where>
+ *       		<if test="itemName != null and itemName != ''">
+ *       			item_name like concat('%', #{itemName}, '%')
+ *       		</if>
+ *       		<if test="maxPrice != null">
+ *       			price &lt;= #{maxPrice}
+ *       		</if> 
+ *       	</where>
+ *      </select>  
+ * ------------------------------------------------------------------------
+ * 3. 관례의 불일치
+ * - Java 객체는 camelCase 표기법 사용: itemName
+ * - DB 컬럼은 snake_case 표기법 사용: item_name
+ * - map-underscore-to-camel-case 옵션 활성화 시 자동 변환 가능
+ * - 컬럼과 객체명이 완전히 다르면 별칭 사용 필요
+ *   예:
+ *     select item_name as name
+ * ------------------------------------------------------------------------
+ *  # MyBatis 설정
+ *  mybatis.type-aliases-package=hello.springdb2.domain
+ *  - 지정한 패키지의 도메인 클래스명을 MyBatis에서 별칭으로 사용 가능
+ *  
+ *  mybatis.configuration.map-underscore-to-camel-case=true
+ *  - DB 컬럼명 snake_case 자동 변환
+ *
+ *  logging.level.hello.itemservice.repository.mybatis=trace
+ *  - MyBatis 실행 쿼리 로그 확인 가능  
+ */
+
+@Slf4j
+@RequiredArgsConstructor
+public class MyBatisItemRepository implements ItemRepository {
+
+	/**
+	 * 스프링이 itemMapper 프록시 객체를 자동으로 주입
+	 * - ItemMapper는 인터페이스일 뿐인데, MyBatis가 동적 프록시 구현체를 만들어서 
+	 *   스프링 빈으로 등록해 둠 (@MapperScan)
+	 *   
+	 * @MapperScan 
+	 * - MyBatis에서 @Mapper 가 붙은 인터페이스를 자동으로 스캔해서
+	 *   동적 프록시 객체를 만들어 스프링 빈으로 등록해주는 기능
+	 */
+	private final ItemMapper itemMapper;
+	
+	/**
+	 * 배치 전용 SqlSession을 열기 위한 팩토리
+	 * - 주입받은 itemMapper는 SIMPLE 실행기(문장 1건 = DB 왕복 1회)로 동작한다
+	 */
+	private final SqlSessionFactory sqlSessionFactory;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize는 0보다 커야 합니다");
+		this.batchSize = batchSize;
+	}
+	
+	@Override
+	public Item save(Item item) {
+		log.info("itemMapper class = {}", itemMapper);
+		itemMapper.save(item);
+		item.setVersion(0L);
+		return item;
+	}
+
+	/**
+	 * ExecutorType.BATCH
+	 * - 같은 INSERT 문장을 PreparedStatement.addBatch()로 모아 두었다가
+	 *   flushStatements() 시점에 executeBatch()로 한 번에 전송
+	 * - useGeneratedKeys="true" 설정은 배치에서도 적용되어 flush 후 각 Item에 id가 채워진다
+	 * - SqlSessionFactory가 SpringManagedTransaction을 사용하므로 진행 중인 스프링 트랜잭션에 참여한다
+	 */
+	@Override
+	public List<Item> saveAll(Collection<Item> items) {
+		List<Item> savedItems = new ArrayList<>(items.size());
+		try (SqlSession batchSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+			ItemMapper batchMapper = batchSession.getMapper(ItemMapper.class);
+			for (Item item : items) {
+				batchMapper.save(item);
+				item.setVersion(0L);
+				savedItems.add(item);
+				if (savedItems.size() % batchSize == 0) {
+					batchSession.flushStatements();
+				}
+			}
+			batchSession.flushStatements();
+			batchSession.commit();
+		}
+		return savedItems;
+	}
+
+	@Override
+	public Optional<Item> findById(Long id) {
+		return itemMapper.findById(id);
+	}
+
+	@Override
+	public List<Item> findAll(ItemSearchCond cond) {
+		return itemMapper.findAll(cond);
+	}
+
+	@Override
+	public List<Item> findPage(ItemSearchCond cond, Long afterId, int limit) {
+		return itemMapper.findPage(cond, afterId, limit);
+	}
+
+	/**
+	 * Cursor 스트리밍
+	 * - 커서는 SqlSession이 열려 있는 동안만 읽을 수 있다
+	 *   -> 주입받은 itemMapper(SqlSessionTemplate)는 트랜잭션 밖이면 메서드가 끝날 때 세션을 닫으므로 직접 세션을 연다
+	 * - saveAll()과 마찬가지로 진행 중인 스프링 트랜잭션이 있으면 그 커넥션을 사용한다
+	 * - fetchSize는 itemMapper.xml의 streamAll에 지정
+	 */
+	@Override
+	public void stream(ItemSearchCond cond, Consumer<Item> action) {
+		try (SqlSession session = sqlSessionFactory.openSession();
+				Cursor<Item> cursor = session.getMapper(ItemMapper.class).streamAll(cond)) {
+			cursor.forEach(action);
+		} catch (IOException e) {
+			throw new DataAccessResourceFailureException("커서를 닫는 중 오류가 발생했습니다", e);
+		}
+	}
+
+	/**
+	 * 낙관적 락: 매퍼가 where id = #{id} and version = #{updateParam.version} 으로 수정한 건수를 돌려준다
+	 * - 0건 -> 그 사이 다른 트랜잭션이 먼저 수정(또는 삭제) -> OptimisticLockingFailureException
+	 * - 부분 수정: 매퍼의 <set> + <if>가 null이 아닌 필드만 SET 절에 넣는다 (바꿀 필드가 없으면 실행하지 않음)
+	 */
+	@Override
+	public void update(Long itemId, ItemUpdateDto updateParam) {
+		if (!updateParam.hasChanges()) {
+			return;
+		}
+		int updated = itemMapper.update(itemId, updateParam);
+		if (updated == 0 && updateParam.getVersion() != null) {
+			throw new OptimisticLockingFailureException(
+					"상품이 없거나 다른 사용자가 먼저 수정했습니다. itemId=" + itemId + ", version=" + updateParam.getVersion());
+		}
+	}
+
+	@Override
+	public boolean decrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		return itemMapper.decrementQuantity(itemId, amount) == 1;
+	}
+
+	@Override
+	public boolean incrementQuantity(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		return itemMapper.incrementQuantity(itemId, amount) == 1;
+	}
+
+	@Override
+	public void delete(Long id) {
+		itemMapper.delete(id);
+	}
+
+}
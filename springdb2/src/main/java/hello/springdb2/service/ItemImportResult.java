@@ -0,0 +1,19 @@
+package hello.springdb2.service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * CSV 가져오기 결과
+ * - totalRows: 읽은 데이터 행 수 (헤더, 빈 줄 제외)
+ * - importedRows / failedRows: 저장된 행 수 / 검증 또는 저장에 실패한 행 수
+ * - errors: 실패 사유 (최대 ItemImportService.MAX_ERRORS 건)
+ */
+public record ItemImportResult(long totalRows, long importedRows, long failedRows, List<String> errors,
+		Duration elapsed) {
+
+	public double rowsPerSecond() {
+		long millis = elapsed.toMillis();
+		return millis == 0 ? importedRows : importedRows * 1000.0 / millis;
+	}
+}
@@ -0,0 +1,384 @@
+package hello.springdb2.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.cache.ItemQueryCache;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ItemImportService (CSV 대량 가져오기)
+ * 
+ * 1. 파이프라인
+ *  - 읽기(호출 스레드): 업로드 스트림을 한 레코드씩 읽어 chunkSize 단위로 묶는다
+ *  - 파싱/검증/저장(작업 스레드 workers개): 묶음을 파싱 -> schema.sql 기준 검증 -> saveAll() 배치 INSERT
+ *  - 묶음마다 별도 트랜잭션 (TransactionTemplate) -> 한 묶음이 실패해도 나머지는 저장된다
+ *  - 묶음 저장이 실패하면 그 묶음만 한 행씩(행마다 트랜잭션) 다시 저장 -> 실제로 잘못된 행만 실패로 센다
+ * 
+ * 2. 메모리 제한
+ *  - 동시에 처리 중인 묶음 수를 Semaphore(maxInFlightChunks)로 제한
+ *    -> 작업 스레드가 밀리면 읽기가 멈추므로 메모리에는 최대 maxInFlightChunks * chunkSize 행만 올라온다
+ * 
+ * 3. CSV 형식
+ *  - 첫 줄은 헤더, item_name, price, quantity 컬럼이 있어야 한다 (순서 무관, id 등 다른 컬럼은 무시)
+ *    -> /items/export.csv 로 내보낸 파일을 그대로 가져올 수 있다
+ *  - 큰따옴표로 감싼 필드 안의 쉼표, 줄바꿈, "" 를 지원 (RFC 4180)
+ *  - 닫히지 않은 큰따옴표는 그 행만 실패 처리 (MAX_RECORD_LENGTH 또는 파일 끝까지 닫히지 않을 때, CsvReader 참고)
+ * 
+ * 4. 진행 상황
+ *  - PROGRESS_LOG_INTERVAL 묶음마다 처리 행 수와 초당 처리량을 로그로 남긴다
+ */
+@Slf4j
+public class ItemImportService {
+
+	public static final int MAX_ERRORS = 100;
+	private static final int PROGRESS_LOG_INTERVAL = 10;
+	private static final int MAX_ITEM_NAME_LENGTH = 255;
+	private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+	private final ItemRepository itemRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final ItemQueryCache itemQueryCache;
+	private final int chunkSize;
+	private final int workers;
+	private final int maxInFlightChunks;
+
+	public ItemImportService(ItemRepository itemRepository, PlatformTransactionManager transactionManager,
+			ItemQueryCache itemQueryCache, int chunkSize, int workers, int maxInFlightChunks) {
+		Assert.isTrue(chunkSize > 0, "chunkSize는 0보다 커야 합니다");
+		Assert.isTrue(workers > 0, "workers는 0보다 커야 합니다");
+		Assert.isTrue(maxInFlightChunks >= workers, "maxInFlightChunks는 workers 이상이어야 합니다");
+		this.itemRepository = itemRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.itemQueryCache = itemQueryCache;
+		this.chunkSize = chunkSize;
+		this.workers = workers;
+		this.maxInFlightChunks = maxInFlightChunks;
+	}
+
+	/**
+	 * @throws IllegalArgumentException 헤더에 필수 컬럼이 없을 때
+	 */
+	public ItemImportResult importCsv(InputStream in) throws IOException {
+		ImportProgress progress = new ImportProgress();
+		Semaphore inFlight = new Semaphore(maxInFlightChunks);
+
+		try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+				ExecutorService executor = Executors.newFixedThreadPool(workers,
+						Thread.ofPlatform().name("item-import-", 1).factory())) {
+			CsvReader reader = new CsvReader(bufferedReader);
+			CsvRecord header = reader.read();
+			if (header == null) {
+				return progress.result();
+			}
+			if (header.unterminated()) {
+				throw new IllegalArgumentException("CSV 헤더의 큰따옴표가 닫히지 않았습니다");
+			}
+			ColumnLayout layout = ColumnLayout.of(header.text());
+
+			List<CsvRecord> chunk = new ArrayList<>(chunkSize);
+			while (true) {
+				CsvRecord record = reader.read();
+				if (record == null) {
+					break;
+				}
+				if (record.text().isBlank()) {
+					continue;
+				}
+				chunk.add(record);
+				if (chunk.size() == chunkSize) {
+					submit(executor, inFlight, chunk, layout, progress);
+					chunk = new ArrayList<>(chunkSize);
+				}
+			}
+			if (!chunk.isEmpty()) {
+				submit(executor, inFlight, chunk, layout, progress);
+			}
+		} finally {
+			itemQueryCache.clear();
+		}
+
+		ItemImportResult result = progress.result();
+		log.info("CSV 가져오기 완료: total={}, imported={}, failed={}, elapsed={}ms, {} rows/s",
+				result.totalRows(), result.importedRows(), result.failedRows(), result.elapsed().toMillis(),
+				String.format(Locale.ROOT, "%.0f", result.rowsPerSecond()));
+		return result;
+	}
+
+	private void submit(ExecutorService executor, Semaphore inFlight, List<CsvRecord> chunk, ColumnLayout layout,
+			ImportProgress progress) {
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("CSV 가져오기가 중단되었습니다", e);
+		}
+		executor.execute(() -> {
+			try {
+				processChunk(chunk, layout, progress);
+			} finally {
+				inFlight.release();
+			}
+		});
+	}
+
+	private void processChunk(List<CsvRecord> chunk, ColumnLayout layout, ImportProgress progress) {
+		List<ParsedRow> rows = new ArrayList<>(chunk.size());
+		for (CsvRecord record : chunk) {
+			if (record.unterminated()) {
+				progress.error(record.lineNumber(), "큰따옴표가 닫히지 않았습니다");
+				continue;
+			}
+			try {
+				rows.add(new ParsedRow(record.lineNumber(), layout.toItem(splitFields(record.text()))));
+			} catch (IllegalArgumentException e) {
+				progress.error(record.lineNumber(), e.getMessage());
+			}
+		}
+
+		long imported = 0;
+		if (!rows.isEmpty()) {
+			List<Item> items = new ArrayList<>(rows.size());
+			for (ParsedRow row : rows) {
+				items.add(row.item());
+			}
+			try {
+				transactionTemplate.executeWithoutResult(status -> itemRepository.saveAll(items));
+				imported = items.size();
+			} catch (RuntimeException e) {
+				log.warn("CSV 묶음 저장 실패 (line {}~), 한 행씩 다시 저장합니다", chunk.get(0).lineNumber(), e);
+				imported = saveRowByRow(rows, progress);
+			}
+		}
+		progress.chunkDone(chunk.size(), imported);
+	}
+
+	/**
+	 * 실패한 묶음을 한 행씩 저장 (행마다 트랜잭션)
+	 * - 롤백된 saveAll이 id / version을 채웠을 수 있으므로 값만 옮긴 새 Item으로 저장한다
+	 */
+	private long saveRowByRow(List<ParsedRow> rows, ImportProgress progress) {
+		long imported = 0;
+		for (ParsedRow row : rows) {
+			Item item = new Item(row.item().getItemName(), row.item().getPrice(), row.item().getQuantity());
+			try {
+				transactionTemplate.executeWithoutResult(status -> itemRepository.save(item));
+				imported++;
+			} catch (RuntimeException e) {
+				progress.error(row.lineNumber(), "저장 실패: " + e.getMessage());
+			}
+		}
+		return imported;
+	}
+
+	private static int countQuotes(String line) {
+		int count = 0;
+		for (int i = 0; i < line.length(); i++) {
+			if (line.charAt(i) == '"') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	static List<String> splitFields(String record) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < record.length(); i++) {
+			char c = record.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	/**
+	 * unterminated: 큰따옴표가 닫히지 않은 레코드 (text는 첫 줄만)
+	 */
+	private record CsvRecord(int lineNumber, String text, boolean unterminated) {
+	}
+
+	private record ParsedRow(int lineNumber, Item item) {
+	}
+
+	/**
+	 * 레코드 단위 읽기: 큰따옴표가 닫히지 않았으면 다음 줄까지 이어 붙인다
+	 * - MAX_RECORD_LENGTH를 넘거나 파일이 끝날 때까지 닫히지 않으면 첫 줄만 잘못된 레코드로 돌려주고
+	 *   이어 읽은 줄은 되돌려 놓는다 -> 다음 줄부터 다시 레코드로 읽으므로 따옴표 하나가 나머지 파일을 삼키지 않는다
+	 * - 되돌려 놓는 줄은 최대 MAX_RECORD_LENGTH 만큼이라 메모리 사용량도 제한된다
+	 */
+	private static class CsvReader {
+
+		private final BufferedReader reader;
+		private final Deque<String> pushedBack = new ArrayDeque<>();
+		private int lineNumber;
+
+		CsvReader(BufferedReader reader) {
+			this.reader = reader;
+		}
+
+		CsvRecord read() throws IOException {
+			String line = readLine();
+			if (line == null) {
+				return null;
+			}
+			int startLine = lineNumber;
+			int quotes = countQuotes(line);
+			if (quotes % 2 == 0) {
+				return new CsvRecord(startLine, line, false);
+			}
+
+			List<String> continued = new ArrayList<>();
+			int length = line.length();
+			String next;
+			while (quotes % 2 != 0 && length <= MAX_RECORD_LENGTH && (next = readLine()) != null) {
+				continued.add(next);
+				length += next.length() + 1;
+				quotes += countQuotes(next);
+			}
+			if (quotes % 2 == 0) {
+				StringBuilder record = new StringBuilder(length).append(line);
+				for (String part : continued) {
+					record.append('\n').append(part);
+				}
+				return new CsvRecord(startLine, record.toString(), false);
+			}
+
+			for (int i = continued.size() - 1; i >= 0; i--) {
+				pushedBack.push(continued.get(i));
+			}
+			lineNumber = startLine;
+			return new CsvRecord(startLine, line, true);
+		}
+
+		private String readLine() throws IOException {
+			String line = pushedBack.isEmpty() ? reader.readLine() : pushedBack.pop();
+			if (line != null) {
+				lineNumber++;
+			}
+			return line;
+		}
+	}
+
+	/**
+	 * 헤더에서 찾은 컬럼 위치 + schema.sql 기준 검증
+	 * - item_name varchar(255) not null
+	 * - price int not null, quantity int not null
+	 */
+	private record ColumnLayout(int itemName, int price, int quantity) {
+
+		static ColumnLayout of(String header) {
+			List<String> columns = splitFields(header.replace("\uFEFF", ""));
+			List<String> normalized = new ArrayList<>(columns.size());
+			for (String column : columns) {
+				normalized.add(column.trim().toLowerCase(Locale.ROOT));
+			}
+			int itemName = normalized.indexOf("item_name");
+			int price = normalized.indexOf("price");
+			int quantity = normalized.indexOf("quantity");
+			if (itemName < 0 || price < 0 || quantity < 0) {
+				throw new IllegalArgumentException("CSV 헤더에 item_name, price, quantity 컬럼이 필요합니다: " + header);
+			}
+			return new ColumnLayout(itemName, price, quantity);
+		}
+
+		Item toItem(List<String> fields) {
+			int required = Math.max(itemName, Math.max(price, quantity)) + 1;
+			if (fields.size() < required) {
+				throw new IllegalArgumentException("컬럼 수가 부족합니다 (" + fields.size() + "/" + required + ")");
+			}
+
+			String name = fields.get(itemName);
+			if (name.isBlank()) {
+				throw new IllegalArgumentException("item_name은 비어 있을 수 없습니다");
+			}
+			if (name.length() > MAX_ITEM_NAME_LENGTH) {
+				throw new IllegalArgumentException("item_name은 " + MAX_ITEM_NAME_LENGTH + "자를 넘을 수 없습니다");
+			}
+			return new Item(name, parseInt("price", fields.get(price)), parseInt("quantity", fields.get(quantity)));
+		}
+
+		private static int parseInt(String column, String value) {
+			try {
+				return Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(column + "는 정수여야 합니다: " + value);
+			}
+		}
+	}
+
+	/**
+	 * 작업 스레드들이 함께 갱신하는 진행 상황
+	 */
+	private static class ImportProgress {
+
+		private final long startNanos = System.nanoTime();
+		private final AtomicLong totalRows = new AtomicLong();
+		private final AtomicLong importedRows = new AtomicLong();
+		private final AtomicInteger chunks = new AtomicInteger();
+		private final AtomicInteger errorCount = new AtomicInteger();
+		private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+
+		void error(int lineNumber, String message) {
+			if (errorCount.incrementAndGet() <= MAX_ERRORS) {
+				errors.add("line " + lineNumber + ": " + message);
+			}
+		}
+
+		void chunkDone(int rows, long imported) {
+			long total = totalRows.addAndGet(rows);
+			long importedTotal = importedRows.addAndGet(imported);
+			if (chunks.incrementAndGet() % PROGRESS_LOG_INTERVAL == 0) {
+				double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+				log.info("CSV 가져오기 진행: {}행 처리, {}행 저장 ({} rows/s)", total, importedTotal,
+						String.format(Locale.ROOT, "%.0f", importedTotal / seconds));
+			}
+		}
+
+		ItemImportResult result() {
+			long total = totalRows.get();
+			long imported = importedRows.get();
+			return new ItemImportResult(total, imported, total - imported, List.copyOf(errors),
+					Duration.ofNanos(System.nanoTime() - startNanos));
+		}
+	}
+}
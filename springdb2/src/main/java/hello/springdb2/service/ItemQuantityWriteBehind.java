@@ -0,0 +1,475 @@
+package hello.springdb2.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import hello.springdb2.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ItemQuantityWriteBehind (인기 상품 재고 변화량 지연 쓰기)
+ *
+ * 1. 문제
+ *  - 재고 차감은 조건부 UPDATE 한 문장이지만, 같은 상품에 요청이 몰리면 모두 그 한 행의 잠금을 기다린다
+ *
+ * 2. 핫 상품 감지
+ *  - detectionWindow 마다 상품별 요청 수를 세고, hotThreshold 이상인 상품(최대 maxHotItems개)을 핫 상품으로 지정
+ *  - 지정할 때마다 DB 재고를 읽어 기준 재고(baseQuantity)를 맞춘다
+ *    -> ItemRepository.findQuantity: findById 캐시(CachingItemRepository)를 거치지 않는다
+ *       (JdbcTemplate 직접 수정처럼 캐시를 모르는 경로로 줄인 재고를 옛 값으로 읽지 않도록)
+ *  - 핫이 아닌 상품은 그대로 ItemRepository.decrementQuantity / incrementQuantity (즉시 반영)
+ *
+ * 3. 핫 상품 변화량 누적
+ *  - 남은 재고(available = 기준 재고 + 누적 변화량)만 AtomicLong에 두고, 플러시할 변화량은 available - 기준 재고로 계산 -> DB 잠금 없음
+ *  - 차감은 available을 CAS로 예약한다 (남은 재고 이상이면 거절)
+ *    -> 검사와 차감이 한 번의 원자적 교체라 동시에 들어온 요청끼리도 재고를 넘겨 승인하지 않는다
+ *
+ * 4. 플러시 (flushInterval 마다, 백그라운드 스레드 1개)
+ *  - 누적 변화량을 상품별로 합쳐 flushBatchSize 건씩 한 트랜잭션으로 ItemRepository에 반영
+ *  - 반영한 만큼만 기준 재고를 옮기므로 플러시 도중 들어온 변화량은 다음 플러시로 넘어간다
+ *  - 트랜잭션이 실패하면 기준 재고를 그대로 둔다 -> 다음 플러시에서 다시 시도
+ *  - 다른 경로(수정 폼, 핫 지정 전 요청)가 DB 재고를 줄여 조건부 UPDATE가 실패하면
+ *    DB 재고를 다시 읽어 들어가는 만큼만 차감하고, 못 넣은 수량(이미 승인한 초과 판매)을 rejectedCount와 로그로 남긴다
+ *    -> 승인한 차감을 통째로 버리지 않는다, 이후 기준 재고는 DB 값으로 다시 맞춘다
+ *  - DB와 조회 결과의 차이는 최대 flushInterval (bounded staleness)
+ *
+ * 5. 핫 상품 해제 (감지 주기에서 빠지거나 close)
+ *  - DB 재고에는 아직 플러시하지 않은 예약이 빠져 있으므로, 예약이 남은 채로 바로 반영하면 같은 재고를 두 번 판다
+ *  - 그래서 flushLock 안에서 카운터를 먼저 닫고(RETIRED, 이후 예약 / 증가는 들어오지 않음) 남은 변화량을 반영한 뒤에 핫 상품에서 뺀다
+ *  - 닫힌 카운터를 만난 호출은 flushLock을 기다렸다가 다시 라우팅한다 -> 바로 반영할 때는 DB에 이미 그 변화량이 들어가 있다
+ *  - 반영에 실패하면 카운터를 다시 열고 핫 상품으로 남긴다 (다음 감지 주기에 다시 시도)
+ *
+ * 6. 종료
+ *  - close(): 스케줄러를 멈춘 뒤 모든 핫 상품을 해제 (실패하면 몇 번 더 시도 후 남은 값을 로그로 남긴다)
+ *  - 닫힌 뒤의 호출은 누적하지 않고 바로 반영한다
+ *  - 프로세스가 강제 종료되면 마지막 플러시 이후의 변화량(최대 flushInterval 분량)은 유실된다
+ */
+@Slf4j
+public class ItemQuantityWriteBehind implements AutoCloseable {
+
+	private static final int CLOSE_FLUSH_ATTEMPTS = 3;
+	private static final int APPLY_ATTEMPTS = 3;
+
+	private final ItemRepository itemRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final Duration flushInterval;
+	private final Duration detectionWindow;
+	private final int hotThreshold;
+	private final int maxHotItems;
+	private final int flushBatchSize;
+
+	private final ConcurrentHashMap<Long, HotCounter> counters = new ConcurrentHashMap<>();
+	private volatile ConcurrentHashMap<Long, LongAdder> hits = new ConcurrentHashMap<>();
+	private volatile Set<Long> hotIds = Set.of();
+	private volatile boolean closed;
+
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private ScheduledExecutorService scheduler;
+
+	private final LongAdder bufferedCount = new LongAdder();
+	private final LongAdder directCount = new LongAdder();
+	private final LongAdder flushedCount = new LongAdder();
+	private final LongAdder rejectedCount = new LongAdder();
+
+	public ItemQuantityWriteBehind(ItemRepository itemRepository, PlatformTransactionManager transactionManager,
+			Duration flushInterval, Duration detectionWindow, int hotThreshold, int maxHotItems, int flushBatchSize) {
+		Assert.isTrue(!flushInterval.isNegative() && !flushInterval.isZero(), "flushInterval은 0보다 커야 합니다");
+		Assert.isTrue(!detectionWindow.isNegative() && !detectionWindow.isZero(), "detectionWindow는 0보다 커야 합니다");
+		Assert.isTrue(hotThreshold > 0, "hotThreshold는 0보다 커야 합니다");
+		Assert.isTrue(maxHotItems > 0, "maxHotItems는 0보다 커야 합니다");
+		Assert.isTrue(flushBatchSize > 0, "flushBatchSize는 0보다 커야 합니다");
+		this.itemRepository = itemRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.flushInterval = flushInterval;
+		this.detectionWindow = detectionWindow;
+		this.hotThreshold = hotThreshold;
+		this.maxHotItems = maxHotItems;
+		this.flushBatchSize = flushBatchSize;
+	}
+
+	public void start() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(
+				Thread.ofPlatform().name("item-write-behind").daemon().factory());
+		scheduler.scheduleWithFixedDelay(this::flushQuietly,
+				flushInterval.toNanos(), flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+		scheduler.scheduleWithFixedDelay(this::rollWindowQuietly,
+				detectionWindow.toNanos(), detectionWindow.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return 핫 상품이면 예약 여부(남은 재고가 부족하면 false), 아니면 decrementQuantity 결과
+	 */
+	public boolean decrement(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		HotCounter counter = hotCounter(itemId);
+		while (counter != null) {
+			if (counter.tryReserve(amount)) {
+				bufferedCount.increment();
+				return true;
+			}
+			if (!counter.isRetired()) {
+				return false;
+			}
+			counter = awaitRetirement(itemId);
+		}
+		directCount.increment();
+		return itemRepository.decrementQuantity(itemId, amount);
+	}
+
+	public boolean increment(Long itemId, int amount) {
+		Assert.isTrue(amount > 0, "amount는 0보다 커야 합니다");
+		HotCounter counter = hotCounter(itemId);
+		while (counter != null) {
+			if (counter.add(amount)) {
+				bufferedCount.increment();
+				return true;
+			}
+			counter = awaitRetirement(itemId);
+		}
+		directCount.increment();
+		return itemRepository.incrementQuantity(itemId, amount);
+	}
+
+	/**
+	 * 요청 수를 세고, 핫 상품이면 카운터를 반환 (아니면 null -> 바로 반영)
+	 * - close 중에도 아직 해제하지 않은 카운터는 반환한다 (해제할 때 함께 반영된다)
+	 */
+	private HotCounter hotCounter(Long itemId) {
+		if (!closed) {
+			hits.computeIfAbsent(itemId, id -> new LongAdder()).increment();
+		}
+		return hotIds.contains(itemId) ? counters.get(itemId) : null;
+	}
+
+	/**
+	 * 닫힌 카운터를 만났을 때: 해제(남은 변화량 반영)가 끝날 때까지 기다린 뒤 다시 라우팅
+	 * - 해제에 성공했으면 null (바로 반영), 실패해서 카운터를 다시 열었으면 그 카운터
+	 */
+	private HotCounter awaitRetirement(Long itemId) {
+		flushLock.lock();
+		try {
+			return hotIds.contains(itemId) ? counters.get(itemId) : null;
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * 누적된 변화량을 ItemRepository에 반영 (스케줄러 / close / 테스트에서 호출)
+	 */
+	public void flush() {
+		flushLock.lock();
+		try {
+			List<PendingDelta> pending = new ArrayList<>();
+			counters.forEach((itemId, counter) -> {
+				long delta = counter.pendingDelta();
+				if (delta != 0) {
+					pending.add(new PendingDelta(itemId, counter, delta));
+				}
+			});
+			applyInBatches(pending, failed -> {});
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * flushBatchSize 건씩 한 트랜잭션으로 반영, 실패한 배치는 onFailure로 넘긴다 (flushLock 안에서만 호출)
+	 */
+	private void applyInBatches(List<PendingDelta> pending, Consumer<List<PendingDelta>> onFailure) {
+		for (int from = 0; from < pending.size(); from += flushBatchSize) {
+			List<PendingDelta> batch = pending.subList(from, Math.min(from + flushBatchSize, pending.size()));
+			try {
+				transactionTemplate.executeWithoutResult(status -> batch.forEach(PendingDelta::apply));
+			} catch (RuntimeException e) {
+				log.error("재고 변화량 반영 실패, 다음 플러시(해제)에서 다시 시도합니다. items={}", batch.size(), e);
+				onFailure.accept(batch);
+				continue;
+			}
+			batch.forEach(PendingDelta::completed);
+		}
+	}
+
+	/**
+	 * 핫 상품 해제: 카운터를 닫고 남은 변화량을 반영한 뒤 카운터를 지운다 (flushLock 안에서만 호출)
+	 * - 닫은 뒤에는 예약이 들어오지 않으므로 닫을 때의 available로 마지막 변화량이 정해진다
+	 * - 반영에 실패한 상품은 카운터를 다시 연다
+	 * @return 해제하지 못해 핫 상품으로 남겨야 하는 id
+	 */
+	private Set<Long> retire(Collection<Long> itemIds) {
+		List<PendingDelta> pending = new ArrayList<>();
+		for (Long itemId : itemIds) {
+			HotCounter counter = counters.get(itemId);
+			if (counter == null) {
+				continue;
+			}
+			long delta = counter.retire();
+			if (delta == 0) {
+				counters.remove(itemId);
+			} else {
+				pending.add(new PendingDelta(itemId, counter, delta));
+			}
+		}
+
+		Set<Long> remaining = new HashSet<>();
+		applyInBatches(pending, failed -> failed.forEach(pendingDelta -> {
+			pendingDelta.counter.reopen(pendingDelta.delta);
+			remaining.add(pendingDelta.itemId);
+		}));
+		return remaining;
+	}
+
+	/**
+	 * 핫 상품 다시 지정 (detectionWindow 마다)
+	 * - 지정하기 전에 DB 재고를 기준 재고로 다시 읽는다 (수정 폼 등 다른 경로의 변경을 따라잡기 위해)
+	 * - DB 재고에는 아직 플러시하지 않은 변화량이 빠져 있으므로 available은 기준 재고가 바뀐 만큼만 옮긴다 (HotCounter.rebase)
+	 * - 빠지는 상품은 hotIds를 바꾸기 전에 해제한다 (retire)
+	 */
+	public void rollWindow() {
+		flushLock.lock();
+		try {
+			Map<Long, LongAdder> window = hits;
+			hits = new ConcurrentHashMap<>();
+
+			List<Long> candidates = window.entrySet().stream()
+					.filter(entry -> entry.getValue().sum() >= hotThreshold)
+					.sorted(Comparator.comparingLong((Map.Entry<Long, LongAdder> entry) -> entry.getValue().sum())
+							.reversed())
+					.limit(maxHotItems)
+					.map(Map.Entry::getKey)
+					.toList();
+
+			Set<Long> previous = hotIds;
+			List<Long> nextHotIds = new ArrayList<>(candidates.size());
+			for (Long itemId : candidates) {
+				if (refreshBaseQuantity(itemId)) {
+					nextHotIds.add(itemId);
+				}
+			}
+			List<Long> demoted = previous.stream().filter(itemId -> !nextHotIds.contains(itemId)).toList();
+			nextHotIds.addAll(retire(demoted));
+			hotIds = Set.copyOf(nextHotIds);
+			if (!hotIds.equals(previous)) {
+				log.info("핫 상품 변경 {} -> {}", previous, hotIds);
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * flushLock을 잡은 상태에서만 호출 (baseQuantity는 flushLock으로 보호)
+	 */
+	private boolean refreshBaseQuantity(Long itemId) {
+		Optional<Integer> quantity = itemRepository.findQuantity(itemId);
+		if (quantity.isEmpty()) {
+			return false;
+		}
+		counters.computeIfAbsent(itemId, id -> new HotCounter()).rebase(quantity.get());
+		return true;
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			log.error("재고 변화량 플러시 실패", e);
+		}
+	}
+
+	private void rollWindowQuietly() {
+		try {
+			rollWindow();
+		} catch (RuntimeException e) {
+			log.error("핫 상품 감지 실패", e);
+		}
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		closed = true;
+		if (scheduler != null) {
+			scheduler.shutdown();
+			scheduler.awaitTermination(flushInterval.toMillis() + 10_000, TimeUnit.MILLISECONDS);
+		}
+
+		flushLock.lock();
+		try {
+			Set<Long> remaining = Set.copyOf(counters.keySet());
+			for (int attempt = 0; attempt < CLOSE_FLUSH_ATTEMPTS && !remaining.isEmpty(); attempt++) {
+				remaining = retire(remaining);
+			}
+			if (!remaining.isEmpty()) {
+				Map<Long, Long> lost = remaining.stream()
+						.collect(Collectors.toMap(itemId -> itemId, itemId -> counters.get(itemId).pendingDelta()));
+				log.error("종료 시 반영하지 못한 재고 변화량 {}", lost);
+				counters.clear();
+			}
+			hotIds = Set.of();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	public ItemQuantityWriteBehindStats getStats() {
+		return new ItemQuantityWriteBehindStats(bufferedCount.sum(), directCount.sum(), flushedCount.sum(),
+				rejectedCount.sum(), hotIds.size(), pendingItemCount());
+	}
+
+	private int pendingItemCount() {
+		return (int) counters.values().stream().filter(counter -> counter.pendingDelta() != 0).count();
+	}
+
+	/**
+	 * 핫 상품 하나의 누적 변화량
+	 * - available: 지금 승인할 수 있는 재고 (= baseQuantity + 아직 플러시하지 않은 변화량), 차감은 CAS로 예약
+	 * - baseQuantity: DB에 반영된 것으로 보는 재고 (flushLock 안에서만 바꾼다)
+	 * - 변화량을 따로 세지 않고 available - baseQuantity로 계산한다
+	 *   -> available 한 번의 getAndSet(RETIRED)으로 닫는 시점의 변화량이 정확히 정해진다
+	 */
+	private static final class HotCounter {
+
+		static final long RETIRED = Long.MIN_VALUE;
+
+		final AtomicLong available = new AtomicLong();
+		volatile long baseQuantity;
+
+		/**
+		 * 닫힌 카운터(RETIRED)는 어떤 amount보다도 작으므로 예약하지 않는다
+		 */
+		boolean tryReserve(int amount) {
+			long current;
+			do {
+				current = available.get();
+				if (current < amount) {
+					return false;
+				}
+			} while (!available.compareAndSet(current, current - amount));
+			return true;
+		}
+
+		/**
+		 * @return 닫힌 카운터면 false
+		 */
+		boolean add(int amount) {
+			long current;
+			do {
+				current = available.get();
+				if (current == RETIRED) {
+					return false;
+				}
+			} while (!available.compareAndSet(current, current + amount));
+			return true;
+		}
+
+		boolean isRetired() {
+			return available.get() == RETIRED;
+		}
+
+		long pendingDelta() {
+			long current = available.get();
+			return current == RETIRED ? 0 : current - baseQuantity;
+		}
+
+		/**
+		 * @return 닫는 시점의 변화량
+		 */
+		long retire() {
+			return available.getAndSet(RETIRED) - baseQuantity;
+		}
+
+		void reopen(long delta) {
+			available.set(baseQuantity + delta);
+		}
+
+		/**
+		 * DB 재고를 다시 읽었을 때: 기준 재고가 바뀐 만큼 available을 옮긴다 (진행 중인 예약은 그대로 유지)
+		 */
+		void rebase(long quantity) {
+			available.addAndGet(quantity - baseQuantity);
+			baseQuantity = quantity;
+		}
+	}
+
+	private final class PendingDelta {
+
+		final Long itemId;
+		final HotCounter counter;
+		final long delta;
+		long applied;
+
+		PendingDelta(Long itemId, HotCounter counter, long delta) {
+			this.itemId = itemId;
+			this.counter = counter;
+			this.delta = delta;
+		}
+
+		/**
+		 * 증가는 그대로, 차감은 조건부 UPDATE가 실패하면 DB 재고를 다시 읽어 들어가는 만큼만 차감한다
+		 * (다시 읽는 사이에도 재고가 바뀔 수 있으므로 APPLY_ATTEMPTS번까지)
+		 */
+		void apply() {
+			applied = 0;
+			if (delta > 0) {
+				if (itemRepository.incrementQuantity(itemId, Math.toIntExact(delta))) {
+					applied = delta;
+				}
+				return;
+			}
+			int amount = Math.toIntExact(-delta);
+			for (int attempt = 0; attempt < APPLY_ATTEMPTS && amount > 0; attempt++) {
+				if (itemRepository.decrementQuantity(itemId, amount)) {
+					applied = -amount;
+					return;
+				}
+				amount = Math.min(amount, itemRepository.findQuantity(itemId).orElse(0));
+			}
+		}
+
+		/**
+		 * 커밋 후: 기준 재고를 실제로 반영한 만큼 옮긴다 -> 이번 변화량은 available - 기준 재고에서 빠진다
+		 * - 못 넣은 부분이 있으면 available에서도 빼서 (available = 기준 재고 + 남은 변화량) 을 맞춘 뒤, DB 재고로 기준 재고를 다시 맞춘다
+		 * - 해제 중인(닫힌) 카운터는 지운다
+		 */
+		void completed() {
+			boolean retired = counter.isRetired();
+			if (retired) {
+				counters.remove(itemId, counter);
+			} else {
+				counter.baseQuantity += applied;
+			}
+			if (applied == delta) {
+				flushedCount.increment();
+				return;
+			}
+			long shortfall = Math.abs(delta - applied);
+			rejectedCount.add(shortfall);
+			log.warn("재고 변화량 일부를 반영하지 못했습니다 (다른 경로에서 재고가 줄었거나 삭제된 상품). itemId={}, delta={}, applied={}, shortfall={}",
+					itemId, delta, applied, shortfall);
+			if (!retired) {
+				counter.available.addAndGet(applied - delta);
+				refreshBaseQuantity(itemId);
+			}
+		}
+	}
+}
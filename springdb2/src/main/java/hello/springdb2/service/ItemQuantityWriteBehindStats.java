@@ -0,0 +1,11 @@
+package hello.springdb2.service;
+
+/**
+ * 재고 지연 쓰기 통계 스냅샷
+ * - bufferedCount / directCount: 핫 상품이라 누적한 호출 수 / 바로 반영한 호출 수
+ * - flushedCount: 플러시로 반영한 상품별 UPDATE 수, rejectedCount: 승인했지만 DB에 반영하지 못한 수량 합계 (초과 판매분)
+ * - hotItemCount: 현재 핫 상품 수, pendingItemCount: 아직 반영하지 않은 변화량이 있는 상품 수
+ */
+public record ItemQuantityWriteBehindStats(long bufferedCount, long directCount, long flushedCount,
+		long rejectedCount, int hotItemCount, int pendingItemCount) {
+}
@@ -0,0 +1,62 @@
+package hello.springdb2.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import hello.springdb2.repository.fulltext.ItemFullTextRepository;
+import hello.springdb2.repository.fulltext.ItemSearchHit;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 상품명 전문 검색
+ * - 사용자 입력을 Lucene 질의로 바꾼다
+ *   - 공백으로 나눈 단어마다 Lucene 특수문자를 이스케이프 (괄호, 따옴표 등이 질의 문법 오류를 내지 않도록)
+ *   - 단어는 OR로 묶인다 -> 더 많은 단어가 맞을수록 점수가 높다
+ * - page / size -> offset / limit (page * size가 int를 넘으면 IllegalArgumentException)
+ */
+@RequiredArgsConstructor
+public class ItemSearchService {
+
+	private static final String LUCENE_SPECIAL_CHARS = "+-&|!(){}[]^\"~*?:\\/";
+
+	private final ItemFullTextRepository itemFullTextRepository;
+
+	/**
+	 * @param limit 최대 결과 수 (다음 페이지 존재 여부를 알려면 size + 1)
+	 */
+	public List<ItemSearchHit> search(String text, int page, int size, int limit) {
+		if (!StringUtils.hasText(text)) {
+			return List.of();
+		}
+		Assert.isTrue(page >= 0, "page must not be negative");
+		Assert.isTrue(size > 0, "size must be positive");
+		int offset;
+		try {
+			offset = Math.multiplyExact(page, size);
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("page is too large: " + page, e);
+		}
+		return itemFullTextRepository.search(toQuery(text), offset, limit);
+	}
+
+	static String toQuery(String text) {
+		return Arrays.stream(text.trim().split("\\s+"))
+				.map(ItemSearchService::escape)
+				.collect(Collectors.joining(" "));
+	}
+
+	private static String escape(String word) {
+		StringBuilder escaped = new StringBuilder(word.length());
+		for (char c : word.toCharArray()) {
+			if (LUCENE_SPECIAL_CHARS.indexOf(c) >= 0) {
+				escaped.append('\\');
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+}
@@ -1,16 +1,21 @@
-package hello.springdb2.service;
-
-import java.util.List;
-import java.util.Optional;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-
-public interface ItemService {
-
-	Item save(Item item);
-	Optional<Item> findById(Long id);
-	List<Item> findItems(ItemSearchCond cond);
-	void update(Long itemId, ItemUpdateDto updateParam);
-}
+package hello.springdb2.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+
+public interface ItemService {
+
+	Item save(Item item);
+	Optional<Item> findById(Long id);
+	List<Item> findItems(ItemSearchCond cond);
+	List<Item> findItemsPage(ItemSearchCond cond, Long afterId, int limit);
+	List<ItemListRow> findItemListPage(ItemSearchCond cond, Long afterId, int limit);
+	void streamItems(ItemSearchCond cond, Consumer<Item> action);
+	void update(Long itemId, ItemUpdateDto updateParam);
+}
@@ -1,40 +1,80 @@
-package hello.springdb2.service;
-
-import java.util.List;
-import java.util.Optional;
-
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-
-@Slf4j
-@RequiredArgsConstructor
-public class ItemServiceV1 implements ItemService {
-	
-	private final ItemRepository itemRepository;
-	
-	@Override
-	public Item save(Item item) {
-		return itemRepository.save(item);
-	}
-
-	@Override
-	public Optional<Item> findById(Long id) {
-		return itemRepository.findById(id);
-	}
-
-	@Override
-	public List<Item> findItems(ItemSearchCond cond) {
-		return itemRepository.findAll(cond);
-	}
-
-	@Override
-	public void update(Long itemId, ItemUpdateDto updateParam) {
-		itemRepository.update(itemId, updateParam);
-	}
-
-}
+package hello.springdb2.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.cache.ItemQueryCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * - 조회 메서드는 @Transactional(readOnly = true)
+ *   -> 읽기 복제본 라우팅(ReplicaDataSourceConfig)을 켜면 복제본에서 읽는다
+ * - 쓰기는 리포지토리의 트랜잭션을 그대로 사용 (primary)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ItemServiceV1 implements ItemService {
+	
+	private final ItemRepository itemRepository;
+	private final ItemQueryCache itemQueryCache;
+	
+	@Override
+	public Item save(Item item) {
+		Item savedItem = itemRepository.save(item);
+		itemQueryCache.evictSaved(savedItem);
+		return savedItem;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<Item> findById(Long id) {
+		return itemRepository.findById(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Item> findItems(ItemSearchCond cond) {
+		return itemQueryCache.get(cond, () -> itemRepository.findAll(cond));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Item> findItemsPage(ItemSearchCond cond, Long afterId, int limit) {
+		return itemRepository.findPage(cond, afterId, limit);
+	}
+
+	/**
+	 * 상품 목록 화면용 (엔티티 대신 ItemListRow) -> 페이지 단위로 검색 결과 캐시를 거친다
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<ItemListRow> findItemListPage(ItemSearchCond cond, Long afterId, int limit) {
+		return itemQueryCache.getListPage(cond, afterId, limit,
+				() -> itemRepository.findListPage(cond, afterId, limit));
+	}
+
+	/**
+	 * 내보내기용 스트리밍 조회 -> 검색 결과 캐시를 거치지 않는다
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void streamItems(ItemSearchCond cond, Consumer<Item> action) {
+		itemRepository.stream(cond, action);
+	}
+
+	@Override
+	public void update(Long itemId, ItemUpdateDto updateParam) {
+		itemRepository.update(itemId, updateParam);
+		itemQueryCache.evictUpdated(itemId, updateParam);
+	}
+
+}
@@ -1,50 +1,139 @@
-package hello.springdb2.v2;
-
-import java.util.List;
-
-import org.springframework.util.StringUtils;
-
-import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.impl.JPAQueryFactory;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.domain.QItem;
-import hello.springdb2.repository.ItemSearchCond;
-import jakarta.persistence.EntityManager;
-
-public class ItemQueryRepositoryV2 {
-
-	private final JPAQueryFactory queryFactory;
-	
-	public ItemQueryRepositoryV2(EntityManager entityManager) {
-		this.queryFactory = new JPAQueryFactory(entityManager);
-	}
-	
-	public List<Item> findAll(ItemSearchCond cond) {
-		String itemName = cond.getItemName();
-		Integer maxPrice = cond.getMaxPrice();
-		
-		QItem item = QItem.item;
-		
-		return queryFactory
-				.select(item)
-				.from(item)
-				.where(likeItemName(itemName, item), maxPrice(maxPrice, item))
-				.fetch();
-	}
-	
-	private BooleanExpression likeItemName(String itemName, QItem item) {
-		if(StringUtils.hasText(itemName)) {
-			return item.itemName.like("%" + itemName + "%");
-		} 
-		return null;
-	}
-	
-	private BooleanExpression maxPrice(Integer maxPrice, QItem item) {
-		if(maxPrice != null) {
-			return item.price.loe(maxPrice);
-		}
-		 return null;
-	}
-	
-}
+package hello.springdb2.v2;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.util.StringUtils;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.domain.QItem;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.jpa.ReadOnlyQueries;
+import jakarta.persistence.EntityManager;
+
+public class ItemQueryRepositoryV2 {
+
+	private final EntityManager entityManager;
+	private final JPAQueryFactory queryFactory;
+	
+	public ItemQueryRepositoryV2(EntityManager entityManager) {
+		this.entityManager = entityManager;
+		this.queryFactory = new JPAQueryFactory(entityManager);
+	}
+	
+	/**
+	 * 조회 화면용 단건 조회
+	 * - 읽기 전용 트랜잭션이면 읽기 전용 엔티티로 로딩 (ReadOnlyQueries)
+	 * - 수정은 ItemRepository.update가 엔티티를 직접 읽는다 (ItemServiceV2)
+	 */
+	public Optional<Item> findById(Long id) {
+		return ReadOnlyQueries.findById(entityManager, Item.class, id);
+	}
+	
+	public List<Item> findAll(ItemSearchCond cond) {
+		Integer maxPrice = cond.getMaxPrice();
+		
+		QItem item = QItem.item;
+		
+		return ReadOnlyQueries.apply(queryFactory
+				.select(item)
+				.from(item)
+				.where(itemName(cond, item), maxPrice(maxPrice, item)))
+				.fetch();
+	}
+	
+	/**
+	 * 키셋 페이징: where id > afterId order by id limit ?
+	 */
+	public List<Item> findPage(ItemSearchCond cond, Long afterId, int limit) {
+		QItem item = QItem.item;
+		
+		return ReadOnlyQueries.apply(queryFactory
+				.selectFrom(item)
+				.where(itemName(cond, item), maxPrice(cond.getMaxPrice(), item),
+						idGreaterThan(afterId, item))
+				.orderBy(item.id.asc())
+				.limit(limit))
+				.fetch();
+	}
+	
+	/**
+	 * 상품 목록 화면용 키셋 페이징 (DTO 프로젝션, JpaItemRepositoryV3.findListPage 와 동일)
+	 */
+	public List<ItemListRow> findListPage(ItemSearchCond cond, Long afterId, int limit) {
+		QItem item = QItem.item;
+		
+		return ReadOnlyQueries.apply(queryFactory
+				.select(Projections.constructor(ItemListRow.class,
+						item.id, item.itemName, item.price, item.quantity))
+				.from(item)
+				.where(itemName(cond, item), maxPrice(cond.getMaxPrice(), item),
+						idGreaterThan(afterId, item))
+				.orderBy(item.id.asc())
+				.limit(limit))
+				.fetch();
+	}
+	
+	/**
+	 * 스트리밍 조회 (JpaItemRepositoryV3.stream 과 동일)
+	 * - 한 건씩 action에 넘긴 뒤 detach -> 영속성 컨텍스트가 결과 크기만큼 커지지 않는다
+	 * - 트랜잭션 안에서 호출해야 한다 (ItemServiceV2)
+	 */
+	public void stream(ItemSearchCond cond, Consumer<Item> action) {
+		QItem item = QItem.item;
+		
+		try (Stream<Item> items = queryFactory
+				.selectFrom(item)
+				.where(itemName(cond, item), maxPrice(cond.getMaxPrice(), item))
+				.setHint(HibernateHints.HINT_FETCH_SIZE, ItemRepository.DEFAULT_FETCH_SIZE)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.stream()) {
+			items.forEach(found -> {
+				action.accept(found);
+				entityManager.detach(found);
+			});
+		}
+	}
+	
+	/**
+	 * 상품명 조건 (SearchMode 참고)
+	 * - CONTAINS: like '%검색어%'
+	 * - PREFIX: 검색어 <= itemName < 검색어 + U+FFFF (item_name 인덱스 범위 스캔)
+	 * - EXACT: itemName = 검색어
+	 */
+	private BooleanExpression itemName(ItemSearchCond cond, QItem item) {
+		String itemName = cond.getItemName();
+		if (!StringUtils.hasText(itemName)) {
+			return null;
+		}
+		return switch (cond.getSearchMode()) {
+			case PREFIX -> item.itemName.goe(itemName).and(item.itemName.lt(cond.getItemNameUpperBound()));
+			case EXACT -> item.itemName.eq(itemName);
+			case CONTAINS -> item.itemName.like("%" + itemName + "%");
+		};
+	}
+	
+	private BooleanExpression maxPrice(Integer maxPrice, QItem item) {
+		if(maxPrice != null) {
+			return item.price.loe(maxPrice);
+		}
+		 return null;
+	}
+	
+	private BooleanExpression idGreaterThan(Long afterId, QItem item) {
+		if(afterId != null) {
+			return item.id.gt(afterId);
+		}
+		return null;
+	}
+	
+}
@@ -1,43 +1,91 @@
-package hello.springdb2.v2;
-
-import java.util.List;
-import java.util.Optional;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-import hello.springdb2.service.ItemService;
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
-
-@Transactional
-@RequiredArgsConstructor
-public class ItemServiceV2 implements ItemService {
-
-	private final ItemRepositoryV2 itemRepositoryV2;
-	private final ItemQueryRepositoryV2 itemQueryRepositoryV2;
-	
-	@Override
-	public Item save(Item item) {
-		return itemRepositoryV2.save(item);
-	}
-	
-	@Override
-	public Optional<Item> findById(Long id) {
-		return itemRepositoryV2.findById(id);
-	}
-	
-	@Override
-	public List<Item> findItems(ItemSearchCond cond) {
-		return itemQueryRepositoryV2.findAll(cond);
-	}
-	
-	@Override
-	public void update(Long itemId, ItemUpdateDto updateParam) {
-		Item findItem = itemRepositoryV2.findById(itemId).orElseThrow();
-		findItem.setItemName(updateParam.getItemName());
-		findItem.setPrice(updateParam.getPrice());
-		findItem.setQuantity(updateParam.getQuantity());
-	}
-	
-}
+package hello.springdb2.v2;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.cache.ItemQueryCache;
+import hello.springdb2.service.ItemService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * - 클래스 레벨 @Transactional (스프링): 쓰기 메서드
+ * - 조회 메서드는 @Transactional(readOnly = true)
+ *   -> 읽기 복제본 라우팅(ReplicaDataSourceConfig)을 켜면 복제본에서 읽는다
+ *   -> FlushMode.MANUAL + 읽기 전용 엔티티 로딩 (ItemQueryRepositoryV2, ReadOnlyQueries)
+ * - 쓰기는 ItemRepository 빈으로 한다
+ *   -> item.cache.enabled=true 이면 CachingItemRepository로 감싸진 빈이라 findById 캐시도 함께 무효화된다
+ *      (ItemRepository 빈을 쓰는 지연 쓰기 / 가져오기가 수정 전 값을 ttl 동안 읽지 않도록)
+ *   -> 감싸지 않았을 때를 위해 검색 결과 캐시는 여기서도 무효화한다
+ */
+@Transactional
+@RequiredArgsConstructor
+public class ItemServiceV2 implements ItemService {
+
+	private final ItemRepository itemRepository;
+	private final ItemQueryRepositoryV2 itemQueryRepositoryV2;
+	private final ItemQueryCache itemQueryCache;
+	
+	@Override
+	public Item save(Item item) {
+		Item savedItem = itemRepository.save(item);
+		itemQueryCache.evictSaved(savedItem);
+		return savedItem;
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<Item> findById(Long id) {
+		return itemQueryRepositoryV2.findById(id);
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Item> findItems(ItemSearchCond cond) {
+		return itemQueryCache.get(cond, () -> itemQueryRepositoryV2.findAll(cond));
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Item> findItemsPage(ItemSearchCond cond, Long afterId, int limit) {
+		return itemQueryRepositoryV2.findPage(cond, afterId, limit);
+	}
+
+	/**
+	 * 상품 목록 화면용 (엔티티 대신 ItemListRow) -> 페이지 단위로 검색 결과 캐시를 거친다
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<ItemListRow> findItemListPage(ItemSearchCond cond, Long afterId, int limit) {
+		return itemQueryCache.getListPage(cond, afterId, limit,
+				() -> itemQueryRepositoryV2.findListPage(cond, afterId, limit));
+	}
+	
+	/**
+	 * 내보내기용 스트리밍 조회 -> 검색 결과 캐시를 거치지 않는다
+	 * - 스트림을 읽는 동안 트랜잭션(커넥션)이 유지된다
+	 * - readOnly: 복제본 라우팅 + 읽기 전용 로딩, 한 건씩 detach 하므로 flush할 변경도 없다
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void streamItems(ItemSearchCond cond, Consumer<Item> action) {
+		itemQueryRepositoryV2.stream(cond, action);
+	}
+	
+	/**
+	 * 낙관적 락 / 부분 수정은 ItemRepository 구현(JpaItemRepositoryV3.update)이 처리한다
+	 */
+	@Override
+	public void update(Long itemId, ItemUpdateDto updateParam) {
+		itemRepository.update(itemId, updateParam);
+		itemQueryCache.evictUpdated(itemId, updateParam);
+	}
+	
+}
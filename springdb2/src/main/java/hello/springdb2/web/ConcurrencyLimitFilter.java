@@ -0,0 +1,65 @@
+package hello.springdb2.web;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 동시 실행 요청 수 제한 필터
+ * - 허용 수(maxConcurrency)만큼만 요청을 동시에 실행하고, 나머지는 permit을 얻을 때까지 대기한다
+ * - 공정(fair) 세마포어: 먼저 도착한 요청이 먼저 실행된다
+ * - acquireTimeout 안에 permit을 얻지 못하면 503 (커넥션 풀 connectionTimeout까지 잡고 있다가 500으로 실패하는 대신)
+ * - 가상 스레드에서 Semaphore 대기는 캐리어 스레드를 점유하지 않는다
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private final Semaphore permits;
+	private final long acquireTimeoutNanos;
+
+	public ConcurrencyLimitFilter(int maxConcurrency, Duration acquireTimeout) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency는 1 이상이어야 합니다: " + maxConcurrency);
+		}
+		this.permits = new Semaphore(maxConcurrency, true);
+		this.acquireTimeoutNanos = acquireTimeout.toNanos();
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+			return;
+		}
+		if (!acquired) {
+			log.warn("동시 실행 한도 초과로 요청 거절: {} {}", request.getMethod(), request.getRequestURI());
+			response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+			return;
+		}
+
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			permits.release();
+		}
+	}
+
+	public int availablePermits() {
+		return permits.availablePermits();
+	}
+}
@@ -1,69 +1,115 @@
-package hello.springdb2.web;
-
-import java.util.List;
-
-import org.springframework.stereotype.Controller;
-import org.springframework.ui.Model;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.ModelAttribute;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-import hello.springdb2.service.ItemService;
-import lombok.RequiredArgsConstructor;
-
-@Controller
-@RequiredArgsConstructor
-@RequestMapping("/items")
-public class ItemController {
-
-	private final ItemService itemService;
-
-	@GetMapping
-	public String showitems(@ModelAttribute ItemSearchCond itemSearchCond, Model model) {
-		List<Item> itemList = itemService.findItems(itemSearchCond);
-		model.addAttribute("items", itemList);
-		return "items";
-	}
-
-	@GetMapping("/{itemId}")
-	public String item(@PathVariable("itemId") long itemId, Model model) {
-		Item item = itemService.findById(itemId)
-				.orElseThrow(() -> new IllegalArgumentException("아이템이 존재하지 않음"));
-		model.addAttribute("item", item);
-		return "item";
-	}
-
-	@GetMapping("/add")
-	public String addForm(@ModelAttribute Item item) {
-		return "addForm";
-	}
-
-	@PostMapping("/add")
-	public String addItem(Item item, RedirectAttributes redirectAttributes) {
-		Item savedItem = itemService.save(item);
-		redirectAttributes.addAttribute("itemId", savedItem.getId());
-		redirectAttributes.addAttribute("status", true);
-		return "redirect:/items/{itemId}";
-	}
-
-	@GetMapping("/{itemId}/edit")
-	public String editForm(@PathVariable("itemId") Long itemId, Model model) {
-		Item item = itemService.findById(itemId)
-				.orElseThrow(() -> new IllegalArgumentException("아이템이 존재하지 않음"));
-		model.addAttribute("item", item);
-		return "editForm";
-	}
-
-	@PostMapping("/{itemId}/edit")
-	public String edit(@PathVariable("itemId") Long itemId, ItemUpdateDto updateParam) {
-		itemService.update(itemId, updateParam);
-		return "redirect:/items/{itemId}";
-	}
-
-}
+package hello.springdb2.web;
+
+import java.util.List;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.SearchMode;
+import hello.springdb2.service.ItemService;
+import lombok.RequiredArgsConstructor;
+
+@Controller
+@RequiredArgsConstructor
+@RequestMapping("/items")
+public class ItemController {
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	private final ItemService itemService;
+
+	/**
+	 * 검색 폼의 상품명 검색 방식 선택 목록 (모든 뷰 모델에 추가)
+	 */
+	@ModelAttribute("searchModes")
+	public SearchMode[] searchModes() {
+		return SearchMode.values();
+	}
+
+	/**
+	 * 상품 목록 (키셋 페이징)
+	 * - afterId: 이전 페이지 마지막 상품 id (없으면 첫 페이지)
+	 * - 다음 페이지 존재 여부를 알기 위해 size + 1 건을 조회하고, 넘치는 1건은 화면에서 제외
+	 * - 화면에 필요한 컬럼만 담은 ItemListRow로 조회 (엔티티를 영속성 컨텍스트에 올리지 않는다)
+	 */
+	@GetMapping
+	public String showitems(@ModelAttribute ItemSearchCond itemSearchCond,
+			@RequestParam(name = "afterId", required = false) Long afterId,
+			@RequestParam(name = "size", defaultValue = "20") int size,
+			Model model) {
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		List<ItemListRow> itemList = itemService.findItemListPage(itemSearchCond, afterId, pageSize + 1);
+		
+		Long nextAfterId = null;
+		if (itemList.size() > pageSize) {
+			itemList = itemList.subList(0, pageSize);
+			nextAfterId = itemList.get(pageSize - 1).id();
+		}
+		
+		model.addAttribute("items", itemList);
+		model.addAttribute("afterId", afterId);
+		model.addAttribute("nextAfterId", nextAfterId);
+		model.addAttribute("size", pageSize);
+		return "items";
+	}
+
+	@GetMapping("/{itemId}")
+	public String item(@PathVariable("itemId") long itemId, Model model) {
+		Item item = itemService.findById(itemId)
+				.orElseThrow(() -> new IllegalArgumentException("아이템이 존재하지 않음"));
+		model.addAttribute("item", item);
+		return "item";
+	}
+
+	@GetMapping("/add")
+	public String addForm(@ModelAttribute Item item) {
+		return "addForm";
+	}
+
+	@PostMapping("/add")
+	public String addItem(Item item, RedirectAttributes redirectAttributes) {
+		Item savedItem = itemService.save(item);
+		redirectAttributes.addAttribute("itemId", savedItem.getId());
+		redirectAttributes.addAttribute("status", true);
+		return "redirect:/items/{itemId}";
+	}
+
+	@GetMapping("/{itemId}/edit")
+	public String editForm(@PathVariable("itemId") Long itemId, Model model) {
+		Item item = itemService.findById(itemId)
+				.orElseThrow(() -> new IllegalArgumentException("아이템이 존재하지 않음"));
+		model.addAttribute("item", item);
+		return "editForm";
+	}
+
+	/**
+	 * 낙관적 락 충돌 (폼을 연 뒤 다른 사용자가 먼저 수정)
+	 * - 최신 상품(새 버전)으로 수정 폼을 다시 보여주고, 사용자가 확인 후 다시 저장하게 한다
+	 */
+	@PostMapping("/{itemId}/edit")
+	public String edit(@PathVariable("itemId") Long itemId, ItemUpdateDto updateParam, Model model) {
+		try {
+			itemService.update(itemId, updateParam);
+		} catch (OptimisticLockingFailureException e) {
+			Item item = itemService.findById(itemId)
+					.orElseThrow(() -> new IllegalArgumentException("아이템이 존재하지 않음"));
+			model.addAttribute("item", item);
+			model.addAttribute("conflict", true);
+			return "editForm";
+		}
+		return "redirect:/items/{itemId}";
+	}
+
+}
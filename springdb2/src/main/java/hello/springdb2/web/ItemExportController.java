@@ -0,0 +1,125 @@
+package hello.springdb2.web;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.service.ItemService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 상품 카탈로그 내보내기 (CSV, NDJSON)
+ * 
+ * - /items 와 같은 검색 조건(itemName, maxPrice)을 사용한다
+ * - ItemService.streamItems()로 한 건씩 받아 응답 스트림에 바로 쓴다
+ *   -> 결과 List도, 템플릿 렌더링도 없으므로 행 수와 상관없이 메모리 사용량이 일정하다
+ * - 버퍼가 찰 때마다 클라이언트로 전송된다 (chunked 응답)
+ */
+@Controller
+@RequiredArgsConstructor
+@RequestMapping("/items")
+public class ItemExportController {
+
+	private static final String CSV_HEADER = "id,item_name,price,quantity";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final ItemService itemService;
+	private final ObjectMapper objectMapper;
+
+	@GetMapping("/export.csv")
+	public void exportCsv(@ModelAttribute ItemSearchCond itemSearchCond, HttpServletResponse response) throws IOException {
+		prepare(response, "text/csv", "items.csv");
+
+		Writer writer = new BufferedWriter(
+				new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), BUFFER_SIZE);
+		writer.write(CSV_HEADER);
+		writer.write('\n');
+		itemService.streamItems(itemSearchCond, item -> writeCsvRow(writer, item));
+		writer.flush();
+	}
+
+	/**
+	 * NDJSON (newline delimited JSON): 한 줄에 JSON 객체 하나
+	 * - SequenceWriter: 객체를 하나씩 직렬화하며 사이에 줄바꿈(root value separator)을 넣는다
+	 * - 마지막 줄바꿈은 직접 쓰므로 SequenceWriter가 응답 스트림을 닫지 않도록 AUTO_CLOSE_TARGET을 끈다
+	 */
+	@GetMapping("/export.ndjson")
+	public void exportNdjson(@ModelAttribute ItemSearchCond itemSearchCond, HttpServletResponse response) throws IOException {
+		prepare(response, "application/x-ndjson", "items.ndjson");
+
+		OutputStream out = new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE);
+		AtomicLong rowCount = new AtomicLong();
+		try (SequenceWriter sequenceWriter = objectMapper.writer()
+				.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+				.withRootValueSeparator("\n")
+				.writeValues(out)) {
+			itemService.streamItems(itemSearchCond, item -> {
+				try {
+					sequenceWriter.write(item);
+					rowCount.incrementAndGet();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		if (rowCount.get() > 0) {
+			out.write('\n');
+		}
+		out.flush();
+	}
+
+	private void prepare(HttpServletResponse response, String contentType, String filename) {
+		response.setContentType(contentType);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				ContentDisposition.attachment().filename(filename).build().toString());
+	}
+
+	private void writeCsvRow(Writer writer, Item item) {
+		try {
+			writer.write(String.valueOf(item.getId()));
+			writer.write(',');
+			writer.write(csvField(item.getItemName()));
+			writer.write(',');
+			writer.write(String.valueOf(item.getPrice()));
+			writer.write(',');
+			writer.write(String.valueOf(item.getQuantity()));
+			writer.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 쉼표, 큰따옴표, 줄바꿈이 있으면 큰따옴표로 감싸고 내부 큰따옴표는 두 번 쓴다 (RFC 4180)
+	 */
+	private static String csvField(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+}
@@ -0,0 +1,49 @@
+package hello.springdb2.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+
+import hello.springdb2.service.ItemImportResult;
+import hello.springdb2.service.ItemImportService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * CSV 가져오기
+ * - 업로드 파일은 임시 파일로 받은 뒤(spring.servlet.multipart) 스트림으로 읽는다 -> 파일 전체를 메모리에 올리지 않는다
+ */
+@Controller
+@RequiredArgsConstructor
+@RequestMapping("/items/import")
+public class ItemImportController {
+
+	private final ItemImportService itemImportService;
+
+	@GetMapping
+	public String importForm() {
+		return "importForm";
+	}
+
+	@PostMapping
+	public String importItems(@RequestParam("file") MultipartFile file, Model model) throws IOException {
+		if (file.isEmpty()) {
+			model.addAttribute("errorMessage", "파일을 선택하세요");
+			return "importForm";
+		}
+
+		try (InputStream in = file.getInputStream()) {
+			ItemImportResult result = itemImportService.importCsv(in);
+			model.addAttribute("result", result);
+		} catch (IllegalArgumentException e) {
+			model.addAttribute("errorMessage", e.getMessage());
+		}
+		return "importForm";
+	}
+}
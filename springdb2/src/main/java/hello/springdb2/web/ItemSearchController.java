@@ -0,0 +1,58 @@
+package hello.springdb2.web;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import hello.springdb2.repository.fulltext.ItemSearchHit;
+import hello.springdb2.service.ItemSearchService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 상품명 전문 검색 (관련도 순, 페이지 단위)
+ * - 다음 페이지 존재 여부를 알기 위해 size + 1 건을 조회하고, 넘치는 1건은 화면에서 제외
+ * - page는 MAX_PAGE까지만 (관련도 순 결과를 그보다 깊이 넘길 일은 없고, page * size 오버플로도 막는다)
+ * - item.fulltext.enabled=false 이면 ItemSearchService가 없으므로 안내 메시지만 보여준다
+ */
+@Controller
+@RequiredArgsConstructor
+@RequestMapping("/items/search")
+public class ItemSearchController {
+
+	private static final int MAX_PAGE_SIZE = 100;
+	private static final int MAX_PAGE = 1000;
+
+	private final ObjectProvider<ItemSearchService> itemSearchService;
+
+	@GetMapping
+	public String search(@RequestParam(name = "q", required = false) String query,
+			@RequestParam(name = "page", defaultValue = "0") int page,
+			@RequestParam(name = "size", defaultValue = "20") int size,
+			Model model) {
+		int pageNumber = Math.max(0, Math.min(page, MAX_PAGE));
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+		ItemSearchService searchService = itemSearchService.getIfAvailable();
+		List<ItemSearchHit> hits = searchService == null
+				? List.of()
+				: searchService.search(query, pageNumber, pageSize, pageSize + 1);
+
+		boolean hasNext = hits.size() > pageSize;
+		if (hasNext) {
+			hits = hits.subList(0, pageSize);
+		}
+
+		model.addAttribute("q", query);
+		model.addAttribute("hits", hits);
+		model.addAttribute("page", pageNumber);
+		model.addAttribute("size", pageSize);
+		model.addAttribute("hasNext", hasNext);
+		model.addAttribute("enabled", searchService != null);
+		return "searchItems";
+	}
+}
@@ -1,7 +1,27 @@
-drop table if exists item;
-create table if not exists item(
-	id bigint auto_increment primary key,
-	item_name varchar(255) not null,
-	price int not null,
-	quantity int not null
-);
\ No newline at end of file
+drop table if exists item;
+
+-- PK 시퀀스 (Item의 @SequenceGenerator, pooled 최적화기)
+-- increment by = JPA가 한 번에 예약하는 PK 개수 (allocationSize), 값을 바꾸면 JPA도 따라간다
+drop sequence if exists item_seq;
+create sequence item_seq start with 1 increment by 50;
+
+create table if not exists item(
+	id bigint default next value for item_seq primary key, -- JdbcTemplate / MyBatis INSERT도 같은 시퀀스 사용
+	item_name varchar(255) not null,
+	price int not null,
+	quantity int not null,
+	version bigint default 0 not null -- 낙관적 락 (수정할 때마다 +1, where id = ? and version = ?)
+);
+
+-- price <= :maxPrice 검색용 커버링 인덱스
+-- price 범위로 찾고, 나머지 조회 컬럼(id, item_name, quantity, version)도 인덱스에 있어 테이블을 다시 읽지 않는다
+create index if not exists idx_item_price_covering on item (price, id, item_name, quantity, version);
+
+-- 상품명 시작(PREFIX) / 일치(EXACT) 검색용 인덱스 (포함 검색 like '%...%' 는 인덱스를 쓸 수 없다)
+create index if not exists idx_item_name on item (item_name);
+
+-- 복제 지연 측정용 하트비트 (ReplicaRoutingDataSource가 primary에 현재 시각(ms)을 쓰고 복제본에서 읽어 비교)
+create table if not exists replica_heartbeat(
+	id int primary key,
+	beat_at bigint not null
+);
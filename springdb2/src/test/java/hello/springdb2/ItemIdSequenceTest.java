@@ -0,0 +1,85 @@
+package hello.springdb2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV1;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV3;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV1;
+import hello.springdb2.repository.mybatis.ItemMapper;
+import hello.springdb2.repository.mybatis.MyBatisItemRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * PK 시퀀스(item_seq) 검사
+ *
+ * - JPA는 시퀀스 값 하나로 PK 범위(allocationSize)를 예약하고, JdbcTemplate / MyBatis는 id 기본값으로 시퀀스 값을 그대로 쓴다
+ *   -> 번갈아 저장해도 PK가 겹치지 않아야 한다
+ * - JPA persist()는 INSERT를 flush 까지 미룬다 (배치 INSERT)
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class ItemIdSequenceTest {
+
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private ItemMapper itemMapper;
+	@Autowired
+	private SqlSessionFactory sqlSessionFactory;
+
+	@Test
+	void jpaAndJdbcIdsNeverCollide() {
+		ItemRepository jpaRepository = new JpaItemRepositoryV1(entityManager);
+		List<ItemRepository> jdbcRepositories = List.of(
+				new JdbcTemplateItemRepositoryV1(dataSource),
+				new JdbcTemplateItemRepositoryV3(dataSource),
+				new MyBatisItemRepository(itemMapper, sqlSessionFactory));
+
+		List<Long> ids = new ArrayList<>();
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 30; i++) {
+				ids.add(jpaRepository.save(new Item("jpa", 1000, 1)).getId());
+			}
+			entityManager.flush();
+			for (ItemRepository jdbcRepository : jdbcRepositories) {
+				ids.add(jdbcRepository.save(new Item("jdbc", 1000, 1)).getId());
+			}
+		}
+		entityManager.clear();
+
+		assertThat(ids).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(ids).allSatisfy(id -> assertThat(jpaRepository.findById(id)).isPresent());
+	}
+
+	@Test
+	void persistDefersInsertUntilFlush() {
+		ItemRepository jpaRepository = new JpaItemRepositoryV1(entityManager);
+		JdbcTemplateItemRepositoryV1 jdbcRepository = new JdbcTemplateItemRepositoryV1(dataSource);
+
+		Item saved = jpaRepository.save(new Item("deferred", 1000, 1));
+
+		// PK는 시퀀스에서 미리 받았지만 INSERT는 아직 나가지 않았다
+		assertThat(saved.getId()).isNotNull();
+		assertThat(jdbcRepository.findById(saved.getId())).isEmpty();
+
+		entityManager.flush();
+		assertThat(jdbcRepository.findById(saved.getId())).isPresent();
+	}
+}
@@ -0,0 +1,114 @@
+package hello.springdb2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV1;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV2;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV3;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV1;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV2;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV2.UpdateStrategy;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV3;
+import hello.springdb2.repository.jpa.SpringDataJpaItemRepository;
+import hello.springdb2.repository.memory.MemoryItemRepository;
+import hello.springdb2.repository.mybatis.ItemMapper;
+import hello.springdb2.repository.mybatis.MyBatisItemRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * 낙관적 락 (Item.version) 검사
+ *
+ * - 모든 구현체가 같은 규칙을 지키는지 확인
+ *   -> 수정할 때마다 version + 1, 읽었던 버전이 아니면 OptimisticLockingFailureException
+ * - JPA 구현체는 flush 시점에 버전이 올라가므로 수정 후 매번 flush() 한다 (JDBC 구현체에는 영향 없음)
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class ItemOptimisticLockTest {
+
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private ItemMapper itemMapper;
+	@Autowired
+	private SqlSessionFactory sqlSessionFactory;
+	@Autowired
+	private SpringDataJpaItemRepository springDataJpaItemRepository;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"jdbcV1", "jdbcV2", "jdbcV3", "mybatis", "jpaV1", "jpaV2", "jpaV2Bulk", "jpaV3", "memory"})
+	void staleVersionConflicts(String impl) {
+		ItemRepository itemRepository = repository(impl);
+		Item savedItem = itemRepository.save(new Item("item1", 10000, 10));
+		Long itemId = savedItem.getId();
+		assertThat(savedItem.getVersion()).isZero();
+
+		// 첫 번째 사용자: 버전 0으로 수정 -> 성공, 버전 1
+		itemRepository.update(itemId, new ItemUpdateDto("item2", 20000, 20, 0L));
+		entityManager.flush();
+
+		// 두 번째 사용자: 같은 버전 0으로 수정 -> 충돌
+		assertThatThrownBy(() -> itemRepository.update(itemId, new ItemUpdateDto("item3", 30000, 30, 0L)))
+				.as(impl)
+				.isInstanceOf(OptimisticLockingFailureException.class);
+
+		entityManager.clear();
+		Item findItem = itemRepository.findById(itemId).get();
+		assertThat(findItem.getItemName()).isEqualTo("item2");
+		assertThat(findItem.getVersion()).isEqualTo(1L);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"jdbcV1", "jdbcV2", "jdbcV3", "mybatis", "jpaV1", "jpaV2", "jpaV2Bulk", "jpaV3", "memory"})
+	void updateWithoutVersionSkipsCheck(String impl) {
+		ItemRepository itemRepository = repository(impl);
+		Long itemId = itemRepository.save(new Item("item1", 10000, 10)).getId();
+
+		itemRepository.update(itemId, new ItemUpdateDto("item2", 20000, 20));
+		entityManager.flush();
+		itemRepository.update(itemId, new ItemUpdateDto("item3", 30000, 30));
+		entityManager.flush();
+
+		entityManager.clear();
+		Item findItem = itemRepository.findById(itemId).get();
+		assertThat(findItem.getItemName()).isEqualTo("item3");
+		assertThat(findItem.getVersion()).isEqualTo(2L);
+	}
+
+	private ItemRepository repository(String impl) {
+		return switch (impl) {
+			case "jdbcV1" -> new JdbcTemplateItemRepositoryV1(dataSource);
+			case "jdbcV2" -> new JdbcTemplateItemRepositoryV2(dataSource);
+			case "jdbcV3" -> new JdbcTemplateItemRepositoryV3(dataSource);
+			case "mybatis" -> new MyBatisItemRepository(itemMapper, sqlSessionFactory);
+			case "jpaV1" -> new JpaItemRepositoryV1(entityManager);
+			case "jpaV2" -> new JpaItemRepositoryV2(springDataJpaItemRepository, entityManager);
+			case "jpaV2Bulk" -> {
+				JpaItemRepositoryV2 itemRepository = new JpaItemRepositoryV2(springDataJpaItemRepository, entityManager);
+				itemRepository.setUpdateStrategy(UpdateStrategy.BULK);
+				yield itemRepository;
+			}
+			case "jpaV3" -> new JpaItemRepositoryV3(entityManager);
+			case "memory" -> new MemoryItemRepository();
+			default -> throw new IllegalArgumentException(impl);
+		};
+	}
+}
@@ -0,0 +1,112 @@
+package hello.springdb2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV1;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV2;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV3;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV1;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV2;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV2.UpdateStrategy;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV3;
+import hello.springdb2.repository.jpa.SpringDataJpaItemRepository;
+import hello.springdb2.repository.memory.MemoryItemRepository;
+import hello.springdb2.repository.mybatis.ItemMapper;
+import hello.springdb2.repository.mybatis.MyBatisItemRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * 부분 수정 (ItemUpdateDto의 null 필드는 바꾸지 않는다) 검사
+ *
+ * - 모든 구현체가 같은 규칙을 지키는지 확인
+ *   -> 주어진 필드만 바뀌고 version + 1, 바꿀 필드가 없으면 아무것도 하지 않는다
+ * - JPA 구현체는 flush 시점에 UPDATE가 나가므로 수정 후 flush(), 다시 읽기 전에 clear()
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class ItemPartialUpdateTest {
+
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private ItemMapper itemMapper;
+	@Autowired
+	private SqlSessionFactory sqlSessionFactory;
+	@Autowired
+	private SpringDataJpaItemRepository springDataJpaItemRepository;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"jdbcV1", "jdbcV2", "jdbcV3", "mybatis", "jpaV1", "jpaV2", "jpaV2Bulk", "jpaV3", "memory"})
+	void onlyGivenFieldsChange(String impl) {
+		ItemRepository itemRepository = repository(impl);
+		Long itemId = itemRepository.save(new Item("item1", 10000, 10)).getId();
+
+		ItemUpdateDto priceOnly = new ItemUpdateDto();
+		priceOnly.setPrice(20000);
+		priceOnly.setVersion(0L);
+		itemRepository.update(itemId, priceOnly);
+		entityManager.flush();
+
+		ItemUpdateDto quantityOnly = new ItemUpdateDto();
+		quantityOnly.setQuantity(30);
+		itemRepository.update(itemId, quantityOnly);
+		entityManager.flush();
+
+		entityManager.clear();
+		Item findItem = itemRepository.findById(itemId).get();
+		assertThat(findItem.getItemName()).as(impl).isEqualTo("item1");
+		assertThat(findItem.getPrice()).as(impl).isEqualTo(20000);
+		assertThat(findItem.getQuantity()).as(impl).isEqualTo(30);
+		assertThat(findItem.getVersion()).as(impl).isEqualTo(2L);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"jdbcV1", "jdbcV2", "jdbcV3", "mybatis", "jpaV1", "jpaV2", "jpaV2Bulk", "jpaV3", "memory"})
+	void noChangesIsNoOp(String impl) {
+		ItemRepository itemRepository = repository(impl);
+		Long itemId = itemRepository.save(new Item("item1", 10000, 10)).getId();
+
+		itemRepository.update(itemId, new ItemUpdateDto());
+		entityManager.flush();
+
+		entityManager.clear();
+		Item findItem = itemRepository.findById(itemId).get();
+		assertThat(findItem.getItemName()).as(impl).isEqualTo("item1");
+		assertThat(findItem.getVersion()).as(impl).isZero();
+	}
+
+	private ItemRepository repository(String impl) {
+		return switch (impl) {
+			case "jdbcV1" -> new JdbcTemplateItemRepositoryV1(dataSource);
+			case "jdbcV2" -> new JdbcTemplateItemRepositoryV2(dataSource);
+			case "jdbcV3" -> new JdbcTemplateItemRepositoryV3(dataSource);
+			case "mybatis" -> new MyBatisItemRepository(itemMapper, sqlSessionFactory);
+			case "jpaV1" -> new JpaItemRepositoryV1(entityManager);
+			case "jpaV2" -> new JpaItemRepositoryV2(springDataJpaItemRepository, entityManager);
+			case "jpaV2Bulk" -> {
+				JpaItemRepositoryV2 itemRepository = new JpaItemRepositoryV2(springDataJpaItemRepository, entityManager);
+				itemRepository.setUpdateStrategy(UpdateStrategy.BULK);
+				yield itemRepository;
+			}
+			case "jpaV3" -> new JpaItemRepositoryV3(entityManager);
+			case "memory" -> new MemoryItemRepository();
+			default -> throw new IllegalArgumentException(impl);
+		};
+	}
+}
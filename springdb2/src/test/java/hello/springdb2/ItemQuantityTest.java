@@ -0,0 +1,89 @@
+package hello.springdb2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV1;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV2;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV3;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV1;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV2;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV3;
+import hello.springdb2.repository.jpa.SpringDataJpaItemRepository;
+import hello.springdb2.repository.memory.MemoryItemRepository;
+import hello.springdb2.repository.mybatis.ItemMapper;
+import hello.springdb2.repository.mybatis.MyBatisItemRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * 재고 증감 (decrementQuantity / incrementQuantity) 검사
+ *
+ * - 모든 구현체가 같은 규칙을 지키는지 확인
+ *   -> 재고가 충분할 때만 차감, 부족하거나 상품이 없으면 false + 변경 없음, 바뀔 때마다 version + 1
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class ItemQuantityTest {
+
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private ItemMapper itemMapper;
+	@Autowired
+	private SqlSessionFactory sqlSessionFactory;
+	@Autowired
+	private SpringDataJpaItemRepository springDataJpaItemRepository;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"jdbcV1", "jdbcV2", "jdbcV3", "mybatis", "jpaV1", "jpaV2", "jpaV3", "memory"})
+	void decrementAndIncrement(String impl) {
+		ItemRepository itemRepository = repository(impl);
+		Long itemId = itemRepository.save(new Item("item1", 10000, 10)).getId();
+
+		assertThat(itemRepository.decrementQuantity(itemId, 4)).as(impl).isTrue();
+		assertThat(itemRepository.decrementQuantity(itemId, 7)).as("%s 재고 부족", impl).isFalse();
+		assertThat(itemRepository.incrementQuantity(itemId, 5)).as(impl).isTrue();
+		assertThat(itemRepository.decrementQuantity(itemId, 11)).as(impl).isTrue();
+
+		Item findItem = itemRepository.findById(itemId).get();
+		assertThat(findItem.getQuantity()).isZero();
+		assertThat(findItem.getVersion()).isEqualTo(3L);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"jdbcV1", "jdbcV2", "jdbcV3", "mybatis", "jpaV1", "jpaV2", "jpaV3", "memory"})
+	void missingItem(String impl) {
+		ItemRepository itemRepository = repository(impl);
+
+		assertThat(itemRepository.decrementQuantity(Long.MAX_VALUE, 1)).as(impl).isFalse();
+		assertThat(itemRepository.incrementQuantity(Long.MAX_VALUE, 1)).as(impl).isFalse();
+	}
+
+	private ItemRepository repository(String impl) {
+		return switch (impl) {
+			case "jdbcV1" -> new JdbcTemplateItemRepositoryV1(dataSource);
+			case "jdbcV2" -> new JdbcTemplateItemRepositoryV2(dataSource);
+			case "jdbcV3" -> new JdbcTemplateItemRepositoryV3(dataSource);
+			case "mybatis" -> new MyBatisItemRepository(itemMapper, sqlSessionFactory);
+			case "jpaV1" -> new JpaItemRepositoryV1(entityManager);
+			case "jpaV2" -> new JpaItemRepositoryV2(springDataJpaItemRepository, entityManager);
+			case "jpaV3" -> new JpaItemRepositoryV3(entityManager);
+			case "memory" -> new MemoryItemRepository();
+			default -> throw new IllegalArgumentException(impl);
+		};
+	}
+}
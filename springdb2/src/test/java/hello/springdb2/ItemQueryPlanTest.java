@@ -0,0 +1,237 @@
+package hello.springdb2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.SearchMode;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV1;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV2;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV3;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV1;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV2;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV3;
+import hello.springdb2.repository.jpa.SpringDataJpaItemRepository;
+import hello.springdb2.repository.mybatis.ItemMapper;
+import hello.springdb2.repository.mybatis.MyBatisItemRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * findAll 실행 계획 검사 (H2 EXPLAIN)
+ *
+ * - 각 구현체의 findAll이 실제로 DB에 보낸 SQL과 바인딩 값을 가로채서(SqlCapture) 그대로 EXPLAIN 한다
+ * - maxPrice 조건이나 상품명 시작(PREFIX) / 일치(EXACT) 조건이 있는 검색은 인덱스를 타야 한다
+ *   -> 계획에 tableScan이 보이면 실패
+ *
+ * 검사하지 않는 조건
+ * - 조건 없음: 전체 조회라 전체 스캔이 정상
+ * - 상품명 포함(CONTAINS)만: like '%...%' 는 B-tree 인덱스를 쓸 수 없다
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class ItemQueryPlanTest {
+
+	private static final List<PlanCase> INDEXED_CONDITIONS = List.of(
+			new PlanCase(new ItemSearchCond(null, 10000), "IDX_ITEM_PRICE_COVERING"),
+			new PlanCase(new ItemSearchCond("item-1", 10000), "IDX_ITEM_PRICE_COVERING"),
+			new PlanCase(new ItemSearchCond("item-1", null, SearchMode.PREFIX), "IDX_ITEM_NAME"),
+			new PlanCase(new ItemSearchCond("item-1", null, SearchMode.EXACT), "IDX_ITEM_NAME"),
+			new PlanCase(new ItemSearchCond("item-1", 10000, SearchMode.PREFIX), null),
+			new PlanCase(new ItemSearchCond("item-1", 10000, SearchMode.EXACT), null));
+
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private ItemMapper itemMapper;
+	@Autowired
+	private SqlSessionFactory sqlSessionFactory;
+	@Autowired
+	private SpringDataJpaItemRepository springDataJpaItemRepository;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@TestConfiguration
+	static class SqlCaptureConfig {
+
+		@Bean
+		static BeanPostProcessor sqlCapturingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource dataSource ? new SqlCapture(dataSource) : bean;
+				}
+			};
+		}
+	}
+
+	@BeforeEach
+	void beforeEach() {
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			rows.add(new Object[] {"item-" + i, (i % 100 + 1) * 1000, i});
+		}
+		jdbcTemplate.batchUpdate("insert into item (item_name, price, quantity) values (?, ?, ?)", rows);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"jdbcV1", "jdbcV2", "jdbcV3", "mybatis", "jpaV1", "jpaV2", "jpaV3"})
+	void findAllUsesIndex(String impl) {
+		ItemRepository itemRepository = repository(impl);
+		SqlCapture capture = (SqlCapture) dataSource;
+
+		for (PlanCase planCase : INDEXED_CONDITIONS) {
+			ItemSearchCond cond = planCase.cond();
+			capture.clear();
+			itemRepository.findAll(cond);
+
+			List<CapturedQuery> queries = capture.selectsFromItem();
+			assertThat(queries).as("%s findAll(%s) SQL", impl, cond).isNotEmpty();
+			for (CapturedQuery query : queries) {
+				String plan = explain(query);
+				assertThat(plan)
+						.as("%s findAll(%s)%n%s", impl, cond, plan)
+						.doesNotContainIgnoringCase("tableScan");
+				if (planCase.expectedIndex() != null) {
+					assertThat(plan)
+							.as("%s findAll(%s)%n%s", impl, cond, plan)
+							.containsIgnoringCase(planCase.expectedIndex());
+				}
+			}
+		}
+	}
+
+	private ItemRepository repository(String impl) {
+		return switch (impl) {
+			case "jdbcV1" -> new JdbcTemplateItemRepositoryV1(dataSource);
+			case "jdbcV2" -> new JdbcTemplateItemRepositoryV2(dataSource);
+			case "jdbcV3" -> new JdbcTemplateItemRepositoryV3(dataSource);
+			case "mybatis" -> new MyBatisItemRepository(itemMapper, sqlSessionFactory);
+			case "jpaV1" -> new JpaItemRepositoryV1(entityManager);
+			case "jpaV2" -> new JpaItemRepositoryV2(springDataJpaItemRepository, entityManager);
+			case "jpaV3" -> new JpaItemRepositoryV3(entityManager);
+			default -> throw new IllegalArgumentException(impl);
+		};
+	}
+
+	private String explain(CapturedQuery query) {
+		List<String> plan = jdbcTemplate.query("EXPLAIN " + query.sql(), ps -> {
+			for (Map.Entry<Integer, Object> parameter : query.parameters().entrySet()) {
+				ps.setObject(parameter.getKey(), parameter.getValue());
+			}
+		}, (rs, rowNum) -> rs.getString(1));
+		return String.join("\n", plan);
+	}
+
+	/**
+	 * expectedIndex: 반드시 사용해야 하는 인덱스 (null이면 두 인덱스 중 옵티마이저가 고른 것 허용)
+	 */
+	record PlanCase(ItemSearchCond cond, String expectedIndex) {
+	}
+
+	record CapturedQuery(String sql, Map<Integer, Object> parameters) {
+	}
+
+	/**
+	 * 실행된 PreparedStatement의 SQL과 바인딩 값을 기록하는 DataSource
+	 */
+	static class SqlCapture extends DelegatingDataSource {
+
+		private final List<CapturedQuery> queries = new CopyOnWriteArrayList<>();
+
+		SqlCapture(DataSource target) {
+			super(target);
+		}
+
+		void clear() {
+			queries.clear();
+		}
+
+		List<CapturedQuery> selectsFromItem() {
+			return queries.stream()
+					.filter(query -> {
+						String sql = query.sql().trim().toLowerCase(Locale.ROOT);
+						return sql.startsWith("select") && sql.contains(" from item");
+					})
+					.toList();
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return capture(super.getConnection());
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return capture(super.getConnection(username, password));
+		}
+
+		private Connection capture(Connection connection) {
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+					(proxy, method, args) -> {
+						Object result = invoke(connection, method, args);
+						if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement ps) {
+							return capture(ps, (String) args[0]);
+						}
+						return result;
+					});
+		}
+
+		private PreparedStatement capture(PreparedStatement statement, String sql) {
+			Map<Integer, Object> parameters = new TreeMap<>();
+			return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] {PreparedStatement.class},
+					(proxy, method, args) -> {
+						String name = method.getName();
+						if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+							parameters.put(index, name.equals("setNull") ? null : args[1]);
+						} else if (name.equals("clearParameters")) {
+							parameters.clear();
+						} else if (name.startsWith("execute")) {
+							queries.add(new CapturedQuery(sql, new TreeMap<>(parameters)));
+						}
+						return invoke(statement, method, args);
+					});
+		}
+
+		private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+}
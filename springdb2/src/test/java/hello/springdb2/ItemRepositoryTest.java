@@ -1,102 +1,209 @@
-package hello.springdb2;
-
-import static org.assertj.core.api.Assertions.assertThat;
-
-import java.util.List;
-
-import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.context.ActiveProfiles;
-import org.springframework.transaction.annotation.Transactional;
-
-import hello.springdb2.domain.Item;
-import hello.springdb2.repository.ItemRepository;
-import hello.springdb2.repository.ItemSearchCond;
-import hello.springdb2.repository.ItemUpdateDto;
-
-@SpringBootTest
-@Transactional
-@ActiveProfiles("test")
-class ItemRepositoryTest {
-
-	@Autowired
-	private ItemRepository itemRepository;
-
-//	@Autowired
-//	private PlatformTransactionManager transactionManager;
-//	private TransactionStatus status;
-//	
-//	@BeforeEach
-//	void beforeEach() {
-//		status = transactionManager.getTransaction(new DefaultTransactionDefinition());
-//	}
-//	
-//	@AfterEach
-//	void afterEach() {
-//		transactionManager.rollback(status);
-//	}
-
-	@Test
-	void save() {
-		// given
-		Item item = new Item("itemA", 10000, 10);
-
-		// when
-		Item savedItem = itemRepository.save(item);
-
-		// then
-		Item findItem = itemRepository.findById(item.getId()).get();
-		assertThat(findItem).isEqualTo(savedItem);
-	}
-
-	@Test
-	void updateItem() {
-		// given
-		Item item = new Item("item1", 10000, 10);
-		Item savedItem = itemRepository.save(item);
-		Long itemId = savedItem.getId();
-
-		// when
-		ItemUpdateDto updateParam = new ItemUpdateDto("item2", 20000, 30);
-		itemRepository.update(itemId, updateParam);
-
-		// then
-		Item findItem = itemRepository.findById(itemId).get();
-		assertThat(findItem.getItemName()).isEqualTo(updateParam.getItemName());
-		assertThat(findItem.getPrice()).isEqualTo(updateParam.getPrice());
-		assertThat(findItem.getQuantity()).isEqualTo(updateParam.getQuantity());
-	}
-
-	@Test
-	void findItems() {
-		// given
-		Item item1 = new Item("itemA-1", 10000, 10);
-		Item item2 = new Item("itemA-2", 20000, 20);
-		Item item3 = new Item("itemB-1", 30000, 30);
-
-		itemRepository.save(item1);
-		itemRepository.save(item2);
-		itemRepository.save(item3);
-
-		// 둘 다 없음 검증
-		test(null, null, item1, item2, item3);
-		test("", null, item1, item2, item3);
-
-		// itemName 검증
-		test("itemA", null, item1, item2);
-		test("temA", null, item1, item2);
-		test("itemB", null, item3);
-
-		// maxPrice 검증
-		test(null, 10000, item1);
-
-		// 둘 다 있음 검증
-		test("itemA", 10000, item1);
-	}
-
-	void test(String itemName, Integer maxPrice, Item... items) {
-		List<Item> result = itemRepository.findAll(new ItemSearchCond(itemName, maxPrice));
-		assertThat(result).containsExactly(items);
-	}
+package hello.springdb2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.SearchMode;
+
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class ItemRepositoryTest {
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+//	@Autowired
+//	private PlatformTransactionManager transactionManager;
+//	private TransactionStatus status;
+//	
+//	@BeforeEach
+//	void beforeEach() {
+//		status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+//	}
+//	
+//	@AfterEach
+//	void afterEach() {
+//		transactionManager.rollback(status);
+//	}
+
+	@Test
+	void save() {
+		// given
+		Item item = new Item("itemA", 10000, 10);
+
+		// when
+		Item savedItem = itemRepository.save(item);
+
+		// then
+		Item findItem = itemRepository.findById(item.getId()).get();
+		assertThat(findItem).isEqualTo(savedItem);
+	}
+
+	@Test
+	void saveAll() {
+		// given
+		List<Item> items = List.of(
+				new Item("itemA", 10000, 10),
+				new Item("itemB", 20000, 20),
+				new Item("itemC", 30000, 30));
+
+		// when
+		List<Item> savedItems = itemRepository.saveAll(items);
+
+		// then
+		assertThat(savedItems).hasSize(3);
+		for (Item savedItem : savedItems) {
+			assertThat(savedItem.getId()).isNotNull();
+			Item findItem = itemRepository.findById(savedItem.getId()).get();
+			assertThat(findItem).isEqualTo(savedItem);
+		}
+	}
+
+	@Test
+	void updateItem() {
+		// given
+		Item item = new Item("item1", 10000, 10);
+		Item savedItem = itemRepository.save(item);
+		Long itemId = savedItem.getId();
+
+		// when
+		ItemUpdateDto updateParam = new ItemUpdateDto("item2", 20000, 30);
+		itemRepository.update(itemId, updateParam);
+
+		// then
+		Item findItem = itemRepository.findById(itemId).get();
+		assertThat(findItem.getItemName()).isEqualTo(updateParam.getItemName());
+		assertThat(findItem.getPrice()).isEqualTo(updateParam.getPrice());
+		assertThat(findItem.getQuantity()).isEqualTo(updateParam.getQuantity());
+	}
+
+	@Test
+	void findItems() {
+		// given
+		Item item1 = new Item("itemA-1", 10000, 10);
+		Item item2 = new Item("itemA-2", 20000, 20);
+		Item item3 = new Item("itemB-1", 30000, 30);
+
+		itemRepository.save(item1);
+		itemRepository.save(item2);
+		itemRepository.save(item3);
+
+		// 둘 다 없음 검증
+		test(null, null, item1, item2, item3);
+		test("", null, item1, item2, item3);
+
+		// itemName 검증
+		test("itemA", null, item1, item2);
+		test("temA", null, item1, item2);
+		test("itemB", null, item3);
+
+		// maxPrice 검증
+		test(null, 10000, item1);
+
+		// 둘 다 있음 검증
+		test("itemA", 10000, item1);
+	}
+
+	@Test
+	void findItemsBySearchMode() {
+		// given
+		Item item1 = itemRepository.save(new Item("itemA", 10000, 10));
+		Item item2 = itemRepository.save(new Item("itemA-2", 20000, 20));
+		Item item3 = itemRepository.save(new Item("new-itemA", 30000, 30));
+
+		// 포함
+		test("itemA", SearchMode.CONTAINS, null, item1, item2, item3);
+
+		// 시작
+		test("itemA", SearchMode.PREFIX, null, item1, item2);
+		test("itemA", SearchMode.PREFIX, 10000, item1);
+		test("temA", SearchMode.PREFIX, null);
+
+		// 일치
+		test("itemA", SearchMode.EXACT, null, item1);
+		test("itemA", SearchMode.EXACT, 5000);
+
+		// 페이징도 같은 조건
+		List<Item> prefixPage = itemRepository.findPage(
+				new ItemSearchCond("itemA", null, SearchMode.PREFIX), item1.getId() - 1, 10);
+		assertThat(prefixPage).containsExactly(item1, item2);
+	}
+
+	@Test
+	void findPage() {
+		// given
+		Item item1 = itemRepository.save(new Item("itemA-1", 10000, 10));
+		Item item2 = itemRepository.save(new Item("itemA-2", 20000, 20));
+		Item item3 = itemRepository.save(new Item("itemB-1", 30000, 30));
+		Item item4 = itemRepository.save(new Item("itemA-3", 40000, 40));
+		Long beforeFirst = item1.getId() - 1;
+
+		// 첫 페이지 / 다음 페이지
+		List<Item> firstPage = itemRepository.findPage(new ItemSearchCond(), beforeFirst, 2);
+		assertThat(firstPage).containsExactly(item1, item2);
+		List<Item> secondPage = itemRepository.findPage(new ItemSearchCond(), item2.getId(), 2);
+		assertThat(secondPage).containsExactly(item3, item4);
+
+		// 검색 조건 + 페이징
+		List<Item> itemAPage = itemRepository.findPage(new ItemSearchCond("itemA", null), item1.getId(), 10);
+		assertThat(itemAPage).containsExactly(item2, item4);
+		List<Item> cheapPage = itemRepository.findPage(new ItemSearchCond("itemA", 20000), beforeFirst, 10);
+		assertThat(cheapPage).containsExactly(item1, item2);
+	}
+
+	@Test
+	void findListPage() {
+		// given
+		Item item1 = itemRepository.save(new Item("itemA-1", 10000, 10));
+		Item item2 = itemRepository.save(new Item("itemB-1", 20000, 20));
+		Item item3 = itemRepository.save(new Item("itemA-2", 30000, 30));
+
+		// findPage와 같은 조건, 같은 순서의 행
+		List<ItemListRow> rows = itemRepository.findListPage(new ItemSearchCond("itemA", null), item1.getId() - 1, 10);
+		assertThat(rows).containsExactly(ItemListRow.from(item1), ItemListRow.from(item3));
+		assertThat(itemRepository.findListPage(new ItemSearchCond(), item1.getId(), 1))
+				.containsExactly(new ItemListRow(item2.getId(), "itemB-1", 20000, 20));
+	}
+
+	@Test
+	void stream() {
+		// given
+		Item item1 = itemRepository.save(new Item("itemA-1", 10000, 10));
+		Item item2 = itemRepository.save(new Item("itemA-2", 20000, 20));
+		Item item3 = itemRepository.save(new Item("itemB-1", 30000, 30));
+
+		// when
+		List<Item> all = new ArrayList<>();
+		itemRepository.stream(new ItemSearchCond(), all::add);
+		List<Item> itemA = new ArrayList<>();
+		itemRepository.stream(new ItemSearchCond("itemA", 10000), itemA::add);
+
+		// then
+		assertThat(all).containsExactlyInAnyOrder(item1, item2, item3);
+		assertThat(itemA).containsExactly(item1);
+	}
+
+	void test(String itemName, Integer maxPrice, Item... items) {
+		List<Item> result = itemRepository.findAll(new ItemSearchCond(itemName, maxPrice));
+		assertThat(result).containsExactly(items);
+	}
+
+	void test(String itemName, SearchMode searchMode, Integer maxPrice, Item... items) {
+		List<Item> result = itemRepository.findAll(new ItemSearchCond(itemName, maxPrice, searchMode));
+		assertThat(result).containsExactly(items);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package hello.springdb2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.SearchMode;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV1;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV2;
+import hello.springdb2.repository.jdbcTemplate.JdbcTemplateItemRepositoryV3;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV1;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV2;
+import hello.springdb2.repository.jpa.JpaItemRepositoryV3;
+import hello.springdb2.repository.jpa.SpringDataJpaItemRepository;
+import hello.springdb2.repository.memory.MemoryItemRepository;
+import hello.springdb2.repository.mybatis.ItemMapper;
+import hello.springdb2.repository.mybatis.MyBatisItemRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * 상품명 시작(PREFIX) / 일치(EXACT) 검색 검사
+ *
+ * - 모든 구현체의 findAll / findPage / stream이 같은 결과를 내는지 확인
+ *   -> 시작 / 일치 검색은 like를 쓰지 않으므로 검색어의 _ % 는 와일드카드가 아니다
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class ItemSearchModeTest {
+
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private ItemMapper itemMapper;
+	@Autowired
+	private SqlSessionFactory sqlSessionFactory;
+	@Autowired
+	private SpringDataJpaItemRepository springDataJpaItemRepository;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"jdbcV1", "jdbcV2", "jdbcV3", "mybatis", "jpaV1", "jpaV2", "jpaV3", "memory"})
+	void wildcardCharactersAreLiteral(String impl) {
+		ItemRepository itemRepository = repository(impl);
+		Item underscore = itemRepository.save(new Item("search_a", 10000, 10));
+		Item other = itemRepository.save(new Item("searchXa", 10000, 10));
+		Long beforeFirst = underscore.getId() - 1;
+
+		ItemSearchCond exact = new ItemSearchCond("search_a", null, SearchMode.EXACT);
+		ItemSearchCond prefix = new ItemSearchCond("search_", null, SearchMode.PREFIX);
+
+		assertThat(itemRepository.findAll(exact)).as(impl).extracting(Item::getId).containsExactly(underscore.getId());
+		assertThat(itemRepository.findPage(exact, beforeFirst, 10)).as(impl)
+				.extracting(Item::getId).containsExactly(underscore.getId());
+		assertThat(itemRepository.findPage(prefix, beforeFirst, 10)).as(impl)
+				.extracting(Item::getId).containsExactly(underscore.getId());
+		assertThat(stream(itemRepository, exact)).as(impl).containsExactly(underscore.getId());
+		assertThat(stream(itemRepository, prefix)).as(impl).containsExactly(underscore.getId());
+		assertThat(itemRepository.findPage(new ItemSearchCond("searchXa", null, SearchMode.EXACT), beforeFirst, 10))
+				.as(impl).extracting(Item::getId).containsExactly(other.getId());
+	}
+
+	private List<Long> stream(ItemRepository itemRepository, ItemSearchCond cond) {
+		List<Long> ids = new ArrayList<>();
+		itemRepository.stream(cond, item -> ids.add(item.getId()));
+		return ids;
+	}
+
+	private ItemRepository repository(String impl) {
+		return switch (impl) {
+			case "jdbcV1" -> new JdbcTemplateItemRepositoryV1(dataSource);
+			case "jdbcV2" -> new JdbcTemplateItemRepositoryV2(dataSource);
+			case "jdbcV3" -> new JdbcTemplateItemRepositoryV3(dataSource);
+			case "mybatis" -> new MyBatisItemRepository(itemMapper, sqlSessionFactory);
+			case "jpaV1" -> new JpaItemRepositoryV1(entityManager);
+			case "jpaV2" -> new JpaItemRepositoryV2(springDataJpaItemRepository, entityManager);
+			case "jpaV3" -> new JpaItemRepositoryV3(entityManager);
+			case "memory" -> new MemoryItemRepository();
+			default -> throw new IllegalArgumentException(impl);
+		};
+	}
+}
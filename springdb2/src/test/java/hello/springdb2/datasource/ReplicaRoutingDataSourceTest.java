@@ -0,0 +1,126 @@
+package hello.springdb2.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 내장 H2 두 개(primary, replica)로 라우팅 검사
+ * - 복제는 없으므로 각 DB에 다른 상품명을 넣어 어느 쪽에서 읽었는지 구분하고, 하트비트 복제는 직접 흉내 낸다
+ * - 스케줄러(start)는 띄우지 않고 refreshHealth를 직접 호출한다
+ */
+class ReplicaRoutingDataSourceTest {
+
+	private final EmbeddedDatabase primary = database();
+	private final EmbeddedDatabase replica = database();
+	private final ReplicaRoutingDataSource routingDataSource =
+			new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+	private final JdbcTemplate template;
+	private final TransactionTemplate readWrite;
+	private final TransactionTemplate readOnly;
+
+	ReplicaRoutingDataSourceTest() {
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+		dataSource.setReadOnlyDataSource(routingDataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+		template = new JdbcTemplate(dataSource);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		new JdbcTemplate(primary).update("insert into item (item_name, price, quantity) values ('primary', 1, 1)");
+		new JdbcTemplate(replica).update("insert into item (item_name, price, quantity) values ('replica', 1, 1)");
+	}
+
+	@AfterEach
+	void afterEach() {
+		primary.shutdown();
+		replica.shutdown();
+	}
+
+	private static EmbeddedDatabase database() {
+		return new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.setName("replica-test-" + UUID.randomUUID())
+				.addScript("schema.sql")
+				.build();
+	}
+
+	private void replicateHeartbeat(long beatAt) {
+		new JdbcTemplate(replica).update("merge into replica_heartbeat key (id) values (1, ?)", beatAt);
+	}
+
+	private String itemName(TransactionTemplate transactionTemplate) {
+		return transactionTemplate.execute(status -> template.queryForObject("select item_name from item", String.class));
+	}
+
+	@Test
+	void readOnlyTransactionGoesToHealthyReplica() {
+		replicateHeartbeat(System.currentTimeMillis());
+		routingDataSource.refreshHealth();
+
+		assertThat(routingDataSource.getHealthyReplicaCount()).isEqualTo(1);
+		assertThat(itemName(readOnly)).isEqualTo("replica");
+		assertThat(itemName(readWrite)).isEqualTo("primary");
+		// 트랜잭션 밖은 primary
+		assertThat(template.queryForObject("select item_name from item", String.class)).isEqualTo("primary");
+	}
+
+	@Test
+	void laggingReplicaFallsBackToPrimary() {
+		replicateHeartbeat(System.currentTimeMillis() - Duration.ofMinutes(1).toMillis());
+		routingDataSource.refreshHealth();
+
+		assertThat(routingDataSource.getHealthyReplicaCount()).isZero();
+		assertThat(itemName(readOnly)).isEqualTo("primary");
+
+		// 복제가 따라잡으면 다시 복제본으로
+		replicateHeartbeat(System.currentTimeMillis());
+		routingDataSource.refreshHealth();
+		assertThat(itemName(readOnly)).isEqualTo("replica");
+	}
+
+	@Test
+	void replicaWithoutHeartbeatIsNotUsed() {
+		routingDataSource.refreshHealth();
+
+		assertThat(itemName(readOnly)).isEqualTo("primary");
+	}
+
+	@Test
+	void readsAreSpreadAcrossReplicas() {
+		EmbeddedDatabase second = database();
+		try {
+			new JdbcTemplate(second).update("insert into item (item_name, price, quantity) values ('second', 1, 1)");
+			ReplicaRoutingDataSource twoReplicas = new ReplicaRoutingDataSource(primary, List.of(replica, second),
+					Duration.ofSeconds(5), Duration.ofSeconds(1));
+			long now = System.currentTimeMillis();
+			replicateHeartbeat(now);
+			new JdbcTemplate(second).update("merge into replica_heartbeat key (id) values (1, ?)", now);
+			twoReplicas.refreshHealth();
+
+			JdbcTemplate replicaTemplate = new JdbcTemplate(twoReplicas);
+			List<String> names = List.of(
+					replicaTemplate.queryForObject("select item_name from item", String.class),
+					replicaTemplate.queryForObject("select item_name from item", String.class));
+
+			assertThat(names).containsExactlyInAnyOrder("replica", "second");
+		} finally {
+			second.shutdown();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package hello.springdb2.repository.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.memory.MemoryItemRepository;
+
+class CachingItemRepositoryTest {
+
+	private final MemoryItemRepository memoryRepository = new MemoryItemRepository();
+	private final ItemRepository delegate = spy(memoryRepository);
+	private final CachingItemRepository itemRepository = new CachingItemRepository(delegate, 2, Duration.ofMinutes(10));
+
+	@AfterEach
+	void afterEach() {
+		memoryRepository.clearStore();
+	}
+
+	@Test
+	void saveThenFindByIdHitsCache() {
+		// given
+		Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+		// when
+		Item found = itemRepository.findById(item.getId()).get();
+
+		// then - save가 캐시를 채웠으므로 delegate 조회 없음
+		assertThat(found).isEqualTo(item);
+		verify(delegate, times(0)).findById(item.getId());
+		assertThat(itemRepository.getStats().hitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void missLoadsOnce() {
+		// given - 캐시를 거치지 않고 저장
+		Item item = memoryRepository.save(new Item("itemA", 10000, 10));
+
+		// when
+		itemRepository.findById(item.getId());
+		itemRepository.findById(item.getId());
+
+		// then
+		verify(delegate, times(1)).findById(item.getId());
+		CacheStats stats = itemRepository.getStats();
+		assertThat(stats.missCount()).isEqualTo(1);
+		assertThat(stats.hitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void loadRacingWithDeleteIsNotCached() {
+		// given - delegate가 옛 값을 읽은 직후 다른 스레드가 삭제한 상황
+		Item item = memoryRepository.save(new Item("itemA", 10000, 10));
+		doAnswer(invocation -> {
+			Object stale = invocation.callRealMethod();
+			itemRepository.delete(item.getId());
+			return stale;
+		}).doCallRealMethod().when(delegate).findById(anyLong());
+
+		// when
+		assertThat(itemRepository.findById(item.getId())).isPresent();
+
+		// then - 삭제보다 늦게 끝난 조회 결과는 캐시에 남지 않는다
+		assertThat(itemRepository.findById(item.getId())).isEmpty();
+		assertThat(itemRepository.getStats().size()).isZero();
+	}
+
+	@Test
+	void saveAllDoesNotPopulateCache() {
+		// given
+		List<Item> items = itemRepository.saveAll(List.of(
+				new Item("itemA", 10000, 10),
+				new Item("itemB", 20000, 20)));
+
+		// then - 대량 저장은 캐시를 채우지 않는다 (조회 시 미적중)
+		assertThat(itemRepository.getStats().size()).isZero();
+		itemRepository.findById(items.get(0).getId());
+		assertThat(itemRepository.getStats().missCount()).isEqualTo(1);
+	}
+
+	@Test
+	void updateAndDeleteInvalidate() {
+		// given
+		Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+		// when
+		itemRepository.update(item.getId(), new ItemUpdateDto("itemB", 20000, 30));
+
+		// then
+		Item found = itemRepository.findById(item.getId()).get();
+		assertThat(found.getItemName()).isEqualTo("itemB");
+		assertThat(found.getPrice()).isEqualTo(20000);
+
+		itemRepository.delete(item.getId());
+		assertThat(itemRepository.findById(item.getId())).isEmpty();
+	}
+
+	@Test
+	void returnsCopies() {
+		// given
+		Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+		// when - 반환된 객체를 수정해도
+		itemRepository.findById(item.getId()).get().setItemName("changed");
+
+		// then - 캐시 내용은 그대로
+		assertThat(itemRepository.findById(item.getId()).get().getItemName()).isEqualTo("itemA");
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed() {
+		// given - maxSize = 2
+		Item item1 = itemRepository.save(new Item("item1", 10000, 10));
+		Item item2 = itemRepository.save(new Item("item2", 10000, 10));
+		itemRepository.findById(item1.getId());
+
+		// when - item2가 가장 오래 안 쓴 항목
+		itemRepository.save(new Item("item3", 10000, 10));
+
+		// then
+		itemRepository.findById(item1.getId());
+		itemRepository.findById(item2.getId());
+		verify(delegate, times(0)).findById(item1.getId());
+		verify(delegate, times(1)).findById(item2.getId());
+		assertThat(itemRepository.getStats().evictionCount()).isGreaterThanOrEqualTo(1);
+	}
+
+	@Test
+	void expiresAfterTtl() {
+		// given
+		CachingItemRepository expiring = new CachingItemRepository(delegate, 10, Duration.ZERO);
+		Item item = expiring.save(new Item("itemA", 10000, 10));
+
+		// when
+		expiring.findById(item.getId());
+
+		// then
+		verify(delegate, times(1)).findById(item.getId());
+	}
+}
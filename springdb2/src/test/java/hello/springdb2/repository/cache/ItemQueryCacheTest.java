@@ -0,0 +1,171 @@
+package hello.springdb2.repository.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.memory.MemoryItemRepository;
+
+class ItemQueryCacheTest {
+
+	private final MemoryItemRepository itemRepository = new MemoryItemRepository();
+	private final ItemQueryCache queryCache = new ItemQueryCache(100, Duration.ofMinutes(1));
+	private final AtomicInteger loadCount = new AtomicInteger();
+
+	@AfterEach
+	void afterEach() {
+		itemRepository.clearStore();
+	}
+
+	private List<Item> find(String itemName, Integer maxPrice) {
+		ItemSearchCond cond = new ItemSearchCond(itemName, maxPrice);
+		return queryCache.get(cond, () -> {
+			loadCount.incrementAndGet();
+			return itemRepository.findAll(cond);
+		});
+	}
+
+	private List<ItemListRow> findListPage(String itemName, Long afterId, int limit) {
+		ItemSearchCond cond = new ItemSearchCond(itemName, null);
+		return queryCache.getListPage(cond, afterId, limit, () -> {
+			loadCount.incrementAndGet();
+			return itemRepository.findListPage(cond, afterId, limit);
+		});
+	}
+
+	@Test
+	void blankAndNullShareKey() {
+		find(null, null);
+		find("", null);
+		find("  ", null);
+
+		assertThat(loadCount).hasValue(1);
+		assertThat(queryCache.getStats().hitCount()).isEqualTo(2);
+	}
+
+	@Test
+	void saveEvictsOnlyMatchingKeys() {
+		// given
+		Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+		find("itemA", null);
+		find("itemB", null);
+		find(null, 5000);
+		loadCount.set(0);
+
+		// when - ("itemA", 20000)은 "itemA" 검색에만 걸린다
+		Item saved = itemRepository.save(new Item("itemA", 20000, 10));
+		queryCache.evictSaved(saved);
+
+		// then
+		assertThat(find("itemA", null)).containsExactly(itemA, saved);
+		assertThat(loadCount).hasValue(1);
+		find("itemB", null);
+		find(null, 5000);
+		assertThat(loadCount).hasValue(1);
+	}
+
+	@Test
+	void updateEvictsOldAndNewMatches() {
+		// given
+		Item item = itemRepository.save(new Item("itemA", 10000, 10));
+		find("itemA", null);
+		find("itemB", null);
+		find("itemC", null);
+		loadCount.set(0);
+
+		// when - itemA -> itemB
+		ItemUpdateDto updateParam = new ItemUpdateDto("itemB", 10000, 10);
+		itemRepository.update(item.getId(), updateParam);
+		queryCache.evictUpdated(item.getId(), updateParam);
+
+		// then - 이전 결과(itemA)와 새 값(itemB)에 해당하는 키만 다시 조회
+		assertThat(find("itemA", null)).isEmpty();
+		assertThat(find("itemB", null)).extracting(Item::getId).containsExactly(item.getId());
+		assertThat(loadCount).hasValue(2);
+		find("itemC", null);
+		assertThat(loadCount).hasValue(2);
+	}
+
+	@Test
+	void deleteEvictsKeysContainingId() {
+		// given
+		Item item = itemRepository.save(new Item("itemA", 10000, 10));
+		find(null, null);
+		find("itemB", null);
+		loadCount.set(0);
+
+		// when
+		itemRepository.delete(item.getId());
+		queryCache.evictDeleted(item.getId());
+
+		// then
+		assertThat(find(null, null)).isEmpty();
+		find("itemB", null);
+		assertThat(loadCount).hasValue(1);
+	}
+
+	@Test
+	void disabledAlwaysLoads() {
+		ItemQueryCache disabled = ItemQueryCache.disabled();
+		ItemSearchCond cond = new ItemSearchCond();
+
+		disabled.get(cond, () -> {
+			loadCount.incrementAndGet();
+			return List.of();
+		});
+		disabled.get(cond, () -> {
+			loadCount.incrementAndGet();
+			return List.of();
+		});
+
+		assertThat(loadCount).hasValue(2);
+	}
+
+	@Test
+	void listPagesAreCachedPerPage() {
+		// given
+		Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+		Item itemB = itemRepository.save(new Item("itemB", 20000, 20));
+		findListPage(null, null, 1);
+		findListPage(null, itemA.getId(), 1);
+		loadCount.set(0);
+
+		// when - 같은 페이지는 적중, 재고가 바뀐 상품이 든 페이지만 다시 조회
+		assertThat(findListPage(null, null, 1)).extracting(ItemListRow::id).containsExactly(itemA.getId());
+		itemRepository.decrementQuantity(itemB.getId(), 5);
+		queryCache.evictQuantityChanged(itemB.getId());
+
+		// then
+		assertThat(findListPage(null, itemA.getId(), 1)).extracting(ItemListRow::quantity).containsExactly(15);
+		findListPage(null, null, 1);
+		assertThat(loadCount).hasValue(1);
+	}
+
+	@Test
+	void saveAllEvictsMatchingKeysOnce() {
+		// given
+		find("itemA", null);
+		find("itemB", null);
+		find("itemC", null);
+		loadCount.set(0);
+
+		// when
+		List<Item> saved = itemRepository.saveAll(List.of(new Item("itemA", 10000, 10), new Item("itemB", 10000, 10)));
+		queryCache.evictSavedAll(saved);
+
+		// then - itemA, itemB 키만 다시 조회
+		assertThat(find("itemA", null)).hasSize(1);
+		assertThat(find("itemB", null)).hasSize(1);
+		find("itemC", null);
+		assertThat(loadCount).hasValue(2);
+	}
+}
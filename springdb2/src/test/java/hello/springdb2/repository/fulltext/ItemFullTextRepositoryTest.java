@@ -0,0 +1,142 @@
+package hello.springdb2.repository.fulltext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.service.ItemSearchService;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Lucene 색인은 트랜잭션 롤백과 무관하게 남으므로 테스트마다 다른 단어를 사용한다
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class ItemFullTextRepositoryTest {
+
+	@Autowired
+	private ItemRepository itemRepository;
+	@Autowired
+	private ItemSearchService itemSearchService;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	void rankedSearch() {
+		// given
+		Item applePie = save("fresh apple pie");
+		Item apple = save("apple");
+		save("pie crust");
+		save("banana");
+
+		// when
+		List<ItemSearchHit> hits = itemSearchService.search("apple pie", 0, 10, 10);
+
+		// then: 두 단어가 모두 맞는 상품이 먼저
+		assertThat(hits).extracting(ItemSearchHit::item).startsWith(applePie);
+		assertThat(hits).extracting(hit -> hit.item().getItemName()).doesNotContain("banana");
+		assertThat(hits).extracting(ItemSearchHit::score).isSortedAccordingTo((a, b) -> Float.compare(b, a));
+		assertThat(hits).extracting(ItemSearchHit::item).contains(apple);
+	}
+
+	@Test
+	void pagination() {
+		// given
+		save("kiwi one");
+		save("kiwi two");
+		save("kiwi three");
+
+		// when
+		List<ItemSearchHit> all = itemSearchService.search("kiwi", 0, 3, 3);
+		List<ItemSearchHit> first = itemSearchService.search("kiwi", 0, 2, 2);
+		List<ItemSearchHit> second = itemSearchService.search("kiwi", 1, 2, 2);
+
+		// then
+		assertThat(first).hasSize(2);
+		assertThat(second).hasSize(1);
+		assertThat(first.get(0).item()).isEqualTo(all.get(0).item());
+		assertThat(second.get(0).item()).isEqualTo(all.get(2).item());
+	}
+
+	@Test
+	void indexFollowsUpdateAndDelete() {
+		// given
+		Item item = save("orange juice");
+		Item deleted = save("orange soda");
+
+		// when
+		itemRepository.update(item.getId(), new ItemUpdateDto("grape juice", 1000, 1));
+		itemRepository.delete(deleted.getId());
+		entityManager.flush();
+
+		// then
+		assertThat(itemSearchService.search("orange", 0, 10, 10)).isEmpty();
+		assertThat(itemSearchService.search("grape", 0, 10, 10))
+				.extracting(hit -> hit.item().getId())
+				.containsExactly(item.getId());
+	}
+
+	@Test
+	void rolledBackDocumentsDoNotShortenPages() {
+		// given - 롤백된 INSERT의 문서는 색인에 남는다 (Lucene 색인은 트랜잭션에 참여하지 않음)
+		TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+		newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		newTransaction.executeWithoutResult(status -> {
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+			for (int i = 0; i < 3; i++) {
+				jdbcTemplate.update("insert into item(item_name, price, quantity) values ('melon', 1000, 1)");
+			}
+			status.setRollbackOnly();
+		});
+		Item first = save("melon");
+		Item second = save("melon");
+
+		// when
+		List<ItemSearchHit> page = itemSearchService.search("melon", 0, 2, 3);
+
+		// then - 남은 문서가 아니라 실제 상품으로 페이지를 채운다 (limit / offset은 조인 뒤에 적용)
+		assertThat(page).extracting(hit -> hit.item().getId())
+				.containsExactlyInAnyOrder(first.getId(), second.getId());
+	}
+
+	@Test
+	void pageOverflowIsRejected() {
+		assertThatThrownBy(() -> itemSearchService.search("melon", Integer.MAX_VALUE, 100, 101))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void specialCharactersAreEscaped() {
+		save("c++ (guide)");
+
+		assertThat(itemSearchService.search("guide)", 0, 10, 10)).isNotNull();
+		assertThat(itemSearchService.search("   ", 0, 10, 10)).isEmpty();
+	}
+
+	private Item save(String itemName) {
+		Item saved = itemRepository.save(new Item(itemName, 1000, 1));
+		entityManager.flush();
+		return saved;
+	}
+}
@@ -0,0 +1,190 @@
+package hello.springdb2.repository.jpa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemListRow;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.SearchMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate 2차 캐시 검사 (JpaSecondLevelCacheConfig, item.jpa.cache.enabled=true)
+ * - 캐시 적중 여부는 실행한 SQL 수(Statistics.prepareStatementCount)로 확인한다
+ * - 2차 캐시는 커밋된 데이터만 담으므로 @Transactional 대신 TransactionTemplate으로 트랜잭션을 나눈다
+ * - 만든 상품은 afterEach에서 지운다
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ItemSecondLevelCacheTest {
+
+	private static final String ITEM_NAME = "l2Item";
+
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private ItemSecondLevelCache itemSecondLevelCache;
+	@Autowired
+	private CacheManager itemSecondLevelCacheManager;
+
+	private JpaItemRepositoryV3 repository;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+	private Statistics statistics;
+	private Long itemId;
+
+	@BeforeEach
+	void beforeEach() {
+		repository = new JpaItemRepositoryV3(entityManager);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		itemId = readWrite.execute(status -> repository.save(new Item(ITEM_NAME, 1000, 10)).getId());
+	}
+
+	@AfterEach
+	void afterEach() {
+		readWrite.executeWithoutResult(status -> repository.delete(itemId));
+	}
+
+	private Item findById() {
+		return readOnly.execute(status -> repository.findById(itemId).orElseThrow());
+	}
+
+	private List<Item> findAll(String itemName) {
+		return readOnly.execute(status -> repository.findAll(new ItemSearchCond(itemName, null, SearchMode.EXACT)));
+	}
+
+	@Test
+	void findByIdHitIssuesNoSql() {
+		findById();
+		long hitCount = itemSecondLevelCache.getItemStats().hitCount();
+		long statementCount = statistics.getPrepareStatementCount();
+
+		// 새 트랜잭션(새 영속성 컨텍스트)이어도 2차 캐시에서 꺼낸다
+		Item item = findById();
+
+		assertThat(item.getItemName()).isEqualTo(ITEM_NAME);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementCount);
+		assertThat(itemSecondLevelCache.getItemStats().hitCount()).isGreaterThan(hitCount);
+		assertThat(itemSecondLevelCache.contains(itemId)).isTrue();
+	}
+
+	@Test
+	void listQueryHitIssuesNoSql() {
+		ItemSearchCond cond = new ItemSearchCond(ITEM_NAME, null, SearchMode.EXACT);
+		findAll(ITEM_NAME);
+		readOnly.execute(status -> repository.findListPage(cond, null, 10));
+		long hitCount = itemSecondLevelCache.getQueryStats().hitCount();
+		long statementCount = statistics.getPrepareStatementCount();
+
+		List<Item> items = findAll(ITEM_NAME);
+		List<ItemListRow> rows = readOnly.execute(status -> repository.findListPage(cond, null, 10));
+
+		assertThat(items).extracting(Item::getId).containsExactly(itemId);
+		assertThat(rows).extracting(ItemListRow::id).containsExactly(itemId);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementCount);
+		assertThat(itemSecondLevelCache.getQueryStats().hitCount()).isEqualTo(hitCount + 2);
+	}
+
+	@Test
+	void hibernateWriteInvalidatesCachedResults() {
+		findAll(ITEM_NAME);
+		findById();
+
+		ItemUpdateDto rename = new ItemUpdateDto();
+		rename.setItemName("l2Renamed");
+		readWrite.executeWithoutResult(status -> repository.update(itemId, rename));
+
+		assertThat(findAll(ITEM_NAME)).isEmpty();
+		assertThat(findAll("l2Renamed")).extracting(Item::getId).containsExactly(itemId);
+		assertThat(findById().getItemName()).isEqualTo("l2Renamed");
+	}
+
+	@Test
+	void bulkQuantityUpdateEvictsOnlyThatItem() {
+		Long otherId = readWrite.execute(status -> repository.save(new Item("l2Other", 2000, 5)).getId());
+		try {
+			findById();
+			readOnly.execute(status -> repository.findById(otherId).orElseThrow());
+
+			assertThat(readWrite.execute(status -> repository.decrementQuantity(itemId, 3))).isTrue();
+
+			// 바꾼 상품만 비우고 다른 상품은 캐시에 남는다
+			assertThat(itemSecondLevelCache.contains(itemId)).isFalse();
+			assertThat(itemSecondLevelCache.contains(otherId)).isTrue();
+			assertThat(findById().getQuantity()).isEqualTo(7);
+		} finally {
+			readWrite.executeWithoutResult(status -> repository.delete(otherId));
+		}
+	}
+
+	@Test
+	void quantityUpdateKeepsCachedQueryResults() {
+		findAll(ITEM_NAME);
+		long queryHitCount = itemSecondLevelCache.getQueryStats().hitCount();
+
+		assertThat(readWrite.execute(status -> repository.incrementQuantity(itemId, 5))).isTrue();
+
+		// 조회 결과(id 목록)는 그대로 적중하고, 비운 엔티티만 DB에서 다시 읽는다 -> 재고는 최신
+		List<Item> items = findAll(ITEM_NAME);
+		assertThat(items).extracting(Item::getQuantity).containsExactly(15);
+		assertThat(itemSecondLevelCache.getQueryStats().hitCount()).isEqualTo(queryHitCount + 1);
+	}
+
+	@Test
+	void regionsBelongToThisContextOnly() {
+		CacheManager shared = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+
+		// JVM 공용 캐시 매니저가 아니므로 다른 컨텍스트(다른 DB)와 영역을 공유하지 않는다
+		assertThat(itemSecondLevelCacheManager).isNotSameAs(shared);
+		assertThat(itemSecondLevelCacheManager.getCache(ItemSecondLevelCache.ITEM_REGION)).isNotNull();
+		assertThat(shared.getCache(ItemSecondLevelCache.ITEM_REGION)).isNull();
+	}
+
+	@Test
+	void directSqlUpdateNeedsRegionEviction() {
+		findById();
+		new JdbcTemplate(dataSource).update("update item set price = ? where id = ?", 777, itemId);
+
+		// Hibernate가 모르는 수정 -> 캐시에 남은 옛 값
+		assertThat(findById().getPrice()).isEqualTo(1000);
+
+		itemSecondLevelCache.evictItems();
+		long statementCount = statistics.getPrepareStatementCount();
+
+		assertThat(itemSecondLevelCache.contains(itemId)).isFalse();
+		assertThat(findById().getPrice()).isEqualTo(777);
+		assertThat(statistics.getPrepareStatementCount()).isGreaterThan(statementCount);
+	}
+}
@@ -0,0 +1,90 @@
+package hello.springdb2.repository.jpa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemSearchCond;
+import jakarta.persistence.EntityManager;
+
+/**
+ * 읽기 전용 조회 경로 검사 (ReadOnlyQueries)
+ * - 트랜잭션 종류마다 결과가 달라야 하므로 @Transactional 대신 TransactionTemplate으로 직접 트랜잭션을 연다
+ * - 만든 상품은 afterEach에서 지운다
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class JpaItemRepositoryV3ReadOnlyTest {
+
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private JpaItemRepositoryV3 repository;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+	private Long itemId;
+
+	@BeforeEach
+	void beforeEach() {
+		repository = new JpaItemRepositoryV3(entityManager);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		itemId = readWrite.execute(status -> repository.save(new Item("readOnlyItem", 1000, 10)).getId());
+	}
+
+	@AfterEach
+	void afterEach() {
+		readWrite.executeWithoutResult(status -> repository.delete(itemId));
+	}
+
+	private boolean isReadOnly(Item item) {
+		return entityManager.unwrap(Session.class).isReadOnly(item);
+	}
+
+	@Test
+	void readOnlyTransactionLoadsReadOnlyEntities() {
+		ItemSearchCond cond = new ItemSearchCond("readOnlyItem", null);
+
+		readOnly.executeWithoutResult(status -> {
+			assertThat(isReadOnly(repository.findById(itemId).orElseThrow())).isTrue();
+			assertThat(repository.findAll(cond)).isNotEmpty().allMatch(this::isReadOnly);
+			assertThat(repository.findPage(cond, null, 10)).isNotEmpty().allMatch(this::isReadOnly);
+		});
+
+		readWrite.executeWithoutResult(status -> {
+			assertThat(isReadOnly(repository.findById(itemId).orElseThrow())).isFalse();
+			assertThat(repository.findAll(cond)).isNotEmpty().noneMatch(this::isReadOnly);
+		});
+	}
+
+	@Test
+	void changesInReadOnlyTransactionAreNotFlushed() {
+		readOnly.executeWithoutResult(status -> repository.findById(itemId).orElseThrow().setPrice(999));
+
+		Integer price = readWrite.execute(status -> repository.findById(itemId).orElseThrow().getPrice());
+		assertThat(price).isEqualTo(1000);
+	}
+
+	@Test
+	void readWriteTransactionStillSeesPendingChanges() {
+		readWrite.executeWithoutResult(status -> {
+			repository.findById(itemId).orElseThrow().setItemName("renamedItem");
+
+			// 쿼리 전 자동 flush -> 아직 커밋 안 한 변경도 검색된다
+			assertThat(repository.findAll(new ItemSearchCond("renamedItem", null))).hasSize(1);
+		});
+	}
+}
@@ -0,0 +1,181 @@
+package hello.springdb2.repository.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.ItemUpdateDto;
+
+class MemoryItemRepositoryTest {
+
+	private final MemoryItemRepository itemRepository = new MemoryItemRepository();
+
+	@AfterEach
+	void afterEach() {
+		itemRepository.clearStore();
+	}
+
+	@Test
+	void findAllByMaxPrice() {
+		// given
+		Item item1 = itemRepository.save(new Item("itemA", 30000, 10));
+		Item item2 = itemRepository.save(new Item("itemB", 10000, 20));
+		Item item3 = itemRepository.save(new Item("itemC", 20000, 30));
+
+		// then - 가격 인덱스를 타더라도 결과는 id 순서
+		assertThat(itemRepository.findAll(new ItemSearchCond(null, 20000))).containsExactly(item2, item3);
+		assertThat(itemRepository.findAll(new ItemSearchCond(null, 30000))).containsExactly(item1, item2, item3);
+		assertThat(itemRepository.findAll(new ItemSearchCond(null, 9999))).isEmpty();
+	}
+
+	@Test
+	void updateMovesPriceIndex() {
+		// given
+		Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+		// when
+		itemRepository.update(item.getId(), new ItemUpdateDto("itemA", 50000, 10));
+
+		// then
+		assertThat(itemRepository.findAll(new ItemSearchCond(null, 10000))).isEmpty();
+		assertThat(itemRepository.findAll(new ItemSearchCond(null, 50000))).extracting(Item::getId).containsExactly(item.getId());
+	}
+
+	@Test
+	void deleteRemovesFromPriceIndex() {
+		// given
+		Item item1 = itemRepository.save(new Item("itemA", 10000, 10));
+		Item item2 = itemRepository.save(new Item("itemB", 10000, 20));
+
+		// when
+		itemRepository.delete(item1.getId());
+
+		// then
+		assertThat(itemRepository.findAll(new ItemSearchCond(null, 10000))).containsExactly(item2);
+	}
+
+	@Test
+	void storedItemsAreIsolatedFromCallers() {
+		// given
+		Item saved = itemRepository.save(new Item("itemA", 10000, 10));
+
+		// when - 저장에 넘긴 객체, 조회 결과를 고쳐도
+		saved.setQuantity(0);
+		itemRepository.findById(saved.getId()).get().setQuantity(0);
+		itemRepository.findAll(new ItemSearchCond()).get(0).setPrice(0);
+
+		// then - 저장소는 그대로이고, 재고 변경(CAS)도 정상 동작
+		Item found = itemRepository.findById(saved.getId()).get();
+		assertThat(found.getQuantity()).isEqualTo(10);
+		assertThat(found.getPrice()).isEqualTo(10000);
+		assertThat(itemRepository.decrementQuantity(saved.getId(), 3)).isTrue();
+		assertThat(itemRepository.findById(saved.getId()).get().getQuantity()).isEqualTo(7);
+	}
+
+	@Test
+	void findPageWithMaxPrice() {
+		// given
+		Item item1 = itemRepository.save(new Item("itemA", 10000, 10));
+		itemRepository.save(new Item("itemB", 90000, 20));
+		Item item3 = itemRepository.save(new Item("itemC", 20000, 30));
+		Item item4 = itemRepository.save(new Item("itemD", 10000, 40));
+
+		// then
+		ItemSearchCond cond = new ItemSearchCond(null, 20000);
+		assertThat(itemRepository.findPage(cond, null, 2)).containsExactly(item1, item3);
+		assertThat(itemRepository.findPage(cond, item3.getId(), 2)).containsExactly(item4);
+	}
+
+	@Test
+	void findPageWithMaxPriceAcrossManyPrices() {
+		// given - 가격 순서와 id 순서가 반대
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			items.add(itemRepository.save(new Item(i % 2 == 0 ? "even" : "odd", 50000 - i * 100, i)));
+		}
+
+		// then - 힙으로 고른 페이지도 id 순서, 짧은 상품명 조건은 힙에 넣기 전에 거른다
+		ItemSearchCond cond = new ItemSearchCond(null, 50000);
+		assertThat(itemRepository.findPage(cond, null, 3)).containsExactlyElementsOf(items.subList(0, 3));
+		assertThat(itemRepository.findPage(cond, items.get(46).getId(), 10)).containsExactlyElementsOf(items.subList(47, 50));
+		assertThat(itemRepository.findPage(new ItemSearchCond("od", 49000), null, 2))
+				.containsExactly(items.get(11), items.get(13));
+	}
+
+	@Test
+	void findAllByItemNameUsesTrigramIndex() {
+		// given
+		Item item1 = itemRepository.save(new Item("itemA-1", 10000, 10));
+		Item item2 = itemRepository.save(new Item("itemA-2", 20000, 20));
+		Item item3 = itemRepository.save(new Item("itemB-1", 30000, 30));
+
+		// then - 3글자 이상 검색어는 색인, 미만은 스캔 (결과는 동일해야 한다)
+		assertThat(itemRepository.findAll(new ItemSearchCond("temA", null))).containsExactly(item1, item2);
+		assertThat(itemRepository.findAll(new ItemSearchCond("B-1", null))).containsExactly(item3);
+		assertThat(itemRepository.findAll(new ItemSearchCond("-1", null))).containsExactly(item1, item3);
+		assertThat(itemRepository.findAll(new ItemSearchCond("itemA", 10000))).containsExactly(item1);
+	}
+
+	@Test
+	void trigramCandidatesAreVerified() {
+		// given - "abcd"의 gram(abc, bcd)은 모두 있지만 연속되지 않는다
+		itemRepository.save(new Item("abcXbcd", 10000, 10));
+
+		// then - 색인 후보(거짓 양성)는 contains()로 걸러진다
+		assertThat(itemRepository.findAll(new ItemSearchCond("abcd", null))).isEmpty();
+	}
+
+	@Test
+	void updateAndDeleteMaintainTrigramIndex() {
+		// given
+		Item item = itemRepository.save(new Item("apple", 10000, 10));
+
+		// when
+		itemRepository.update(item.getId(), new ItemUpdateDto("banana", 10000, 10));
+
+		// then
+		assertThat(itemRepository.findAll(new ItemSearchCond("app", null))).isEmpty();
+		assertThat(itemRepository.findAll(new ItemSearchCond("nan", null))).extracting(Item::getId).containsExactly(item.getId());
+
+		itemRepository.delete(item.getId());
+		assertThat(itemRepository.findAll(new ItemSearchCond("nan", null))).isEmpty();
+	}
+
+	@Test
+	void concurrentDecrementsNeverOversell() throws Exception {
+		// given - 재고 1000개에 2000건의 1개 차감 요청이 동시에 몰린다
+		Item item = itemRepository.save(new Item("itemA", 10000, 1000));
+		AtomicInteger succeeded = new AtomicInteger();
+
+		// when
+		try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 2000; i++) {
+				futures.add(executor.submit(() -> {
+					if (itemRepository.decrementQuantity(item.getId(), 1)) {
+						succeeded.incrementAndGet();
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+
+		// then - 정확히 재고만큼만 성공하고 음수가 되지 않는다
+		assertThat(succeeded).hasValue(1000);
+		Item found = itemRepository.findById(item.getId()).get();
+		assertThat(found.getQuantity()).isZero();
+		assertThat(found.getVersion()).isEqualTo(1000L);
+	}
+}
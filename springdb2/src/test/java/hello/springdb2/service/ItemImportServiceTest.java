@@ -0,0 +1,153 @@
+package hello.springdb2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemRepository;
+import hello.springdb2.repository.ItemSearchCond;
+import hello.springdb2.repository.cache.ItemQueryCache;
+import hello.springdb2.repository.memory.MemoryItemRepository;
+
+class ItemImportServiceTest {
+
+	private final MemoryItemRepository itemRepository = new MemoryItemRepository();
+	private final ItemImportService importService = new ItemImportService(itemRepository,
+			mock(PlatformTransactionManager.class), ItemQueryCache.disabled(), 2, 2, 2);
+
+	@AfterEach
+	void afterEach() {
+		itemRepository.clearStore();
+	}
+
+	private ItemImportResult importCsv(String csv) throws IOException {
+		return importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void importValidRows() throws IOException {
+		ItemImportResult result = importCsv("""
+				item_name,price,quantity
+				itemA,10000,10
+				itemB,20000,20
+				itemC,30000,30
+				""");
+
+		assertThat(result.totalRows()).isEqualTo(3);
+		assertThat(result.importedRows()).isEqualTo(3);
+		assertThat(result.failedRows()).isZero();
+		assertThat(itemRepository.findAll(new ItemSearchCond()))
+				.extracting(Item::getItemName)
+				.containsExactlyInAnyOrder("itemA", "itemB", "itemC");
+	}
+
+	@Test
+	void importExportedFormat() throws IOException {
+		// /items/export.csv 형식 (id 컬럼 무시, 따옴표 필드)
+		importCsv("""
+				id,item_name,price,quantity
+				7,"item, ""A""
+				second line",10000,10
+				""");
+
+		List<Item> items = itemRepository.findAll(new ItemSearchCond());
+		assertThat(items).hasSize(1);
+		assertThat(items.get(0).getItemName()).isEqualTo("item, \"A\"\nsecond line");
+	}
+
+	@Test
+	void invalidRowsAreReported() throws IOException {
+		ItemImportResult result = importCsv("""
+				item_name,price,quantity
+				itemA,10000,10
+				,20000,20
+				itemC,abc,30
+				itemD,40000
+				""");
+
+		assertThat(result.totalRows()).isEqualTo(4);
+		assertThat(result.importedRows()).isEqualTo(1);
+		assertThat(result.failedRows()).isEqualTo(3);
+		assertThat(result.errors()).hasSize(3)
+				.anyMatch(error -> error.startsWith("line 3:"))
+				.anyMatch(error -> error.startsWith("line 4:"))
+				.anyMatch(error -> error.startsWith("line 5:"));
+	}
+
+	@Test
+	void missingHeaderColumns() {
+		assertThatThrownBy(() -> importCsv("name,price\nitemA,10000\n"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void unterminatedQuoteFailsOnlyThatRow() throws IOException {
+		ItemImportResult result = importCsv("""
+				item_name,price,quantity
+				itemA,10000,10
+				"itemB,20000,20
+				itemC,30000,30
+				itemD,40000,40
+				""");
+
+		assertThat(result.totalRows()).isEqualTo(4);
+		assertThat(result.importedRows()).isEqualTo(3);
+		assertThat(result.errors()).singleElement().asString().startsWith("line 3:");
+		assertThat(itemRepository.findAll(new ItemSearchCond()))
+				.extracting(Item::getItemName)
+				.containsExactlyInAnyOrder("itemA", "itemC", "itemD");
+	}
+
+	@Test
+	void failedChunkIsRetriedRowByRow() throws IOException {
+		// given - "broken" 행은 DB 저장에서 실패한다 (검증은 통과)
+		ItemRepository failingRepository = spy(itemRepository);
+		doAnswer(invocation -> {
+			Collection<Item> items = invocation.getArgument(0);
+			if (items.stream().anyMatch(item -> item.getItemName().equals("broken"))) {
+				throw new DataIntegrityViolationException("broken");
+			}
+			return invocation.callRealMethod();
+		}).when(failingRepository).saveAll(any());
+		doAnswer(invocation -> {
+			Item item = invocation.getArgument(0);
+			if (item.getItemName().equals("broken")) {
+				throw new DataIntegrityViolationException("broken");
+			}
+			return invocation.callRealMethod();
+		}).when(failingRepository).save(any());
+		ItemImportService service = new ItemImportService(failingRepository,
+				mock(PlatformTransactionManager.class), ItemQueryCache.disabled(), 2, 2, 2);
+
+		// when - 묶음 (itemA, broken)이 실패
+		ItemImportResult result = service.importCsv(new ByteArrayInputStream("""
+				item_name,price,quantity
+				itemA,10000,10
+				broken,20000,20
+				itemC,30000,30
+				""".getBytes(StandardCharsets.UTF_8)));
+
+		// then - 잘못된 행만 실패
+		assertThat(result.importedRows()).isEqualTo(2);
+		assertThat(result.failedRows()).isEqualTo(1);
+		assertThat(result.errors()).singleElement().asString().startsWith("line 3:");
+		assertThat(itemRepository.findAll(new ItemSearchCond()))
+				.extracting(Item::getItemName)
+				.containsExactlyInAnyOrder("itemA", "itemC");
+	}
+}
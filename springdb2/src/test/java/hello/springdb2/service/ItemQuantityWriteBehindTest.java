@@ -0,0 +1,216 @@
+package hello.springdb2.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import hello.springdb2.domain.Item;
+import hello.springdb2.repository.ItemUpdateDto;
+import hello.springdb2.repository.cache.CachingItemRepository;
+import hello.springdb2.repository.memory.MemoryItemRepository;
+
+/**
+ * 스케줄러(start)는 띄우지 않고 rollWindow / flush를 직접 호출한다
+ */
+class ItemQuantityWriteBehindTest {
+
+	private final MemoryItemRepository itemRepository = new MemoryItemRepository();
+	private final ItemQuantityWriteBehind writeBehind = new ItemQuantityWriteBehind(itemRepository,
+			mock(PlatformTransactionManager.class), Duration.ofMillis(200), Duration.ofSeconds(1), 2, 10, 2);
+
+	@AfterEach
+	void afterEach() {
+		itemRepository.clearStore();
+	}
+
+	private Long makeHot(int quantity) {
+		Long itemId = itemRepository.save(new Item("itemA", 10000, quantity)).getId();
+		writeBehind.decrement(itemId, 1);
+		writeBehind.decrement(itemId, 1);
+		writeBehind.rollWindow();
+		return itemId;
+	}
+
+	private int quantity(Long itemId) {
+		return itemRepository.findById(itemId).get().getQuantity();
+	}
+
+	@Test
+	void coldItemIsAppliedDirectly() {
+		Long itemId = itemRepository.save(new Item("itemA", 10000, 10)).getId();
+
+		assertThat(writeBehind.decrement(itemId, 3)).isTrue();
+		assertThat(writeBehind.increment(itemId, 1)).isTrue();
+
+		assertThat(quantity(itemId)).isEqualTo(8);
+		assertThat(writeBehind.getStats().directCount()).isEqualTo(2);
+		assertThat(writeBehind.getStats().bufferedCount()).isZero();
+	}
+
+	@Test
+	void hotItemIsBufferedUntilFlush() {
+		// given - 감지 전 2건은 바로 반영 (10 -> 8)
+		Long itemId = makeHot(10);
+		assertThat(writeBehind.getStats().hotItemCount()).isEqualTo(1);
+
+		// when
+		assertThat(writeBehind.decrement(itemId, 3)).isTrue();
+		assertThat(writeBehind.increment(itemId, 1)).isTrue();
+
+		// then - 플러시 전에는 DB 그대로, 플러시 후 한 번에 반영
+		assertThat(quantity(itemId)).isEqualTo(8);
+		assertThat(writeBehind.getStats().pendingItemCount()).isEqualTo(1);
+
+		writeBehind.flush();
+
+		assertThat(quantity(itemId)).isEqualTo(6);
+		assertThat(itemRepository.findById(itemId).get().getVersion()).isEqualTo(3L);
+		assertThat(writeBehind.getStats().bufferedCount()).isEqualTo(2);
+		assertThat(writeBehind.getStats().flushedCount()).isEqualTo(1);
+		assertThat(writeBehind.getStats().pendingItemCount()).isZero();
+	}
+
+	@Test
+	void bufferedDecrementsNeverOversell() {
+		Long itemId = makeHot(7);
+
+		assertThat(writeBehind.decrement(itemId, 4)).isTrue();
+		assertThat(writeBehind.decrement(itemId, 2)).as("어림 재고 1").isFalse();
+		writeBehind.flush();
+		assertThat(writeBehind.decrement(itemId, 1)).isTrue();
+		assertThat(writeBehind.decrement(itemId, 1)).isFalse();
+		writeBehind.flush();
+
+		assertThat(quantity(itemId)).isZero();
+	}
+
+	@Test
+	void baseQuantityFollowsOtherWriters() {
+		Long itemId = makeHot(5);
+		writeBehind.decrement(itemId, 1);
+
+		// 다른 경로(수정 폼 등)에서 재고를 늘리면 다음 감지 주기에 기준 재고를 다시 읽는다
+		itemRepository.incrementQuantity(itemId, 10);
+		writeBehind.decrement(itemId, 1);
+		writeBehind.decrement(itemId, 1);
+		writeBehind.rollWindow();
+
+		assertThat(writeBehind.decrement(itemId, 11)).as("어림 재고 13 - 3").isFalse();
+		assertThat(writeBehind.decrement(itemId, 10)).isTrue();
+		writeBehind.flush();
+		assertThat(quantity(itemId)).isZero();
+	}
+
+	@Test
+	void baseQuantityBypassesFindByIdCache() {
+		CachingItemRepository cachingRepository = new CachingItemRepository(itemRepository, 100, Duration.ofMinutes(10));
+		ItemQuantityWriteBehind cachedWriteBehind = new ItemQuantityWriteBehind(cachingRepository,
+				mock(PlatformTransactionManager.class), Duration.ofMillis(200), Duration.ofSeconds(1), 2, 10, 2);
+		Long itemId = itemRepository.save(new Item("itemA", 10000, 10)).getId();
+		cachedWriteBehind.decrement(itemId, 1);
+		cachedWriteBehind.decrement(itemId, 1);
+		cachedWriteBehind.rollWindow();
+		cachingRepository.findById(itemId);
+
+		// 캐시를 거치지 않는 경로로 재고를 줄임 (8 -> 1), findById 캐시에는 8이 남아 있다
+		ItemUpdateDto updateParam = new ItemUpdateDto();
+		updateParam.setQuantity(1);
+		itemRepository.update(itemId, updateParam);
+		cachedWriteBehind.decrement(itemId, 1);
+		cachedWriteBehind.decrement(itemId, 1);
+		cachedWriteBehind.rollWindow();
+
+		assertThat(cachingRepository.findById(itemId).get().getQuantity()).isEqualTo(8);
+		assertThat(cachedWriteBehind.decrement(itemId, 1)).as("어림 재고 1 - 2").isFalse();
+	}
+
+	@Test
+	void shortfallAppliesWhatFitsAndReportsTheRest() {
+		Long itemId = makeHot(10);
+		assertThat(writeBehind.decrement(itemId, 6)).isTrue();
+
+		// 다른 경로에서 재고를 줄임 (8 -> 3) -> 승인한 6개 중 3개만 들어간다
+		itemRepository.decrementQuantity(itemId, 5);
+		writeBehind.flush();
+
+		assertThat(quantity(itemId)).isZero();
+		assertThat(writeBehind.getStats().rejectedCount()).isEqualTo(3);
+		assertThat(writeBehind.getStats().pendingItemCount()).isZero();
+		// 기준 재고를 DB 값(0)으로 다시 맞췄으므로 더 승인하지 않는다
+		assertThat(writeBehind.decrement(itemId, 1)).isFalse();
+	}
+
+	@Test
+	void demotedItemAppliesReservationsBeforeGoingDirect() {
+		// given - 감지 전 2건은 바로 반영 (5 -> 3), 남은 3개를 모두 예약 (DB는 아직 3)
+		Long itemId = makeHot(5);
+		assertThat(writeBehind.decrement(itemId, 3)).isTrue();
+
+		// when - 이번 감지 주기의 요청은 1건 (< hotThreshold) -> 핫 상품에서 빠진다
+		writeBehind.rollWindow();
+
+		// then - 빠지기 전에 예약을 반영했으므로 바로 반영하는 차감은 DB 재고 0을 보고 거절된다
+		assertThat(writeBehind.getStats().hotItemCount()).isZero();
+		assertThat(quantity(itemId)).isZero();
+		assertThat(writeBehind.decrement(itemId, 1)).isFalse();
+		assertThat(writeBehind.getStats().rejectedCount()).isZero();
+		assertThat(writeBehind.getStats().pendingItemCount()).isZero();
+	}
+
+	@Test
+	void closeFlushesPendingDeltas() throws InterruptedException {
+		Long itemId = makeHot(10);
+		writeBehind.decrement(itemId, 5);
+
+		writeBehind.close();
+
+		assertThat(quantity(itemId)).isEqualTo(3);
+		// 닫힌 뒤에는 바로 반영
+		writeBehind.decrement(itemId, 1);
+		assertThat(quantity(itemId)).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentBufferedDecrements() throws Exception {
+		Long itemId = makeHot(1002);
+		AtomicInteger success = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 2000; i++) {
+				futures.add(executor.submit(() -> {
+					if (writeBehind.decrement(itemId, 1)) {
+						success.incrementAndGet();
+					}
+				}));
+				if (i % 500 == 0) {
+					futures.add(executor.submit(writeBehind::flush));
+				}
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		writeBehind.flush();
+
+		// CAS 예약이라 승인한 차감이 남은 재고를 넘지 않고, 승인한 만큼 모두 반영된다 (감지 전 직접 차감 2건)
+		assertThat(quantity(itemId)).isGreaterThanOrEqualTo(0);
+		assertThat(quantity(itemId) + success.get()).isEqualTo(1002 - 2);
+		assertThat(writeBehind.getStats().rejectedCount()).isZero();
+		assertThat(writeBehind.getStats().pendingItemCount()).isZero();
+	}
+}
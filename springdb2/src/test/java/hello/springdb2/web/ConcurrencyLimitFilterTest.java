@@ -0,0 +1,64 @@
+package hello.springdb2.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class ConcurrencyLimitFilterTest {
+
+	@Test
+	void rejectsWhenLimitReached() throws Exception {
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		HttpServlet blocking = new HttpServlet() {
+			@Override
+			protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+				entered.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			// 첫 요청이 permit을 잡고 대기
+			Future<MockHttpServletResponse> first = executor.submit(() -> {
+				MockHttpServletResponse response = new MockHttpServletResponse();
+				filter.doFilter(new MockHttpServletRequest("GET", "/items"), response, new MockFilterChain(blocking));
+				return response;
+			});
+			assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+			// 두 번째 요청은 대기 한도를 넘겨 503
+			MockHttpServletResponse rejected = new MockHttpServletResponse();
+			filter.doFilter(new MockHttpServletRequest("GET", "/items"), rejected, new MockFilterChain());
+			assertThat(rejected.getStatus()).isEqualTo(503);
+
+			release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+		}
+
+		// permit 반환 후에는 다시 통과
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/items"), response, new MockFilterChain());
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(filter.availablePermits()).isEqualTo(1);
+	}
+}